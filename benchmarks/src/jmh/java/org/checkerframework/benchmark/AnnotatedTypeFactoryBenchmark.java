@@ -0,0 +1,107 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.VariableTree;
+
+import org.checkerframework.benchmark.CompiledCorpus.MethodInUnit;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.javacutil.TreeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Benchmarks {@link GenericAnnotatedTypeFactory#getAnnotatedType}, for declarations (elements) and
+ * for expressions (trees), using the Nullness Checker's type factory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotatedTypeFactoryBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** If false, pass {@code -AatfDoNotCache} so every query computes its result from scratch. */
+    @Param({"true", "false"})
+    public boolean atfCache;
+
+    /** The corpus, type-checked by the Nullness Checker. */
+    private NullnessCompilation nullness;
+
+    /** The declarations of all methods and their parameters. */
+    private List<Element> elements;
+
+    /** Interesting expressions, grouped by compilation unit. */
+    private Map<CompilationUnitTree, List<ExpressionTree>> expressions;
+
+    /** Type-checks the corpus and collects the elements and expressions to query. */
+    @Setup
+    public void setup() {
+        Corpus corpus = Corpus.forName(corpusName);
+        nullness =
+                atfCache
+                        ? NullnessCompilation.compile(corpus)
+                        : NullnessCompilation.compile(corpus, "-AatfDoNotCache");
+        elements = new ArrayList<>();
+        for (MethodInUnit m : nullness.compiled.getMethods()) {
+            elements.add(TreeUtils.elementFromDeclaration(m.method));
+            for (VariableTree param : m.method.getParameters()) {
+                elements.add(TreeUtils.elementFromDeclaration(param));
+            }
+        }
+        expressions = nullness.getExpressionsByUnit();
+    }
+
+    /**
+     * Computes the type of every method and parameter declaration.
+     *
+     * @param bh consumes the types
+     */
+    @Benchmark
+    public void elements(Blackhole bh) {
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> atypeFactory = nullness.atypeFactory;
+        for (Element elt : elements) {
+            bh.consume(atypeFactory.getAnnotatedType(elt));
+        }
+    }
+
+    /**
+     * For each compilation unit, makes it the current root (which discards the previous dataflow
+     * results) and computes the type of every interesting expression, as the visitor does.
+     *
+     * @param bh consumes the types
+     */
+    @Benchmark
+    public void expressions(Blackhole bh) {
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> atypeFactory = nullness.atypeFactory;
+        for (Map.Entry<CompilationUnitTree, List<ExpressionTree>> entry :
+                expressions.entrySet()) {
+            atypeFactory.setRoot(entry.getKey());
+            for (ExpressionTree tree : entry.getValue()) {
+                bh.consume(atypeFactory.getAnnotatedType(tree));
+            }
+        }
+    }
+}
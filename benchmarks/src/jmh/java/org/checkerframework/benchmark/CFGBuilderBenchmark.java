@@ -0,0 +1,63 @@
+package org.checkerframework.benchmark;
+
+import org.checkerframework.benchmark.CompiledCorpus.MethodInUnit;
+import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Benchmarks {@link CFGBuilder#build}: builds the control flow graph of every method in a corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CFGBuilderBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** The processing environment of the compilation. */
+    private ProcessingEnvironment env;
+
+    /** The methods whose CFGs to build. */
+    private List<MethodInUnit> methods;
+
+    /** Compiles the corpus. */
+    @Setup
+    public void setup() {
+        CompiledCorpus compiled = CompiledCorpus.compile(Corpus.forName(corpusName), null);
+        env = compiled.getProcessingEnvironment();
+        methods = compiled.getMethods();
+    }
+
+    /**
+     * Builds the CFG of every method.
+     *
+     * @param bh consumes the CFGs
+     */
+    @Benchmark
+    public void build(Blackhole bh) {
+        for (MethodInUnit m : methods) {
+            bh.consume(CFGBuilder.build(m.unit, m.method, m.enclosingClass, env));
+        }
+    }
+}
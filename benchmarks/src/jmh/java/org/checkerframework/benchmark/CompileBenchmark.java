@@ -0,0 +1,63 @@
+package org.checkerframework.benchmark;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark: compiles a corpus in-process, with and without the Nullness Checker. The
+ * difference between the two is the cost of type-checking. Use this benchmark to tell whether a
+ * change to the Checker Framework made type-checking slower.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+    /** The name of the corpus to compile; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** The corpus to compile. */
+    private Corpus corpus;
+
+    /** Creates the corpus. */
+    @Setup
+    public void setup() {
+        corpus = Corpus.forName(corpusName);
+    }
+
+    /**
+     * Parses and attributes the corpus, without running any checker.
+     *
+     * @return the number of diagnostics, to prevent dead-code elimination
+     */
+    @Benchmark
+    public int javac() {
+        return CompiledCorpus.compile(corpus, null).getDiagnostics().size();
+    }
+
+    /**
+     * Parses and attributes the corpus, and type-checks it with the Nullness Checker.
+     *
+     * @return the number of diagnostics, to prevent dead-code elimination
+     */
+    @Benchmark
+    public int nullness() {
+        return CompiledCorpus.compile(corpus, new NullnessChecker()).getDiagnostics().size();
+    }
+}
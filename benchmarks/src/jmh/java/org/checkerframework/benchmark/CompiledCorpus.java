@@ -0,0 +1,269 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePathScanner;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * A corpus that has been parsed and attributed by an in-process javac, and possibly type-checked
+ * by a checker. The javac task is kept alive, so the trees, elements, and type factories of the
+ * compilation remain usable by benchmarks.
+ */
+public final class CompiledCorpus {
+
+    /** The javac task that compiled the corpus. */
+    private final JavacTask task;
+
+    /** The processing environment of the compilation. */
+    private final ProcessingEnvironment env;
+
+    /** The compilation units of the corpus, in the order of the corpus. */
+    private final List<CompilationUnitTree> units;
+
+    /** The diagnostics issued by javac and the processor. */
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+    /**
+     * Creates a CompiledCorpus.
+     *
+     * @param task the javac task that compiled the corpus
+     * @param env the processing environment of the compilation
+     * @param units the compilation units of the corpus
+     * @param diagnostics the diagnostics issued by javac and the processor
+     */
+    private CompiledCorpus(
+            JavacTask task,
+            ProcessingEnvironment env,
+            List<CompilationUnitTree> units,
+            List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        this.task = task;
+        this.env = env;
+        this.units = Collections.unmodifiableList(units);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * Parses and attributes {@code corpus} with an in-process javac. If {@code processor} is
+     * non-null, it is run as the only annotation processor; for a checker, that type-checks the
+     * whole corpus.
+     *
+     * @param corpus the corpus to compile
+     * @param processor the annotation processor to run, or null to run none
+     * @param processorOptions options such as {@code -AatfDoNotCache}
+     * @return the compiled corpus
+     */
+    public static CompiledCorpus compile(
+            Corpus corpus, @Nullable Processor processor, String... processorOptions) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(System.getProperty("java.class.path"));
+        options.add("-Xmaxerrs");
+        options.add("100000");
+        options.add("-Xmaxwarns");
+        options.add("100000");
+        options.add("-Xlint:-options");
+        Collections.addAll(options, processorOptions);
+
+        JavacTask task =
+                (JavacTask)
+                        compiler.getTask(
+                                null, null, collector, options, null, corpus.getSources());
+        EnvironmentRecorder recorder = new EnvironmentRecorder();
+        List<Processor> processors = new ArrayList<>(2);
+        processors.add(recorder);
+        if (processor != null) {
+            processors.add(processor);
+        }
+        task.setProcessors(processors);
+
+        List<CompilationUnitTree> units = new ArrayList<>(corpus.getSources().size());
+        try {
+            for (CompilationUnitTree unit : task.parse()) {
+                units.add(unit);
+            }
+            task.analyze();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compile " + corpus, e);
+        }
+        if (recorder.env == null) {
+            throw new IllegalStateException("Annotation processing did not run on " + corpus);
+        }
+        return new CompiledCorpus(task, recorder.env, units, collector.getDiagnostics());
+    }
+
+    /**
+     * Returns the javac task that compiled the corpus.
+     *
+     * @return the javac task that compiled the corpus
+     */
+    public JavacTask getTask() {
+        return task;
+    }
+
+    /**
+     * Returns the processing environment of the compilation.
+     *
+     * @return the processing environment of the compilation
+     */
+    public ProcessingEnvironment getProcessingEnvironment() {
+        return env;
+    }
+
+    /**
+     * Returns the compilation units of the corpus.
+     *
+     * @return the compilation units of the corpus
+     */
+    public List<CompilationUnitTree> getCompilationUnits() {
+        return units;
+    }
+
+    /**
+     * Returns the diagnostics issued while compiling the corpus.
+     *
+     * @return the diagnostics issued while compiling the corpus
+     */
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Returns every method with a body in the corpus, including methods of nested and anonymous
+     * classes, in source order. Lambda bodies are part of the CFG of their enclosing method.
+     *
+     * @return every method with a body in the corpus
+     */
+    public List<MethodInUnit> getMethods() {
+        List<MethodInUnit> result = new ArrayList<>();
+        for (CompilationUnitTree unit : units) {
+            new TreePathScanner<Void, Void>() {
+                @Override
+                public Void visitMethod(MethodTree tree, Void p) {
+                    ClassTree enclosingClass =
+                            (ClassTree) getCurrentPath().getParentPath().getLeaf();
+                    if (tree.getBody() != null) {
+                        result.add(new MethodInUnit(unit, enclosingClass, tree));
+                    }
+                    return super.visitMethod(tree, p);
+                }
+            }.scan(unit, null);
+        }
+        return result;
+    }
+
+    /**
+     * Returns every top-level class in the corpus.
+     *
+     * @return every top-level class in the corpus
+     */
+    public List<ClassInUnit> getTopLevelClasses() {
+        List<ClassInUnit> result = new ArrayList<>();
+        for (CompilationUnitTree unit : units) {
+            for (Tree decl : unit.getTypeDecls()) {
+                if (decl instanceof ClassTree) {
+                    result.add(new ClassInUnit(unit, (ClassTree) decl));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** A method declaration together with its enclosing class and compilation unit. */
+    public static final class MethodInUnit {
+        /** The compilation unit. */
+        public final CompilationUnitTree unit;
+
+        /** The class that directly encloses {@link #method}. */
+        public final ClassTree enclosingClass;
+
+        /** The method. */
+        public final MethodTree method;
+
+        /**
+         * Creates a MethodInUnit.
+         *
+         * @param unit the compilation unit
+         * @param enclosingClass the class that directly encloses {@code method}
+         * @param method the method
+         */
+        MethodInUnit(CompilationUnitTree unit, ClassTree enclosingClass, MethodTree method) {
+            this.unit = unit;
+            this.enclosingClass = enclosingClass;
+            this.method = method;
+        }
+    }
+
+    /** A top-level class together with its compilation unit. */
+    public static final class ClassInUnit {
+        /** The compilation unit. */
+        public final CompilationUnitTree unit;
+
+        /** The class. */
+        public final ClassTree classTree;
+
+        /**
+         * Creates a ClassInUnit.
+         *
+         * @param unit the compilation unit
+         * @param classTree the class
+         */
+        ClassInUnit(CompilationUnitTree unit, ClassTree classTree) {
+            this.unit = unit;
+            this.classTree = classTree;
+        }
+    }
+
+    /**
+     * An annotation processor that does nothing except record its processing environment, so that
+     * benchmarks can use the javac utilities of the compilation.
+     */
+    @SupportedAnnotationTypes("*")
+    private static final class EnvironmentRecorder extends AbstractProcessor {
+
+        /** The processing environment, or null if {@link #init} has not been called. */
+        @Nullable ProcessingEnvironment env;
+
+        @Override
+        public synchronized void init(ProcessingEnvironment processingEnv) {
+            super.init(processingEnv);
+            this.env = processingEnv;
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            return false;
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.checkerframework.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A fixed set of Java source files that a benchmark compiles in-process.
+ *
+ * <p>A corpus is either synthetic, large-method, or real-world:
+ *
+ * <ul>
+ *   <li>A synthetic corpus is generated from a fixed seed, so it is identical on every machine.
+ *       Its name has the form {@code synthetic-<classes>x<methods>}, for example {@code
+ *       synthetic-50x20}.
+ *   <li>A large-method corpus is a single class with a single generated method whose control flow
+ *       graph has thousands of blocks, like a generated parser. Its name has the form {@code
+ *       large-<cases>}, for example {@code large-2000}.
+ *   <li>A real-world corpus is a directory of Java source files that compiles against the
+ *       classpath of the benchmark JVM. The directory for the corpus named {@code name} is given by
+ *       the system property {@code checkerframework.benchmark.corpus.name}; {@code
+ *       benchmarks/build.gradle} defines {@code checker-util} and {@code dataflow}.
+ * </ul>
+ */
+public final class Corpus {
+
+    /** Prefix of the system properties that name the directory of a real-world corpus. */
+    public static final String CORPUS_PROPERTY_PREFIX = "checkerframework.benchmark.corpus.";
+
+    /** Prefix of the name of a synthetic corpus. */
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    /** Prefix of the name of a large-method corpus. */
+    private static final String LARGE_METHOD_PREFIX = "large-";
+
+    /** The seed for generating synthetic corpora. Never change it, or old results become stale. */
+    private static final long SEED = 20240229L;
+
+    /** The name of this corpus. */
+    private final String name;
+
+    /** The source files of this corpus. */
+    private final List<JavaFileObject> sources;
+
+    /**
+     * Creates a corpus.
+     *
+     * @param name the name of the corpus
+     * @param sources the source files of the corpus
+     */
+    private Corpus(String name, List<JavaFileObject> sources) {
+        this.name = name;
+        this.sources = Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Returns the name of this corpus.
+     *
+     * @return the name of this corpus
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the source files of this corpus.
+     *
+     * @return the source files of this corpus
+     */
+    public List<JavaFileObject> getSources() {
+        return sources;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + sources.size() + " files)";
+    }
+
+    /**
+     * Returns the corpus with the given name.
+     *
+     * @param name {@code synthetic-<classes>x<methods>}, {@code large-<cases>}, or the name of a
+     *     real-world corpus
+     * @return the corpus with the given name
+     */
+    public static Corpus forName(String name) {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            String[] dimensions = name.substring(SYNTHETIC_PREFIX.length()).split("x");
+            if (dimensions.length != 2) {
+                throw new IllegalArgumentException("Bad synthetic corpus name: " + name);
+            }
+            return synthetic(
+                    name, Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        }
+        if (name.startsWith(LARGE_METHOD_PREFIX)) {
+            return largeMethod(
+                    name, Integer.parseInt(name.substring(LARGE_METHOD_PREFIX.length())));
+        }
+        String dir = System.getProperty(CORPUS_PROPERTY_PREFIX + name);
+        if (dir == null) {
+            throw new IllegalArgumentException(
+                    "No corpus named "
+                            + name
+                            + "; define the system property "
+                            + CORPUS_PROPERTY_PREFIX
+                            + name);
+        }
+        return fromDirectory(name, Paths.get(dir));
+    }
+
+    /**
+     * Returns a corpus consisting of all the {@code .java} files under a directory, except {@code
+     * module-info.java}.
+     *
+     * @param name the name of the corpus
+     * @param dir the directory
+     * @return a corpus consisting of all the {@code .java} files under {@code dir}
+     */
+    public static Corpus fromDirectory(String name, Path dir) {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files =
+                    walk.filter(p -> p.toString().endsWith(".java"))
+                            .filter(p -> !p.getFileName().toString().equals("module-info.java"))
+                            .sorted()
+                            .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read corpus " + dir, e);
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No Java files in corpus " + dir);
+        }
+        List<JavaFileObject> sources = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try {
+                String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                sources.add(new StringSource(file.toUri(), content));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read " + file, e);
+            }
+        }
+        return new Corpus(name, sources);
+    }
+
+    /**
+     * Returns a synthetic corpus. Each class has nullable and generic fields, and each method mixes
+     * null tests, loops, switches, generic collection operations, and calls into another class.
+     *
+     * @param name the name of the corpus
+     * @param numClasses the number of classes
+     * @param methodsPerClass the number of methods per class
+     * @return a synthetic corpus
+     */
+    public static Corpus synthetic(String name, int numClasses, int methodsPerClass) {
+        Random random = new Random(SEED);
+        List<JavaFileObject> sources = new ArrayList<>(numClasses);
+        for (int c = 0; c < numClasses; c++) {
+            String className = "Synthetic" + c;
+            String callee = "Synthetic" + (c == 0 ? 0 : random.nextInt(c));
+            StringBuilder sb = new StringBuilder();
+            sb.append("package synthetic;\n\n");
+            sb.append("import java.util.ArrayList;\n");
+            sb.append("import java.util.HashMap;\n");
+            sb.append("import java.util.List;\n");
+            sb.append("import java.util.Map;\n");
+            sb.append("import org.checkerframework.checker.nullness.qual.Nullable;\n\n");
+            sb.append("public class ").append(className).append(" {\n");
+            sb.append("    private @Nullable String name;\n");
+            sb.append("    private final Map<String, List<Integer>> index = new HashMap<>();\n\n");
+            sb.append("    public static int helper(int x) {\n");
+            sb.append("        return x * 31 + 7;\n");
+            sb.append("    }\n");
+            for (int m = 0; m < methodsPerClass; m++) {
+                appendSyntheticMethod(sb, "method" + m, callee, random);
+            }
+            sb.append("}\n");
+            sources.add(
+                    new StringSource(
+                            URI.create("string:///synthetic/" + className + ".java"),
+                            sb.toString()));
+        }
+        return new Corpus(name, sources);
+    }
+
+    /**
+     * Appends one method of a synthetic class to {@code sb}.
+     *
+     * @param sb where to append the method
+     * @param methodName the name of the method
+     * @param callee the simple name of a class whose {@code helper} method to call
+     * @param random the source of randomness
+     */
+    private static void appendSyntheticMethod(
+            StringBuilder sb, String methodName, String callee, Random random) {
+        sb.append("\n    public int ")
+                .append(methodName)
+                .append("(@Nullable String s, List<Integer> xs) {\n");
+        sb.append("        int acc = 0;\n");
+        sb.append("        String key = s == null ? \"\" : s;\n");
+        int statements = 2 + random.nextInt(6);
+        for (int i = 0; i < statements; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    sb.append("        if (s != null && s.length() > ").append(i).append(") {\n");
+                    sb.append("            acc += s.charAt(0);\n");
+                    sb.append("        }\n");
+                    break;
+                case 1:
+                    sb.append("        for (Integer x : xs) {\n");
+                    sb.append("            switch (x % 4) {\n");
+                    sb.append("                case 0: acc += x; break;\n");
+                    sb.append("                case 1: acc -= x; break;\n");
+                    sb.append("                default: acc ^= x;\n");
+                    sb.append("            }\n");
+                    sb.append("        }\n");
+                    break;
+                case 2:
+                    String bucket = "bucket" + i;
+                    sb.append("        List<Integer> ")
+                            .append(bucket)
+                            .append(" = index.get(key);\n");
+                    sb.append("        if (").append(bucket).append(" == null) {\n");
+                    sb.append("            ").append(bucket).append(" = new ArrayList<>();\n");
+                    sb.append("            index.put(key, ").append(bucket).append(");\n");
+                    sb.append("        }\n");
+                    sb.append("        ").append(bucket).append(".add(acc);\n");
+                    break;
+                case 3:
+                    sb.append("        if (name != null && !name.isEmpty()) {\n");
+                    sb.append("            acc += name.hashCode();\n");
+                    sb.append("        } else {\n");
+                    sb.append("            name = key;\n");
+                    sb.append("        }\n");
+                    break;
+                default:
+                    sb.append("        try {\n");
+                    sb.append("            acc += Integer.parseInt(key);\n");
+                    sb.append("        } catch (NumberFormatException e) {\n");
+                    sb.append("            acc--;\n");
+                    sb.append("        }\n");
+                    break;
+            }
+        }
+        sb.append("        return acc + ").append(callee).append(".helper(acc);\n");
+        sb.append("    }\n");
+    }
+
+    /**
+     * Returns a corpus with one class that has one large method. The method is a loop around a
+     * switch statement with {@code numCases} cases, as in a generated parser or state machine. Each
+     * case tests a nullable local variable and a field, so that every block carries dataflow facts.
+     *
+     * @param name the name of the corpus
+     * @param numCases the number of cases of the switch statement
+     * @return a corpus with one large method
+     */
+    public static Corpus largeMethod(String name, int numCases) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder();
+        sb.append("package synthetic;\n\n");
+        sb.append("import org.checkerframework.checker.nullness.qual.Nullable;\n\n");
+        sb.append("public class LargeMethod {\n");
+        sb.append("    private @Nullable String name;\n\n");
+        sb.append("    public int run(int[] input, @Nullable String s) {\n");
+        sb.append("        int state = 0;\n");
+        sb.append("        int acc = 0;\n");
+        sb.append("        @Nullable String t = s;\n");
+        sb.append("        for (int i = 0; i < input.length; i++) {\n");
+        sb.append("            switch (state) {\n");
+        for (int c = 0; c < numCases; c++) {
+            sb.append("                case ").append(c).append(":\n");
+            sb.append("                    if (input[i] > ").append(random.nextInt(100));
+            sb.append(" && t != null) {\n");
+            sb.append("                        acc += t.length();\n");
+            sb.append("                        state = ").append(random.nextInt(numCases));
+            sb.append(";\n");
+            sb.append("                    } else if (name != null) {\n");
+            sb.append("                        t = name;\n");
+            sb.append("                        state = ").append(random.nextInt(numCases));
+            sb.append(";\n");
+            sb.append("                    } else {\n");
+            sb.append("                        t = null;\n");
+            sb.append("                    }\n");
+            sb.append("                    break;\n");
+        }
+        sb.append("                default:\n");
+        sb.append("                    state = 0;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return acc + state;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        List<JavaFileObject> sources = new ArrayList<>(1);
+        sources.add(
+                new StringSource(
+                        URI.create("string:///synthetic/LargeMethod.java"), sb.toString()));
+        return new Corpus(name, sources);
+    }
+
+    /** A source file whose content is held in memory. */
+    private static final class StringSource extends SimpleJavaFileObject {
+
+        /** The content of the file. */
+        private final String content;
+
+        /**
+         * Creates a source file.
+         *
+         * @param uri the URI of the file
+         * @param content the content of the file
+         */
+        StringSource(URI uri, String content) {
+            super(uri, Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+
+import org.checkerframework.benchmark.CompiledCorpus.MethodInUnit;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.checkerframework.dataflow.constantpropagation.Constant;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationStore;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationTransfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Benchmarks {@link ForwardAnalysisImpl#performAnalysis}, both for a plain dataflow analysis
+ * (constant propagation) and for the Nullness Checker's flow-sensitive type refinement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForwardAnalysisBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** The CFGs of all methods in the corpus. */
+    private List<ControlFlowGraph> cfgs;
+
+    /** The corpus, type-checked by the Nullness Checker. */
+    private NullnessCompilation nullness;
+
+    /** Compiles the corpus and builds the CFGs. */
+    @Setup
+    public void setup() {
+        Corpus corpus = Corpus.forName(corpusName);
+        CompiledCorpus compiled = CompiledCorpus.compile(corpus, null);
+        ProcessingEnvironment env = compiled.getProcessingEnvironment();
+        cfgs = new ArrayList<>();
+        for (MethodInUnit m : compiled.getMethods()) {
+            cfgs.add(CFGBuilder.build(m.unit, m.method, m.enclosingClass, env));
+        }
+        nullness = NullnessCompilation.compile(corpus);
+    }
+
+    /**
+     * Runs constant propagation on every CFG.
+     *
+     * @param bh consumes the analysis results
+     */
+    @Benchmark
+    public void constantPropagation(Blackhole bh) {
+        for (ControlFlowGraph cfg : cfgs) {
+            ForwardAnalysisImpl<Constant, ConstantPropagationStore, ConstantPropagationTransfer>
+                    analysis = new ForwardAnalysisImpl<>(new ConstantPropagationTransfer());
+            analysis.performAnalysis(cfg);
+            bh.consume(analysis.getResult());
+        }
+    }
+
+    /**
+     * Runs the Nullness Checker's dataflow analysis on every class of the corpus, including
+     * building the CFGs, exactly as the visitor triggers it for each compilation unit.
+     */
+    @Benchmark
+    public void nullnessFlow() {
+        for (CompilationUnitTree unit : nullness.compiled.getCompilationUnits()) {
+            nullness.analyzeUnit(unit);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+
+import org.checkerframework.benchmark.CompiledCorpus.MethodInUnit;
+import org.checkerframework.dataflow.analysis.BackwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.checkerframework.dataflow.constantpropagation.Constant;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationStore;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationTransfer;
+import org.checkerframework.dataflow.livevariable.LiveVarStore;
+import org.checkerframework.dataflow.livevariable.LiveVarTransfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Benchmarks dataflow analysis of a single very large method, whose control flow graph has
+ * thousands of blocks. On such methods, the cost of the worklist of {@link
+ * org.checkerframework.dataflow.analysis.AbstractAnalysis} dominates; see {@link
+ * Corpus#largeMethod}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LargeMethodAnalysisBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"large-500", "large-2000", "large-8000"})
+    public String corpusName;
+
+    /** The CFG of the large method. */
+    private ControlFlowGraph cfg;
+
+    /** The corpus, type-checked by the Nullness Checker. */
+    private NullnessCompilation nullness;
+
+    /** Compiles the corpus and builds the CFG. */
+    @Setup
+    public void setup() {
+        Corpus corpus = Corpus.forName(corpusName);
+        CompiledCorpus compiled = CompiledCorpus.compile(corpus, null);
+        ProcessingEnvironment env = compiled.getProcessingEnvironment();
+        for (MethodInUnit m : compiled.getMethods()) {
+            // Skip the implicit constructor.
+            if (m.method.getName().contentEquals("run")) {
+                cfg = CFGBuilder.build(m.unit, m.method, m.enclosingClass, env);
+            }
+        }
+        nullness = NullnessCompilation.compile(corpus);
+    }
+
+    /**
+     * Runs constant propagation, a forward analysis, on the large method.
+     *
+     * @param bh consumes the analysis result
+     */
+    @Benchmark
+    public void constantPropagation(Blackhole bh) {
+        ForwardAnalysisImpl<Constant, ConstantPropagationStore, ConstantPropagationTransfer>
+                analysis = new ForwardAnalysisImpl<>(new ConstantPropagationTransfer());
+        analysis.performAnalysis(cfg);
+        bh.consume(analysis.getResult());
+    }
+
+    /**
+     * Runs live variable analysis, a backward analysis, on the large method.
+     *
+     * @param bh consumes the analysis result
+     */
+    @Benchmark
+    public void liveVariables(Blackhole bh) {
+        BackwardAnalysisImpl<UnusedAbstractValue, LiveVarStore, LiveVarTransfer> analysis =
+                new BackwardAnalysisImpl<>(new LiveVarTransfer());
+        analysis.performAnalysis(cfg);
+        bh.consume(analysis.getResult());
+    }
+
+    /**
+     * Runs the Nullness Checker's dataflow analysis on the large method, including building its
+     * CFG.
+     */
+    @Benchmark
+    public void nullnessFlow() {
+        for (CompilationUnitTree unit : nullness.compiled.getCompilationUnits()) {
+            nullness.analyzeUnit(unit);
+        }
+    }
+}
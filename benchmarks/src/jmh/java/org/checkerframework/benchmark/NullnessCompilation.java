@@ -0,0 +1,122 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+
+import org.checkerframework.benchmark.CompiledCorpus.ClassInUnit;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.checker.nullness.NullnessNoInitSubchecker;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A corpus that has been type-checked by the Nullness Checker. The checker and its type factory
+ * are kept alive, so benchmarks can query them after type-checking.
+ */
+public final class NullnessCompilation {
+
+    /** The compiled corpus. */
+    public final CompiledCorpus compiled;
+
+    /** The Nullness Checker that type-checked the corpus. */
+    public final NullnessChecker checker;
+
+    /** The type factory of the nullness (not the initialization) type system. */
+    public final GenericAnnotatedTypeFactory<?, ?, ?, ?> atypeFactory;
+
+    /**
+     * Creates a NullnessCompilation.
+     *
+     * @param compiled the compiled corpus
+     * @param checker the Nullness Checker that type-checked the corpus
+     */
+    private NullnessCompilation(CompiledCorpus compiled, NullnessChecker checker) {
+        this.compiled = compiled;
+        this.checker = checker;
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> nullnessFactory =
+                checker.getTypeFactoryOfSubcheckerOrNull(NullnessNoInitSubchecker.class);
+        this.atypeFactory = nullnessFactory != null ? nullnessFactory : checker.getTypeFactory();
+    }
+
+    /**
+     * Type-checks a corpus with the Nullness Checker.
+     *
+     * @param corpus the corpus to type-check
+     * @param processorOptions additional options, such as {@code -AatfDoNotCache}
+     * @return the type-checked corpus
+     */
+    public static NullnessCompilation compile(Corpus corpus, String... processorOptions) {
+        NullnessChecker checker = new NullnessChecker();
+        CompiledCorpus compiled = CompiledCorpus.compile(corpus, checker, processorOptions);
+        return new NullnessCompilation(compiled, checker);
+    }
+
+    /**
+     * Returns, for each compilation unit, the expressions whose types the visitor computes most
+     * often: method invocations, object creations, variable initializers, and returned values.
+     *
+     * @return the interesting expressions of each compilation unit, in source order
+     */
+    public Map<CompilationUnitTree, List<ExpressionTree>> getExpressionsByUnit() {
+        Map<CompilationUnitTree, List<ExpressionTree>> result = new IdentityHashMap<>();
+        for (CompilationUnitTree unit : compiled.getCompilationUnits()) {
+            List<ExpressionTree> expressions = new ArrayList<>();
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+                    expressions.add(tree);
+                    return super.visitMethodInvocation(tree, p);
+                }
+
+                @Override
+                public Void visitNewClass(NewClassTree tree, Void p) {
+                    expressions.add(tree);
+                    return super.visitNewClass(tree, p);
+                }
+
+                @Override
+                public Void visitVariable(VariableTree tree, Void p) {
+                    if (tree.getInitializer() != null) {
+                        expressions.add(tree.getInitializer());
+                    }
+                    return super.visitVariable(tree, p);
+                }
+
+                @Override
+                public Void visitReturn(ReturnTree tree, Void p) {
+                    if (tree.getExpression() != null) {
+                        expressions.add(tree.getExpression());
+                    }
+                    return super.visitReturn(tree, p);
+                }
+            }.scan(unit, null);
+            result.put(unit, Collections.unmodifiableList(expressions));
+        }
+        return result;
+    }
+
+    /**
+     * Makes {@code unit} the current compilation unit of {@link #atypeFactory} and runs dataflow
+     * analysis on all of its classes, as the visitor does before checking them.
+     *
+     * @param unit a compilation unit of the corpus
+     */
+    public void analyzeUnit(CompilationUnitTree unit) {
+        atypeFactory.setRoot(unit);
+        for (ClassInUnit c : compiled.getTopLevelClasses()) {
+            if (c.unit == unit) {
+                atypeFactory.preProcessClassTree(c.classTree);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.checkerframework.benchmark;
+
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.util.Elements;
+
+/**
+ * Benchmarks the {@link QualifierHierarchy} of the Nullness Checker: least upper bound, greatest
+ * lower bound, and subtyping on every pair of qualifiers in the same hierarchy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QualifierHierarchyBenchmark {
+
+    /** The qualifier hierarchy of the Nullness Checker. */
+    private QualifierHierarchy qualHierarchy;
+
+    /** Alternating qualifiers: element 2i is combined with element 2i+1. */
+    private List<AnnotationMirror> pairs;
+
+    /** Creates the qualifier hierarchy and the pairs of qualifiers. */
+    @Setup
+    public void setup() {
+        NullnessCompilation nullness =
+                NullnessCompilation.compile(Corpus.forName("synthetic-1x1"));
+        qualHierarchy = nullness.atypeFactory.getQualifierHierarchy();
+        Elements elements = nullness.atypeFactory.getElementUtils();
+        AnnotationMirrorSet qualifiers = new AnnotationMirrorSet();
+        for (Class<? extends Annotation> qual :
+                nullness.atypeFactory.getSupportedTypeQualifiers()) {
+            // The nullness qualifiers have no elements.
+            qualifiers.add(AnnotationBuilder.fromClass(elements, qual));
+        }
+        pairs = new ArrayList<>();
+        for (AnnotationMirror a1 : qualifiers) {
+            for (AnnotationMirror a2 : qualifiers) {
+                if (AnnotationUtils.areSame(
+                        qualHierarchy.getTopAnnotation(a1), qualHierarchy.getTopAnnotation(a2))) {
+                    pairs.add(a1);
+                    pairs.add(a2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the least upper bound of every pair.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void leastUpperBound(Blackhole bh) {
+        for (int i = 0; i < pairs.size(); i += 2) {
+            bh.consume(
+                    qualHierarchy.leastUpperBoundQualifiersOnly(pairs.get(i), pairs.get(i + 1)));
+        }
+    }
+
+    /**
+     * Computes the greatest lower bound of every pair.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void greatestLowerBound(Blackhole bh) {
+        for (int i = 0; i < pairs.size(); i += 2) {
+            bh.consume(
+                    qualHierarchy.greatestLowerBoundQualifiersOnly(pairs.get(i), pairs.get(i + 1)));
+        }
+    }
+
+    /**
+     * Tests subtyping of every pair.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void isSubtype(Blackhole bh) {
+        for (int i = 0; i < pairs.size(); i += 2) {
+            bh.consume(qualHierarchy.isSubtypeQualifiersOnly(pairs.get(i), pairs.get(i + 1)));
+        }
+    }
+}
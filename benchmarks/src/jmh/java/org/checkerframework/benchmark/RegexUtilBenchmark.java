@@ -0,0 +1,166 @@
+package org.checkerframework.benchmark;
+
+import org.checkerframework.checker.regex.qual.Regex;
+import org.checkerframework.checker.regex.util.RegexUtil;
+import org.checkerframework.checker.regex.util.RegexUtil.MultiPatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks the run-time methods of {@link RegexUtil}: validating a regular expression and then
+ * compiling it, and matching strings against a collection of regular expressions. Each benchmark
+ * that uses the pattern cache of {@code RegexUtil} is paired with one that does the same work with
+ * {@link Pattern#compile}, as {@code RegexUtil} did before it had a cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegexUtilBenchmark {
+
+    /** Regular expressions of the kind that a service validates on each request. */
+    private static final List<String> REGEXES =
+            Arrays.asList(
+                    "/api/v[0-9]+/users/([0-9]+)",
+                    "/api/v[0-9]+/orders/([0-9]+)/items/([0-9]+)",
+                    "[a-zA-Z0-9._%+-]+@([a-zA-Z0-9.-]+)\\.[a-zA-Z]{2,}",
+                    "([0-9]{4})-([0-9]{2})-([0-9]{2})T[0-9:.]+Z?",
+                    "(?i)(GET|POST|PUT|DELETE) (/\\S*) HTTP/1\\.[01]",
+                    "([a-f0-9]{8})-([a-f0-9]{4})-[a-f0-9]{4}-[a-f0-9]{4}-[a-f0-9]{12}",
+                    ".*\\.(png|jpe?g|gif|svg)",
+                    "\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*=\\s*(.*)");
+
+    /** The strings to match against {@link #REGEXES}. */
+    private static final List<String> INPUTS =
+            Arrays.asList(
+                    "/api/v2/users/12345",
+                    "/api/v1/orders/77/items/3",
+                    "someone@example.org",
+                    "2024-05-01T12:00:00Z",
+                    "GET /index.html HTTP/1.1",
+                    "123e4567-e89b-12d3-a456-426614174000",
+                    "logo.svg",
+                    "name = value",
+                    "no match here",
+                    "/api/users");
+
+    /** {@link #REGEXES}, typed as regular expressions. */
+    private List<@Regex String> regexes;
+
+    /** A matcher for {@link #regexes}, created once. */
+    private MultiPatternMatcher matcher;
+
+    /** Creates the matcher. */
+    @Setup
+    public void setup() {
+        regexes = new ArrayList<>(REGEXES.size());
+        for (String regex : REGEXES) {
+            regexes.add(RegexUtil.asRegex(regex));
+        }
+        matcher = new MultiPatternMatcher(regexes);
+    }
+
+    /**
+     * Validates each regular expression, then compiles it again, as callers of {@link
+     * RegexUtil#isRegex(String, int)} did before {@link RegexUtil#asPattern(String, int)} existed.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void isRegexThenCompile(Blackhole bh) {
+        for (String regex : REGEXES) {
+            if (RegexUtil.isRegex(regex, 1)) {
+                bh.consume(Pattern.compile(regex));
+            }
+        }
+    }
+
+    /**
+     * Validates and compiles each regular expression without the pattern cache.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void compileUncached(Blackhole bh) {
+        for (String regex : REGEXES) {
+            Pattern p = Pattern.compile(regex);
+            bh.consume(p.matcher("").groupCount() >= 1);
+            bh.consume(p);
+        }
+    }
+
+    /**
+     * Validates and compiles each regular expression with {@link RegexUtil#asPattern(String,
+     * int)}.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void asPattern(Blackhole bh) {
+        for (String regex : REGEXES) {
+            bh.consume(RegexUtil.asPattern(regex, 1));
+        }
+    }
+
+    /**
+     * Matches the inputs against the regular expressions, compiling them on every call as {@link
+     * RegexUtil#matchesSomeRegex} did before it used the pattern cache.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void matchesSomeRegexUncached(Blackhole bh) {
+        List<Pattern> patterns = new ArrayList<>(REGEXES.size());
+        for (String regex : REGEXES) {
+            patterns.add(Pattern.compile(regex));
+        }
+        List<String> result = new ArrayList<>(INPUTS.size());
+        for (String s : INPUTS) {
+            for (Pattern p : patterns) {
+                if (p.matcher(s).matches()) {
+                    result.add(s);
+                    break;
+                }
+            }
+        }
+        bh.consume(result);
+    }
+
+    /**
+     * Matches the inputs against the regular expressions with {@link RegexUtil#matchesSomeRegex}.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void matchesSomeRegex(Blackhole bh) {
+        bh.consume(RegexUtil.matchesSomeRegex(INPUTS, regexes));
+    }
+
+    /**
+     * Matches the inputs against the regular expressions with a reused {@link
+     * MultiPatternMatcher}.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void multiPatternMatcher(Blackhole bh) {
+        bh.consume(matcher.matchingStrings(INPUTS));
+    }
+}
@@ -0,0 +1,185 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreeScanner;
+
+import org.checkerframework.benchmark.CompiledCorpus.MethodInUnit;
+import org.checkerframework.framework.flow.CFAbstractAnalysis;
+import org.checkerframework.framework.flow.CFAbstractStore;
+import org.checkerframework.framework.flow.CFAbstractTransfer;
+import org.checkerframework.framework.flow.CFAbstractValue;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link CFAbstractStore#leastUpperBound} and {@link CFAbstractStore#copy} on the
+ * stores that the Nullness Checker computes for a corpus. Within each method, the store before
+ * every method invocation is joined with the store at the regular exit of the method.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** The pairs of stores to join. */
+    private StorePairs<?> pairs;
+
+    /** Type-checks the corpus and collects the stores. */
+    @Setup
+    public void setup() {
+        NullnessCompilation nullness = NullnessCompilation.compile(Corpus.forName(corpusName));
+        pairs = collect(nullness, nullness.atypeFactory);
+    }
+
+    /**
+     * Collects pairs of stores from the results of dataflow analysis. The stores are copied, so
+     * they stay valid when the type factory moves on to another compilation unit.
+     *
+     * @param <V> the abstract value type of the type factory
+     * @param <S> the store type of the type factory
+     * @param <T> the transfer function type of the type factory
+     * @param <A> the analysis type of the type factory
+     * @param nullness the type-checked corpus
+     * @param atypeFactory the type factory of {@code nullness}
+     * @return pairs of stores from the same method
+     */
+    private static <
+                    V extends CFAbstractValue<V>,
+                    S extends CFAbstractStore<V, S>,
+                    T extends CFAbstractTransfer<V, S, T>,
+                    A extends CFAbstractAnalysis<V, S, T>>
+            StorePairs<S> collect(
+                    NullnessCompilation nullness,
+                    GenericAnnotatedTypeFactory<V, S, T, A> atypeFactory) {
+        StorePairs<S> result = new StorePairs<>();
+        List<MethodInUnit> methods = nullness.compiled.getMethods();
+        for (CompilationUnitTree unit : nullness.compiled.getCompilationUnits()) {
+            nullness.analyzeUnit(unit);
+            for (MethodInUnit m : methods) {
+                if (m.unit != unit) {
+                    continue;
+                }
+                S exitStore = atypeFactory.getRegularExitStore(m.method);
+                if (exitStore == null) {
+                    continue;
+                }
+                for (MethodInvocationTree invocation : getInvocations(m.method)) {
+                    S before = atypeFactory.getStoreBefore(invocation);
+                    if (before != null) {
+                        result.add(before.copy(), exitStore.copy());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the method invocations in the body of a method.
+     *
+     * @param method a method
+     * @return the method invocations in the body of {@code method}
+     */
+    private static List<MethodInvocationTree> getInvocations(MethodTree method) {
+        List<MethodInvocationTree> result = new ArrayList<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+                result.add(tree);
+                return super.visitMethodInvocation(tree, p);
+            }
+        }.scan(method.getBody(), null);
+        return result;
+    }
+
+    /**
+     * Joins every pair of stores.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void leastUpperBound(Blackhole bh) {
+        pairs.leastUpperBound(bh);
+    }
+
+    /**
+     * Copies every store.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void copy(Blackhole bh) {
+        pairs.copy(bh);
+    }
+
+    /**
+     * Pairs of stores of the same type.
+     *
+     * @param <S> the store type
+     */
+    private static final class StorePairs<S extends CFAbstractStore<?, S>> {
+
+        /** The first store of each pair. */
+        private final List<S> firsts = new ArrayList<>();
+
+        /** The second store of each pair. */
+        private final List<S> seconds = new ArrayList<>();
+
+        /**
+         * Adds a pair of stores.
+         *
+         * @param first the first store
+         * @param second the second store
+         */
+        void add(S first, S second) {
+            firsts.add(first);
+            seconds.add(second);
+        }
+
+        /**
+         * Joins every pair of stores.
+         *
+         * @param bh consumes the results
+         */
+        void leastUpperBound(Blackhole bh) {
+            for (int i = 0; i < firsts.size(); i++) {
+                bh.consume(firsts.get(i).leastUpperBound(seconds.get(i)));
+            }
+        }
+
+        /**
+         * Copies the first store of every pair.
+         *
+         * @param bh consumes the results
+         */
+        void copy(Blackhole bh) {
+            for (S store : firsts) {
+                bh.consume(store.copy());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+
+import org.checkerframework.framework.type.AnnotatedTypeFactory.ParameterizedExecutableType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.DefaultTypeHierarchy;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.framework.type.TypeHierarchy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DefaultTypeHierarchy#isSubtype}, on the pseudo-assignments that the Nullness
+ * Checker's visitor checks: variable initializers and method arguments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeHierarchyBenchmark {
+
+    /** The name of the corpus; see {@link Corpus#forName}. */
+    @Param({"synthetic-50x20", "checker-util"})
+    public String corpusName;
+
+    /** The type hierarchy of the Nullness Checker. */
+    private TypeHierarchy typeHierarchy;
+
+    /** Alternating subtypes and supertypes: element 2i is checked against element 2i+1. */
+    private List<AnnotatedTypeMirror> pairs;
+
+    /** Type-checks the corpus and collects the pseudo-assignments. */
+    @Setup
+    public void setup() {
+        NullnessCompilation nullness = NullnessCompilation.compile(Corpus.forName(corpusName));
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> atypeFactory = nullness.atypeFactory;
+        typeHierarchy = atypeFactory.getTypeHierarchy();
+        pairs = new ArrayList<>();
+        for (CompilationUnitTree unit : nullness.compiled.getCompilationUnits()) {
+            nullness.analyzeUnit(unit);
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitVariable(VariableTree tree, Void p) {
+                    ExpressionTree init = tree.getInitializer();
+                    if (init != null) {
+                        pairs.add(atypeFactory.getAnnotatedType(init));
+                        pairs.add(atypeFactory.getAnnotatedTypeLhs(tree));
+                    }
+                    return super.visitVariable(tree, p);
+                }
+
+                @Override
+                public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+                    ParameterizedExecutableType method = atypeFactory.methodFromUse(tree);
+                    if (!method.executableType.isVarargs()) {
+                        List<AnnotatedTypeMirror> params =
+                                method.executableType.getParameterTypes();
+                        List<? extends ExpressionTree> args = tree.getArguments();
+                        for (int i = 0; i < args.size(); i++) {
+                            pairs.add(atypeFactory.getAnnotatedType(args.get(i)));
+                            pairs.add(params.get(i));
+                        }
+                    }
+                    return super.visitMethodInvocation(tree, p);
+                }
+            }.scan(unit, null);
+        }
+    }
+
+    /**
+     * Checks every pseudo-assignment.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void isSubtype(Blackhole bh) {
+        for (int i = 0; i < pairs.size(); i += 2) {
+            bh.consume(typeHierarchy.isSubtype(pairs.get(i), pairs.get(i + 1)));
+        }
+    }
+}
@@ -4,10 +4,7 @@ import org.checkerframework.checker.i18nformatter.qual.I18nChecksFormat;
 import org.checkerframework.checker.i18nformatter.qual.I18nConversionCategory;
 import org.checkerframework.checker.i18nformatter.qual.I18nValidFormat;
 import org.checkerframework.checker.interning.qual.InternedDistinct;
-import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
-import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.checkerframework.checker.nullness.qual.RequiresNonNull;
 import org.checkerframework.framework.qual.AnnotatedFor;
 
 import java.text.ChoiceFormat;
@@ -21,15 +18,32 @@ import java.util.IllegalFormatException;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides a collection of utilities to ease working with i18n format strings.
  *
+ * <p>The methods of this class may be called concurrently from multiple threads. The categories of
+ * recently parsed format strings are cached, so checking the same format string again is cheap.
+ *
  * @checker_framework.manual #i18n-formatter-checker Internationalization Format String Checker
  */
 @AnnotatedFor("nullness")
 public class I18nFormatUtil {
 
+    /** The maximum size of {@link #categoriesCache}, which is cleared when full. */
+    private static final int CATEGORIES_CACHE_SIZE = 512;
+
+    /**
+     * Maps a valid format string to the categories of its parameters, as returned by {@link
+     * #formatParameterCategories}. The arrays in the cache are never modified or returned to
+     * clients. Invalid format strings are not cached. The key does not include the default locale:
+     * subformat patterns are not localized, so whether a format string is valid does not depend on
+     * it.
+     */
+    private static final Map<String, I18nConversionCategory[]> categoriesCache =
+            new ConcurrentHashMap<>();
+
     /**
      * Throws an exception if the format is not syntactically valid.
      *
@@ -46,10 +60,44 @@ public class I18nFormatUtil {
      * Returns a {@link I18nConversionCategory} for every conversion found in the format string.
      *
      * @param format the format string to parse
+     * @return the categories of the parameters of {@code format}, indexed by argument number
      * @throws IllegalFormatException if the format is not syntactically valid
      */
     public static I18nConversionCategory[] formatParameterCategories(String format)
             throws IllegalFormatException {
+        return cachedFormatParameterCategories(format).clone();
+    }
+
+    /**
+     * Returns the categories of the parameters of {@code format}, from {@link #categoriesCache} if
+     * possible. The result must not be modified.
+     *
+     * @param format the format string to parse
+     * @return the categories of the parameters of {@code format}, indexed by argument number
+     * @throws IllegalFormatException if the format is not syntactically valid
+     */
+    private static I18nConversionCategory[] cachedFormatParameterCategories(String format)
+            throws IllegalFormatException {
+        I18nConversionCategory[] res = categoriesCache.get(format);
+        if (res == null) {
+            res = parseFormatParameterCategories(format);
+            if (categoriesCache.size() >= CATEGORIES_CACHE_SIZE) {
+                categoriesCache.clear();
+            }
+            categoriesCache.put(format, res);
+        }
+        return res;
+    }
+
+    /**
+     * Parses {@code format} and returns the categories of its parameters, without using the cache.
+     *
+     * @param format the format string to parse
+     * @return the categories of the parameters of {@code format}, indexed by argument number
+     * @throws IllegalFormatException if the format is not syntactically valid
+     */
+    private static I18nConversionCategory[] parseFormatParameterCategories(String format)
+            throws IllegalFormatException {
         tryFormatSatisfiability(format);
         I18nConversion[] cs = MessageFormatParser.parse(format);
 
@@ -89,7 +137,7 @@ public class I18nFormatUtil {
     // TODO introduce more such functions, see RegexUtil for examples
     @I18nChecksFormat
     public static boolean hasFormat(String format, I18nConversionCategory... cc) {
-        I18nConversionCategory[] fcc = formatParameterCategories(format);
+        I18nConversionCategory[] fcc = cachedFormatParameterCategories(format);
         if (fcc.length != cc.length) {
             return false;
         }
@@ -105,7 +153,7 @@ public class I18nFormatUtil {
     @I18nValidFormat
     public static boolean isFormat(String format) {
         try {
-            formatParameterCategories(format);
+            cachedFormatParameterCategories(format);
         } catch (Exception e) {
             return false;
         }
@@ -137,28 +185,31 @@ public class I18nFormatUtil {
         }
     }
 
+    /**
+     * A parser for the subformats of a {@link MessageFormat} pattern. The parsing state lives in
+     * the fields of a parser, and {@link #parse} uses a new parser for every call, so concurrent
+     * calls do not interfere with each other.
+     */
     private static class MessageFormatParser {
 
-        public static int maxOffset;
+        /** The offset of the last subformat that was parsed successfully, or -1. */
+        private int maxOffset = -1;
 
-        /** The locale to use for formatting numbers and dates. Is set in {@link #parse}. */
-        private static @MonotonicNonNull Locale locale;
+        /** The locale to use for formatting numbers and dates. */
+        private final Locale locale;
 
-        /**
-         * An array of formatters, which are used to format the arguments. Is set in {@link #parse}.
-         */
-        private static @MonotonicNonNull List<I18nConversionCategory> categories;
+        /** The category of each subformat, in the order they occur in the pattern. */
+        private final List<I18nConversionCategory> categories = new ArrayList<>();
 
         /**
          * The argument numbers corresponding to each formatter. (The formatters are stored in the
          * order they occur in the pattern, not in the order in which the arguments are specified.)
-         * Is set in {@link #parse}.
          */
-        private static @MonotonicNonNull List<Integer> argumentIndices;
+        private final List<Integer> argumentIndices = new ArrayList<>();
 
         // I think this means the number of format specifiers in the format string.
         /** The number of subformats. */
-        private static int numFormat;
+        private int numFormat = 0;
 
         // Indices for segments
         private static final int SEG_RAW = 0;
@@ -189,30 +240,45 @@ public class I18nFormatUtil {
             "", "short", "medium", "long", "full"
         };
 
-        @EnsuresNonNull({"categories", "argumentIndices", "locale"})
+        /**
+         * Creates a parser that checks number and date subformats against {@code locale}.
+         *
+         * @param locale the locale to use for formatting numbers and dates
+         */
+        private MessageFormatParser(Locale locale) {
+            this.locale = locale;
+        }
+
+        /**
+         * Returns the conversions of the subformats in {@code pattern}, in the order they occur.
+         *
+         * @param pattern a {@link MessageFormat} pattern
+         * @return the conversions of the subformats in {@code pattern}
+         * @throws IllegalArgumentException if {@code pattern} is not syntactically valid
+         */
         public static I18nConversion[] parse(String pattern) {
-            MessageFormatParser.categories = new ArrayList<>();
-            MessageFormatParser.argumentIndices = new ArrayList<>();
-            MessageFormatParser.locale = Locale.getDefault(Locale.Category.FORMAT);
-            applyPattern(pattern);
-
-            I18nConversion[] ret = new I18nConversion[MessageFormatParser.numFormat];
-            for (int i = 0; i < MessageFormatParser.numFormat; i++) {
-                ret[i] = new I18nConversion(argumentIndices.get(i), categories.get(i));
+            MessageFormatParser parser =
+                    new MessageFormatParser(Locale.getDefault(Locale.Category.FORMAT));
+            parser.applyPattern(pattern);
+
+            I18nConversion[] ret = new I18nConversion[parser.numFormat];
+            for (int i = 0; i < parser.numFormat; i++) {
+                ret[i] =
+                        new I18nConversion(
+                                parser.argumentIndices.get(i), parser.categories.get(i));
             }
             return ret;
         }
 
         @SuppressWarnings("nullness:dereference.of.nullable") // complex rules for segments[i]
-        @RequiresNonNull({"argumentIndices", "categories", "locale"})
-        private static void applyPattern(String pattern) {
+        private void applyPattern(String pattern) {
             @Nullable StringBuilder[] segments = new StringBuilder[4];
             // Allocate only segments[SEG_RAW] here. The rest are
             // allocated on demand.
             segments[SEG_RAW] = new StringBuilder();
 
             int part = SEG_RAW;
-            MessageFormatParser.numFormat = 0;
+            numFormat = 0;
             boolean inQuote = false;
             int braceStack = 0;
             maxOffset = -1;
@@ -293,8 +359,7 @@ public class I18nFormatUtil {
         }
 
         /** Side-effects {@code categories} field, adding to it an I18nConversionCategory. */
-        @RequiresNonNull({"argumentIndices", "categories", "locale"})
-        private static void makeFormat(int offsetNumber, @Nullable StringBuilder[] textSegments) {
+        private void makeFormat(int offsetNumber, @Nullable StringBuilder[] textSegments) {
             String[] segments = new String[textSegments.length];
             for (int i = 0; i < textSegments.length; i++) {
                 StringBuilder oneseg = textSegments[i];
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -31,6 +32,12 @@ import java.util.regex.PatternSyntaxException;
  * href="https://eisop.github.io/cf/manual/#regexutil-methods">Testing whether a string is a regular
  * expression</a> in the Checker Framework manual.
  *
+ * <p>The methods of this class cache the {@link Pattern}s that they compile, so testing a string
+ * and then using it as a regular expression compiles it only once. The methods that return a
+ * {@code Pattern}, such as {@link #asPattern(String, int)}, return the cached pattern. The cache is
+ * thread-safe and bounded in size. To match strings against the same collection of regular
+ * expressions repeatedly, use a {@link MultiPatternMatcher}.
+ *
  * <p><b>Runtime Dependency</b>: If you use this class, you must distribute (or link to) {@code
  * checker-qual.jar}, along with your binaries. Or, you can copy this class into your own project.
  */
@@ -42,6 +49,41 @@ public final class RegexUtil {
         throw new Error("do not instantiate");
     }
 
+    /** The maximum number of patterns in {@link #patternCache}. */
+    private static final int PATTERN_CACHE_SIZE = 512;
+
+    /**
+     * The patterns compiled by this class, keyed by their regular expression. Once the cache holds
+     * {@link #PATTERN_CACHE_SIZE} patterns, it is emptied before the next pattern is added.
+     */
+    private static final ConcurrentHashMap<String, Pattern> patternCache =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled form of the given regular expression. The result is cached, and {@link
+     * Pattern}s are immutable, so the result may be shared.
+     *
+     * @param s string to compile
+     * @return the compiled form of {@code s}
+     * @throws PatternSyntaxException if {@code s} is not a regular expression
+     */
+    @SuppressWarnings({
+        "regex", // RegexUtil
+        "purity" // the cache is not observable: a cached Pattern behaves like a new one
+    })
+    @Pure
+    private static Pattern compile(String s) {
+        Pattern p = patternCache.get(s);
+        if (p == null) {
+            p = Pattern.compile(s);
+            if (patternCache.size() >= PATTERN_CACHE_SIZE) {
+                patternCache.clear();
+            }
+            patternCache.put(s, p);
+        }
+        return p;
+    }
+
     /**
      * A checked version of {@link PatternSyntaxException}.
      *
@@ -172,7 +214,7 @@ public final class RegexUtil {
     public static boolean isRegex(String s, int groups) {
         Pattern p;
         try {
-            p = Pattern.compile(s);
+            p = compile(s);
         } catch (PatternSyntaxException e) {
             return false;
         }
@@ -225,13 +267,45 @@ public final class RegexUtil {
     // The return type annotation is irrelevant; this method is special-cased by
     // RegexAnnotatedTypeFactory.
     public static @Regex String asRegex(String s, int groups) {
+        asPattern(s, groups);
+        return s;
+    }
+
+    /**
+     * Returns the compiled form of the argument if it is a regex, otherwise throws an error. Unlike
+     * {@code Pattern.compile}, this method does not compile a string again that this class has
+     * already compiled.
+     *
+     * @param s string to compile
+     * @return the compiled form of {@code s}
+     * @throws Error if argument is not a regex
+     */
+    @SideEffectFree
+    public static @Regex Pattern asPattern(String s) {
+        return asPattern(s, 0);
+    }
+
+    /**
+     * Returns the compiled form of the argument if it is a regex with at least the given number of
+     * groups, otherwise throws an error. Unlike {@code Pattern.compile}, this method does not
+     * compile a string again that this class has already compiled.
+     *
+     * @param s string to compile
+     * @param groups number of groups expected
+     * @return the compiled form of {@code s}
+     * @throws Error if argument is not a regex
+     */
+    @SuppressWarnings("regex") // RegexUtil
+    @SideEffectFree
+    // The return type annotation is irrelevant; this method is special-cased by RegexTransfer.
+    public static @Regex Pattern asPattern(String s, int groups) {
         try {
-            Pattern p = Pattern.compile(s);
+            Pattern p = compile(s);
             int actualGroups = getGroupCount(p);
             if (actualGroups < groups) {
                 throw new Error(regexErrorMessage(s, groups, actualGroups));
             }
-            return s;
+            return p;
         } catch (PatternSyntaxException e) {
             throw new Error(e);
         }
@@ -262,7 +336,7 @@ public final class RegexUtil {
     @SideEffectFree
     public static @Nullable String regexError(String s, int groups) {
         try {
-            Pattern p = Pattern.compile(s);
+            Pattern p = compile(s);
             int actualGroups = getGroupCount(p);
             if (actualGroups < groups) {
                 return regexErrorMessage(s, groups, actualGroups);
@@ -298,7 +372,7 @@ public final class RegexUtil {
     @SideEffectFree
     public static @Nullable PatternSyntaxException regexException(String s, int groups) {
         try {
-            Pattern p = Pattern.compile(s);
+            Pattern p = compile(s);
             int actualGroups = getGroupCount(p);
             if (actualGroups < groups) {
                 return new PatternSyntaxException(
@@ -345,88 +419,162 @@ public final class RegexUtil {
     /**
      * Return the strings such that any one of the regexes matches it.
      *
+     * <p>To match against the same regexes repeatedly, use {@link
+     * MultiPatternMatcher#matchingStrings}.
+     *
      * @param strings a collection of strings
      * @param regexes a collection of regular expressions
      * @return the strings such that any one of the regexes matches it
      */
     public static List<String> matchesSomeRegex(
             Collection<String> strings, Collection<@Regex String> regexes) {
-        List<Pattern> patterns = mapList(Pattern::compile, regexes);
-        List<String> result = new ArrayList<String>(strings.size());
-        for (String s : strings) {
-            for (Pattern p : patterns) {
-                if (p.matcher(s).matches()) {
-                    result.add(s);
-                    break;
-                }
-            }
-        }
-        return result;
+        return new MultiPatternMatcher(regexes).matchingStrings(strings);
     }
 
     /**
      * Return true if every string is matched by at least one regex.
      *
+     * <p>To match against the same regexes repeatedly, use {@link
+     * MultiPatternMatcher#everyStringMatches}.
+     *
      * @param strings a collection of strings
      * @param regexes a collection of regular expressions
      * @return true if every string is matched by at least one regex
      */
     public static boolean everyStringMatchesSomeRegex(
             Collection<String> strings, Collection<@Regex String> regexes) {
-        List<Pattern> patterns = mapList(Pattern::compile, regexes);
-        outer:
-        for (String s : strings) {
-            for (Pattern p : patterns) {
-                if (p.matcher(s).matches()) {
-                    continue outer;
-                }
-            }
-            return false;
-        }
-        return true;
+        return new MultiPatternMatcher(regexes).everyStringMatches(strings);
     }
 
     /**
      * Return the strings that are matched by no regex.
      *
+     * <p>To match against the same regexes repeatedly, use {@link
+     * MultiPatternMatcher#nonMatchingStrings}.
+     *
      * @param strings a collection of strings
      * @param regexes a collection of regular expressions
      * @return the strings such that none of the regexes matches it
      */
     public static List<String> matchesNoRegex(
             Collection<String> strings, Collection<@Regex String> regexes) {
-        List<Pattern> patterns = mapList(Pattern::compile, regexes);
-        List<String> result = new ArrayList<String>(strings.size());
-        outer:
-        for (String s : strings) {
-            for (Pattern p : patterns) {
-                if (p.matcher(s).matches()) {
-                    continue outer;
-                }
-            }
-            result.add(s);
-        }
-        return result;
+        return new MultiPatternMatcher(regexes).nonMatchingStrings(strings);
     }
 
     /**
      * Return true if no string is matched by any regex.
      *
+     * <p>To match against the same regexes repeatedly, use {@link
+     * MultiPatternMatcher#noStringMatches}.
+     *
      * @param strings a collection of strings
      * @param regexes a collection of regular expressions
      * @return true if no string is matched by any regex
      */
     public static boolean noStringMatchesAnyRegex(
             Collection<String> strings, Collection<@Regex String> regexes) {
-        for (String regex : regexes) {
-            Pattern p = Pattern.compile(regex);
-            for (String s : strings) {
+        return new MultiPatternMatcher(regexes).noStringMatches(strings);
+    }
+
+    /**
+     * Matches strings against a fixed collection of regular expressions. The regular expressions
+     * are compiled once, when the matcher is created, so a matcher can be reused to match many
+     * strings. A matcher is immutable and may be shared between threads.
+     */
+    public static final class MultiPatternMatcher {
+
+        /** The compiled regular expressions. */
+        private final Pattern[] patterns;
+
+        /**
+         * Creates a matcher for the given regular expressions.
+         *
+         * @param regexes a collection of regular expressions
+         */
+        public MultiPatternMatcher(Collection<@Regex String> regexes) {
+            patterns = new Pattern[regexes.size()];
+            int i = 0;
+            for (String regex : regexes) {
+                patterns[i++] = compile(regex);
+            }
+        }
+
+        /**
+         * Returns true if at least one of the regexes matches the entire string.
+         *
+         * @param s a string
+         * @return true if at least one of the regexes matches {@code s}
+         */
+        public boolean matchesSome(String s) {
+            for (Pattern p : patterns) {
                 if (p.matcher(s).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return the strings such that any one of the regexes matches it.
+         *
+         * @param strings a collection of strings
+         * @return the strings such that any one of the regexes matches it
+         */
+        public List<String> matchingStrings(Collection<String> strings) {
+            List<String> result = new ArrayList<String>(strings.size());
+            for (String s : strings) {
+                if (matchesSome(s)) {
+                    result.add(s);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Return the strings that are matched by no regex.
+         *
+         * @param strings a collection of strings
+         * @return the strings such that none of the regexes matches it
+         */
+        public List<String> nonMatchingStrings(Collection<String> strings) {
+            List<String> result = new ArrayList<String>(strings.size());
+            for (String s : strings) {
+                if (!matchesSome(s)) {
+                    result.add(s);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Return true if every string is matched by at least one regex.
+         *
+         * @param strings a collection of strings
+         * @return true if every string is matched by at least one regex
+         */
+        public boolean everyStringMatches(Collection<String> strings) {
+            for (String s : strings) {
+                if (!matchesSome(s)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Return true if no string is matched by any regex.
+         *
+         * @param strings a collection of strings
+         * @return true if no string is matched by any regex
+         */
+        public boolean noStringMatches(Collection<String> strings) {
+            for (String s : strings) {
+                if (matchesSome(s)) {
                     return false;
                 }
             }
+            return true;
         }
-        return true;
     }
 
     //
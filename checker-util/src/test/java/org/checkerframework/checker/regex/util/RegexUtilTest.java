@@ -9,6 +9,7 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public final class RegexUtilTest {
 
@@ -264,4 +265,32 @@ public final class RegexUtilTest {
         Assert.assertTrue(RegexUtil.noStringMatchesAnyRegex(s5, r6));
         Assert.assertFalse(RegexUtil.noStringMatchesAnyRegex(s6, r6));
     }
+
+    @Test
+    public void test_asPattern() {
+        Pattern p = RegexUtil.asPattern("colo(u?)r", 1);
+        Assert.assertEquals("colo(u?)r", p.pattern());
+        Assert.assertTrue(p.matcher("colour").matches());
+        Assert.assertSame(p, RegexUtil.asPattern("colo(u?)r"));
+        Assert.assertThrows(Error.class, () -> RegexUtil.asPattern("colo(u?)r", 2));
+        Assert.assertThrows(Error.class, () -> RegexUtil.asPattern("1) first point"));
+    }
+
+    @Test
+    public void test_MultiPatternMatcher() {
+        RegexUtil.MultiPatternMatcher m3 = new RegexUtil.MultiPatternMatcher(r3);
+        Assert.assertTrue(m3.matchesSome("aa"));
+        Assert.assertFalse(m3.matchesSome("cc"));
+        Assert.assertEquals(m3.matchingStrings(s3), aabb);
+        Assert.assertEquals(m3.nonMatchingStrings(s3), cc);
+        Assert.assertTrue(m3.everyStringMatches(s4));
+        Assert.assertFalse(m3.everyStringMatches(s3));
+        Assert.assertTrue(m3.noStringMatches(s5));
+        Assert.assertFalse(m3.noStringMatches(s6));
+
+        RegexUtil.MultiPatternMatcher m1 = new RegexUtil.MultiPatternMatcher(r1);
+        Assert.assertEquals(m1.matchingStrings(s1), empty);
+        Assert.assertFalse(m1.everyStringMatches(s1));
+        Assert.assertTrue(m1.everyStringMatches(empty));
+    }
 }
@@ -27,13 +27,14 @@ import javax.lang.model.element.ExecutableElement;
 /** The transfer function for the Regex Checker. */
 public class RegexTransfer extends CFTransfer {
 
-    // isRegex and asRegex are tested as signatures (string name plus formal parameters), not
-    // ExecutableElement, because they exist in two packages:
+    // isRegex, asRegex, and asPattern are tested as signatures (string name plus formal
+    // parameters), not ExecutableElement, because they exist in two packages:
     // org.checkerframework.checker.regex.util.RegexUtil.isRegex(String,int)
     // org.plumelib.util.RegexUtil.isRegex(String,int)
     // and org.plumelib.util might not be on the classpath.
     private static final String IS_REGEX_METHOD_NAME = "isRegex";
     private static final String AS_REGEX_METHOD_NAME = "asRegex";
+    private static final String AS_PATTERN_METHOD_NAME = "asPattern";
 
     /** The MatchResult.groupCount() method. */
     private final ExecutableElement matchResultgroupCount;
@@ -100,10 +101,12 @@ public class RegexTransfer extends CFTransfer {
             thenStore.insertValue(firstParam, regexAnnotation);
             return newResult;
         } else if (ElementUtils.matchesElement(
-                method, AS_REGEX_METHOD_NAME, String.class, int.class)) {
-            // RegexUtil.asRegex(s, groups) method
-            // (No special case is needed for asRegex(String) because of
-            // the annotation on that method's definition.)
+                        method, AS_REGEX_METHOD_NAME, String.class, int.class)
+                || ElementUtils.matchesElement(
+                        method, AS_PATTERN_METHOD_NAME, String.class, int.class)) {
+            // RegexUtil.asRegex(s, groups) and RegexUtil.asPattern(s, groups) methods
+            // (No special case is needed for asRegex(String) and asPattern(String) because of
+            // the annotations on those methods' definitions.)
 
             // add annotation with correct group count (if possible,
             // regex annotation without count otherwise)
@@ -5,6 +5,13 @@ import org.checkerframework.checker.i18nformatter.util.I18nFormatUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class I18nFormatterUnitTest {
 
     @Test
@@ -149,4 +156,55 @@ public class I18nFormatterUnitTest {
         Assert.assertFalse(
                 I18nFormatUtil.hasFormat("{0, date} {1, date}", I18nConversionCategory.DATE));
     }
+
+    @Test
+    public void formatParameterCategoriesReturnsCopyTest() {
+        I18nConversionCategory[] cs = I18nFormatUtil.formatParameterCategories("{0, date}");
+        cs[0] = I18nConversionCategory.NUMBER;
+        Assert.assertArrayEquals(
+                new I18nConversionCategory[] {I18nConversionCategory.DATE},
+                I18nFormatUtil.formatParameterCategories("{0, date}"));
+        Assert.assertFalse(I18nFormatUtil.isFormat("{0, date"));
+        Assert.assertFalse(I18nFormatUtil.isFormat("{0, date"));
+    }
+
+    @Test
+    public void concurrentFormatParameterCategoriesTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                Callable<Boolean> task =
+                        () -> {
+                            for (int i = 0; i < 2000; i++) {
+                                int count = (thread + i) % 5 + 1;
+                                StringBuilder format = new StringBuilder();
+                                for (int k = 0; k < count; k++) {
+                                    format.append("{").append(k);
+                                    format.append(k % 2 == 0 ? ", number} " : ", date} ");
+                                }
+                                format.append(i);
+                                I18nConversionCategory[] cs =
+                                        I18nFormatUtil.formatParameterCategories(
+                                                format.toString());
+                                if (cs.length != count
+                                        || cs[count - 1]
+                                                != (count % 2 == 1
+                                                        ? I18nConversionCategory.NUMBER
+                                                        : I18nConversionCategory.DATE)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        };
+                results.add(executor.submit(task));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
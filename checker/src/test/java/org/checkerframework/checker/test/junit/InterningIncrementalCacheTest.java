@@ -0,0 +1,93 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.interning.InterningChecker;
+import org.checkerframework.framework.test.CompilationResult;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Tests that {@code -AincrementalCache} replays a warning that a checker reported at an element
+ * rather than at a tree, and warnings that {@code -Awarns} turned from errors.
+ */
+public class InterningIncrementalCacheTest {
+
+    /**
+     * A class whose constructor has an annotation other than top, which the Interning Checker
+     * reports at the element of the constructor.
+     */
+    private static final String CREATION =
+            "import org.checkerframework.checker.interning.qual.Interned;\n"
+                    + "public @Interned class Creation {\n"
+                    + "  @Interned Creation() {}\n"
+                    + "}\n";
+
+    @Test
+    public void elementWarningTest() throws IOException {
+        Path srcDir = Files.createTempDirectory("incremental-cache-src");
+        Path cacheDir = Files.createTempDirectory("incremental-cache");
+        try {
+            Path creation = srcDir.resolve("Creation.java");
+            Files.write(creation, CREATION.getBytes(StandardCharsets.UTF_8));
+
+            List<String> first = compile(srcDir, cacheDir, creation);
+            Path entry =
+                    cacheDir.resolve(InterningChecker.class.getName()).resolve("Creation.txt");
+            Assert.assertTrue("no entry was written", Files.exists(entry));
+            Assert.assertTrue(
+                    first.toString(),
+                    first.stream().anyMatch(d -> d.contains("inconsistent.constructor.type")));
+
+            // Replayed from the cache.
+            List<String> second = compile(srcDir, cacheDir, creation);
+            Assert.assertEquals(first, second);
+        } finally {
+            NullnessIncrementalCacheTest.deleteRecursively(srcDir);
+            NullnessIncrementalCacheTest.deleteRecursively(cacheDir);
+        }
+    }
+
+    /**
+     * Runs the Interning Checker with {@code -AincrementalCache} and {@code -Awarns}, and returns
+     * its warnings.
+     *
+     * @param srcDir the directory that contains {@code file}
+     * @param cacheDir the cache directory
+     * @param file the file to type-check
+     * @return the warnings and mandatory warnings, sorted
+     */
+    private static List<String> compile(Path srcDir, Path cacheDir, Path file) {
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        srcDir.toString(),
+                        Collections.singletonList(file.toFile()),
+                        Collections.singletonList(InterningChecker.class.getName()),
+                        Arrays.asList("-AincrementalCache=" + cacheDir, "-Awarns"),
+                        TestUtilities.getShouldEmitDebugInfo());
+        CompilationResult result = new TypecheckExecutor().compile(config);
+        List<String> warnings = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : result.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.WARNING
+                    || d.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+                warnings.add(d.getKind() + " " + d.getLineNumber() + " " + d.getMessage(null));
+            }
+        }
+        Collections.sort(warnings);
+        return warnings;
+    }
+}
@@ -0,0 +1,199 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CompilationResult;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Tests that {@code -AincrementalCache} type-checks an unchanged class again when the annotations
+ * of a class that it uses, or of a package, have changed, instead of replaying stale diagnostics.
+ */
+public class NullnessIncrementalCacheDependencyTest {
+
+    /** The message key of a dereference of a nullable value. */
+    private static final String DEREFERENCE = "dereference.of.nullable";
+
+    /** The message key of an incompatible return value. */
+    private static final String RETURN = "return.type.incompatible";
+
+    /** A class whose method returns a nullable value. */
+    private static final String NULLABLE_DEP =
+            "import org.checkerframework.checker.nullness.qual.Nullable;\n"
+                    + "public class Dep {\n"
+                    + "  public static @Nullable String get() {\n"
+                    + "    return null;\n"
+                    + "  }\n"
+                    + "}\n";
+
+    /** {@link #NULLABLE_DEP}, edited so that the method returns a non-null value. */
+    private static final String NONNULL_DEP =
+            "public class Dep {\n"
+                    + "  public static String get() {\n"
+                    + "    return \"\";\n"
+                    + "  }\n"
+                    + "}\n";
+
+    /** A class that dereferences the result of {@code Dep.get()}. */
+    private static final String CLIENT =
+            "public class Client {\n"
+                    + "  int length() {\n"
+                    + "    return Dep.get().length();\n"
+                    + "  }\n"
+                    + "}\n";
+
+    /** A {@code package-info.java} that makes the return types in a package nullable by default. */
+    private static final String NULLABLE_PACKAGE_INFO =
+            "@DefaultQualifier(value = Nullable.class, locations = TypeUseLocation.RETURN)\n"
+                    + "package %s;\n"
+                    + "import org.checkerframework.checker.nullness.qual.Nullable;\n"
+                    + "import org.checkerframework.framework.qual.DefaultQualifier;\n"
+                    + "import org.checkerframework.framework.qual.TypeUseLocation;\n";
+
+    /** {@link #NULLABLE_PACKAGE_INFO}, edited so that it has no annotations. */
+    private static final String PLAIN_PACKAGE_INFO = "package %s;\n";
+
+    /** A class in package {@code q} whose method returns a value. */
+    private static final String PACKAGED_DEP =
+            "package q;\n"
+                    + "public class Dep {\n"
+                    + "  public static String get() {\n"
+                    + "    return \"\";\n"
+                    + "  }\n"
+                    + "}\n";
+
+    /** A class in package {@code p} that returns null and dereferences {@code q.Dep.get()}. */
+    private static final String PACKAGED_CLIENT =
+            "package p;\n"
+                    + "public class Client {\n"
+                    + "  String get() {\n"
+                    + "    return null;\n"
+                    + "  }\n"
+                    + "  int length() {\n"
+                    + "    return q.Dep.get().length();\n"
+                    + "  }\n"
+                    + "}\n";
+
+    @Test
+    public void editedDependencyTest() throws IOException {
+        Path srcDir = Files.createTempDirectory("incremental-cache-src");
+        Path cacheDir = Files.createTempDirectory("incremental-cache");
+        try {
+            Path dep = srcDir.resolve("Dep.java");
+            Path client = srcDir.resolve("Client.java");
+            Files.write(client, CLIENT.getBytes(StandardCharsets.UTF_8));
+
+            Files.write(dep, NULLABLE_DEP.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(1, countErrors(DEREFERENCE, srcDir, cacheDir, dep, client));
+            // Replayed from the cache.
+            Assert.assertEquals(1, countErrors(DEREFERENCE, srcDir, cacheDir, dep, client));
+
+            // Client.java is unchanged, but its entry depends on the annotations of Dep.
+            Files.write(dep, NONNULL_DEP.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(0, countErrors(DEREFERENCE, srcDir, cacheDir, dep, client));
+            Assert.assertEquals(0, countErrors(DEREFERENCE, srcDir, cacheDir, dep, client));
+        } finally {
+            NullnessIncrementalCacheTest.deleteRecursively(srcDir);
+            NullnessIncrementalCacheTest.deleteRecursively(cacheDir);
+        }
+    }
+
+    @Test
+    public void editedPackageInfoTest() throws IOException {
+        Path srcDir = Files.createTempDirectory("incremental-cache-src");
+        Path cacheDir = Files.createTempDirectory("incremental-cache");
+        try {
+            Files.createDirectories(srcDir.resolve("p"));
+            Files.createDirectories(srcDir.resolve("q"));
+            Path clientInfo = srcDir.resolve("p").resolve("package-info.java");
+            Path client = srcDir.resolve("p").resolve("Client.java");
+            Path depInfo = srcDir.resolve("q").resolve("package-info.java");
+            Path dep = srcDir.resolve("q").resolve("Dep.java");
+            Path[] files = {clientInfo, client, depInfo, dep};
+            Files.write(client, PACKAGED_CLIENT.getBytes(StandardCharsets.UTF_8));
+            Files.write(dep, PACKAGED_DEP.getBytes(StandardCharsets.UTF_8));
+            writePackageInfo(clientInfo, PLAIN_PACKAGE_INFO, "p");
+            writePackageInfo(depInfo, PLAIN_PACKAGE_INFO, "q");
+
+            Assert.assertEquals(1, countErrors(RETURN, srcDir, cacheDir, files));
+            Assert.assertEquals(0, countErrors(DEREFERENCE, srcDir, cacheDir, files));
+
+            // Client.java is unchanged, but its entry depends on the annotations of its package.
+            writePackageInfo(clientInfo, NULLABLE_PACKAGE_INFO, "p");
+            Assert.assertEquals(0, countErrors(RETURN, srcDir, cacheDir, files));
+            Assert.assertEquals(0, countErrors(RETURN, srcDir, cacheDir, files));
+
+            // Client.java is unchanged, but its entry depends on the annotations of the package of
+            // Dep.
+            writePackageInfo(depInfo, NULLABLE_PACKAGE_INFO, "q");
+            Assert.assertEquals(1, countErrors(DEREFERENCE, srcDir, cacheDir, files));
+            Assert.assertEquals(1, countErrors(DEREFERENCE, srcDir, cacheDir, files));
+        } finally {
+            NullnessIncrementalCacheTest.deleteRecursively(srcDir);
+            NullnessIncrementalCacheTest.deleteRecursively(cacheDir);
+        }
+    }
+
+    /**
+     * Writes a {@code package-info.java} file.
+     *
+     * @param file the file to write
+     * @param format {@link #NULLABLE_PACKAGE_INFO} or {@link #PLAIN_PACKAGE_INFO}
+     * @param pkg the name of the package
+     * @throws IOException if the file cannot be written
+     */
+    private static void writePackageInfo(Path file, String format, String pkg)
+            throws IOException {
+        Files.write(file, String.format(format, pkg).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the Nullness Checker with {@code -AincrementalCache} and returns the number of errors
+     * with the given key.
+     *
+     * @param key the message key of the errors to count
+     * @param srcDir the directory that contains {@code files}
+     * @param cacheDir the cache directory
+     * @param files the files to type-check
+     * @return the number of errors with message key {@code key}
+     */
+    private static int countErrors(String key, Path srcDir, Path cacheDir, Path... files) {
+        List<File> sourceFiles = new ArrayList<>();
+        for (Path file : files) {
+            sourceFiles.add(file.toFile());
+        }
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        srcDir.toString(),
+                        sourceFiles,
+                        Collections.singletonList(NullnessChecker.class.getName()),
+                        Arrays.asList("-AincrementalCache=" + cacheDir),
+                        TestUtilities.getShouldEmitDebugInfo());
+        CompilationResult result = new TypecheckExecutor().compile(config);
+        int count = 0;
+        for (Diagnostic<? extends JavaFileObject> d : result.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR
+                    && d.getMessage(null).contains(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
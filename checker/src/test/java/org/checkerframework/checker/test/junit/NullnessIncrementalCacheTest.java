@@ -0,0 +1,88 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JUnit tests for the Nullness Checker with {@code -AincrementalCache}. Each directory is checked
+ * twice with the same cache. The second run replays the diagnostics from the cache, and they must
+ * be the same as the expected diagnostics.
+ */
+public class NullnessIncrementalCacheTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** The cache directory of the current test, or null between tests. */
+    private Path cacheDir;
+
+    /**
+     * Create a NullnessIncrementalCacheTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessIncrementalCacheTest(List<File> testFiles) {
+        super(
+                testFiles,
+                NullnessChecker.class,
+                "nullness",
+                "-AcheckPurityAnnotations",
+                "-AconservativeArgumentNullnessAfterInvocation=true",
+                "-Xlint:deprecation",
+                "-Alint=soundArrayCreationNullness,"
+                        + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON);
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness-initialization"};
+    }
+
+    @Override
+    public List<String> customizeOptions(List<String> previousOptions) {
+        List<String> options = new ArrayList<>(previousOptions);
+        options.add("-AincrementalCache=" + cacheDir);
+        return options;
+    }
+
+    @Override
+    public void run() {
+        try {
+            cacheDir = Files.createTempDirectory("incremental-cache");
+            // Fills the cache.
+            super.run();
+            // Replays the diagnostics from the cache.
+            super.run();
+            deleteRecursively(cacheDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            cacheDir = null;
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param dir the directory to delete
+     * @throws IOException if a file cannot be deleted
+     */
+    static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = new ArrayList<>();
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
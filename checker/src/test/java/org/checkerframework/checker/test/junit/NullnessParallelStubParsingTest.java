@@ -0,0 +1,37 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.TestUtilities;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * JUnit tests for the Nullness Checker when it parses stub files and the annotated JDK on worker
+ * threads. The diagnostics must be the same as in {@link NullnessStubfileTest}.
+ */
+public class NullnessParallelStubParsingTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a NullnessParallelStubParsingTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessParallelStubParsingTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.checker.nullness.NullnessChecker.class,
+                "nullness",
+                "-AparallelStubParsing=4",
+                TestUtilities.adapt(
+                        "-Astubs=tests/nullness-stubfile/stubfile1.astub:"
+                                + "tests/nullness-stubfile/stubfile2.astub:"
+                                + "tests/nullness-stubfile/requireNonNull.astub"));
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness-stubfile"};
+    }
+}
@@ -0,0 +1,73 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.Assert;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JUnit tests for the Nullness Checker with {@code -Aprofile}. Profiling must not change the
+ * diagnostics, and the report must describe the Nullness Checker and its subcheckers.
+ */
+public class NullnessProfileTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** The report file of the current test, or null between tests. */
+    private Path profile;
+
+    /**
+     * Create a NullnessProfileTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessProfileTest(List<File> testFiles) {
+        super(
+                testFiles,
+                NullnessChecker.class,
+                "nullness",
+                "-AcheckPurityAnnotations",
+                "-AconservativeArgumentNullnessAfterInvocation=true",
+                "-Xlint:deprecation",
+                "-Alint=soundArrayCreationNullness,"
+                        + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON);
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness-initialization"};
+    }
+
+    @Override
+    public List<String> customizeOptions(List<String> previousOptions) {
+        List<String> options = new ArrayList<>(previousOptions);
+        options.add("-Aprofile=" + profile);
+        return options;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Path dir = Files.createTempDirectory("profile");
+            profile = dir.resolve("profile.json");
+            super.run();
+            String report = new String(Files.readAllBytes(profile), StandardCharsets.UTF_8);
+            Assert.assertTrue(report, report.contains(NullnessChecker.class.getName()));
+            Assert.assertTrue(report, report.contains("\"visitor\""));
+            Assert.assertTrue(report, report.contains("\"dataflow\""));
+            Assert.assertTrue(report, report.contains("\"caches\""));
+            NullnessIncrementalCacheTest.deleteRecursively(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            profile = null;
+        }
+    }
+}
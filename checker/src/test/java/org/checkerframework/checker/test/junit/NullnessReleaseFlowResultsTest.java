@@ -0,0 +1,39 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * JUnit tests for the Nullness Checker with {@code -AreleaseFlowResults}. Releasing the dataflow
+ * results of a class after it has been checked must not change the diagnostics, so the expected
+ * diagnostics are the same as for {@link NullnessTest}.
+ */
+public class NullnessReleaseFlowResultsTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a NullnessReleaseFlowResultsTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessReleaseFlowResultsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                NullnessChecker.class,
+                "nullness",
+                "-AcheckPurityAnnotations",
+                "-AconservativeArgumentNullnessAfterInvocation=true",
+                "-Xlint:deprecation",
+                "-Alint=soundArrayCreationNullness,"
+                        + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON,
+                "-AreleaseFlowResults");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness", "all-systems"};
+    }
+}
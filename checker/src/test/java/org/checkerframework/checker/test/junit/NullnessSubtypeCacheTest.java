@@ -0,0 +1,39 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * JUnit tests for the Nullness Checker with {@code -AsubtypeCacheSize}. Cached subtyping results
+ * must not change the diagnostics, so the expected diagnostics are the same as for {@link
+ * NullnessTest}.
+ */
+public class NullnessSubtypeCacheTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a NullnessSubtypeCacheTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessSubtypeCacheTest(List<File> testFiles) {
+        super(
+                testFiles,
+                NullnessChecker.class,
+                "nullness",
+                "-AcheckPurityAnnotations",
+                "-AconservativeArgumentNullnessAfterInvocation=true",
+                "-Xlint:deprecation",
+                "-Alint=soundArrayCreationNullness,"
+                        + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON,
+                "-AsubtypeCacheSize=1000");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness", "all-systems"};
+    }
+}
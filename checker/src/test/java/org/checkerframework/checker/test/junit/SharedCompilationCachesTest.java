@@ -0,0 +1,71 @@
+package org.checkerframework.checker.test.junit;
+
+import org.checkerframework.checker.interning.InterningChecker;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CompilationResult;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Tests that two checkers in one javac invocation, which share tree paths and control flow graphs
+ * via {@link org.checkerframework.framework.util.SharedCompilationCaches}, issue the same
+ * diagnostics as when each runs alone.
+ */
+public class SharedCompilationCachesTest {
+
+    /** The directory, relative to the tests directory, of the files to type-check. */
+    private static final String TEST_DIR = "nullness-initialization";
+
+    @Test
+    public void twoCheckersTest() {
+        List<File> files = TestUtilities.findNestedJavaTestFiles(TEST_DIR);
+        List<String> nullness = diagnostics(files, NullnessChecker.class.getName());
+        List<String> interning = diagnostics(files, InterningChecker.class.getName());
+        List<String> both =
+                diagnostics(
+                        files, NullnessChecker.class.getName(), InterningChecker.class.getName());
+
+        List<String> expected = new ArrayList<>(nullness);
+        expected.addAll(interning);
+        Collections.sort(expected);
+        Assert.assertEquals(expected, both);
+    }
+
+    /**
+     * Type-checks {@code files} with the given checkers in one javac invocation, and returns the
+     * diagnostics, sorted.
+     *
+     * @param files the files to type-check
+     * @param checkerNames the binary names of the checkers to run
+     * @return the diagnostics, sorted
+     */
+    private static List<String> diagnostics(List<File> files, String... checkerNames) {
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        new File("tests", TEST_DIR).getPath(),
+                        files,
+                        Arrays.asList(checkerNames),
+                        Collections.emptyList(),
+                        TestUtilities.getShouldEmitDebugInfo());
+        CompilationResult result = new TypecheckExecutor().compile(config);
+        List<String> diagnostics = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : result.getDiagnostics()) {
+            diagnostics.add(d.toString());
+        }
+        Collections.sort(diagnostics);
+        return diagnostics;
+    }
+}
@@ -1,12 +1,17 @@
 import org.checkerframework.checker.regex.qual.Regex;
 import org.checkerframework.framework.qual.EnsuresQualifierIf;
 
+import java.util.regex.Pattern;
+
 public class RegexUtilClient {
     void fullyQualifiedRegexUtil(String s) {
         if (org.checkerframework.checker.regex.util.RegexUtil.isRegex(s, 2)) {
             @Regex(2) String s2 = s;
         }
         @Regex(2) String s2 = org.checkerframework.checker.regex.util.RegexUtil.asRegex(s, 2);
+        @Regex(2) Pattern p2 = org.checkerframework.checker.regex.util.RegexUtil.asPattern(s, 2);
+        // :: error: (assignment.type.incompatible)
+        @Regex(3) Pattern p3 = org.checkerframework.checker.regex.util.RegexUtil.asPattern(s, 2);
     }
 
     void unqualifiedRegexUtil(String s) {
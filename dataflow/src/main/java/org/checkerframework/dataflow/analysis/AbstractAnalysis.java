@@ -21,13 +21,13 @@ import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.StringJoiner;
 
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
@@ -164,6 +164,41 @@ public abstract class AbstractAnalysis<
         return this.direction;
     }
 
+    /**
+     * Sets the number of nodes between two checkpoints in a regular block. See {@link
+     * #checkpoints}.
+     *
+     * @param checkpointInterval the number of nodes between two checkpoints, or 0 to record no
+     *     checkpoints
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new BugInCF("Negative checkpoint interval: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * The number of nodes between two checkpoints in a regular block, or 0 (the default) if the
+     * analysis records no checkpoints. See {@link #checkpoints}.
+     */
+    protected int checkpointInterval = 0;
+
+    /**
+     * Checkpoints within long regular blocks. Maps a regular block to the transfer inputs after
+     * some of its nodes, as computed by the final pass of the fixpoint iteration over the block. A
+     * forward analysis records a checkpoint after every {@link #checkpointInterval}-th node of a
+     * regular block, except the last node.
+     *
+     * <p>Checkpoints bound the cost of {@link AnalysisResult#getStoreBefore(Node)} and {@link
+     * AnalysisResult#getStoreAfter(Node)}: they re-run the transfer function on at most {@code
+     * checkpointInterval} nodes, instead of on every node from the beginning of the block. That
+     * would otherwise be quadratic in the length of a block whose results were evicted from the
+     * analysis caches.
+     */
+    protected final IdentityHashMap<Block, BlockCheckpoints<V, S>> checkpoints =
+            new IdentityHashMap<>();
+
     /** A cache for {@link #getResult()}. */
     private @Nullable AnalysisResult<V, S> getResultCache;
 
@@ -183,7 +218,8 @@ public abstract class AbstractAnalysis<
                             inputs,
                             cfg.getTreeLookup(),
                             cfg.getPostfixNodeLookup(),
-                            finalLocalValues);
+                            finalLocalValues,
+                            checkpoints);
         }
         return getResultCache;
     }
@@ -448,6 +484,7 @@ public abstract class AbstractAnalysis<
         inputs.clear();
         nodeValues.clear();
         finalLocalValues.clear();
+        checkpoints.clear();
         this.cfg = cfg;
         getResultCache = null;
     }
@@ -478,60 +515,31 @@ public abstract class AbstractAnalysis<
      * @param b the block to add to {@link #worklist}
      */
     protected void addToWorklist(Block b) {
-        // TODO: This costs linear (!) time.  Use a more efficient way to check if b is already
-        // present.
-        // Two possibilities:
-        //  * add unconditionally, and detect duplicates when removing from the queue.
-        //  * maintain a HashSet of the elements that are already in the queue.
-        if (!worklist.contains(b)) {
-            worklist.add(b);
-        }
+        worklist.add(b);
     }
 
     /**
      * A worklist is a priority queue of blocks in which the order is given by depth-first ordering
      * to place non-loop predecessors ahead of successors.
+     *
+     * <p>Each block of the CFG is numbered densely by its depth-first order when the CFG is
+     * processed. The queue is a bit set of these numbers, so adding, testing, and removing a block
+     * neither boxes integers nor compares blocks: the next block is the lowest set bit for a
+     * forward analysis and the highest set bit for a backward analysis.
      */
     protected static class Worklist {
 
+        /** The direction of the analysis that uses this worklist. */
+        protected final Direction direction;
+
         /** Map all blocks in the CFG to their depth-first order. */
         protected final IdentityHashMap<Block, Integer> depthFirstOrder = new IdentityHashMap<>();
 
-        /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * forward analysis.
-         */
-        public class ForwardDfoComparator implements Comparator<Block> {
-            /** Creates a new ForwardDfoComparator. */
-            public ForwardDfoComparator() {}
-
-            @SuppressWarnings("nullness:unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b1) - depthFirstOrder.get(b2);
-            }
-        }
-
-        /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * backward analysis.
-         */
-        public class BackwardDfoComparator implements Comparator<Block> {
-            /** Creates a new BackwardDfoComparator. */
-            public BackwardDfoComparator() {}
-
-            @SuppressWarnings("nullness:unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b2) - depthFirstOrder.get(b1);
-            }
-        }
-
-        /** The backing priority queue. */
-        protected final PriorityQueue<Block> queue;
+        /** The blocks in the CFG, indexed by their depth-first order. */
+        protected final ArrayList<Block> blocks = new ArrayList<>();
 
-        /** Contains the same elements as {@link #queue}, for faster lookup. */
-        protected final Set<Block> queueSet;
+        /** The depth-first orders of the blocks in the worklist. */
+        protected final BitSet queue = new BitSet();
 
         /**
          * Create a Worklist.
@@ -539,47 +547,57 @@ public abstract class AbstractAnalysis<
          * @param direction the direction (forward or backward)
          */
         public Worklist(Direction direction) {
-            if (direction == Direction.FORWARD) {
-                queue = new PriorityQueue<>(new ForwardDfoComparator());
-                queueSet = new HashSet<>();
-            } else if (direction == Direction.BACKWARD) {
-                queue = new PriorityQueue<>(new BackwardDfoComparator());
-                queueSet = new HashSet<>();
-            } else {
+            if (direction != Direction.FORWARD && direction != Direction.BACKWARD) {
                 throw new BugInCF("Unexpected Direction: " + direction.name());
             }
+            this.direction = direction;
         }
 
         /**
          * Process the control flow graph.
          *
          * <p>This implementation sets the depth-first order for each block, by adding the blocks to
-         * {@link #depthFirstOrder}.
+         * {@link #depthFirstOrder} and {@link #blocks}.
          *
          * @param cfg the control flow graph to process
          */
         public void process(ControlFlowGraph cfg) {
             depthFirstOrder.clear();
-            int count = 1;
+            blocks.clear();
             for (Block b : cfg.getDepthFirstOrderedBlocks()) {
-                depthFirstOrder.put(b, count++);
+                depthFirstOrder.put(b, blocks.size());
+                blocks.add(b);
             }
 
             queue.clear();
-            queueSet.clear();
         }
 
         /**
-         * See {@link PriorityQueue#isEmpty}.
+         * Returns the depth-first order of a block. A block that is not reachable from the entry
+         * block of the CFG gets a number after all reachable blocks.
+         *
+         * @param block a block
+         * @return the depth-first order of {@code block}
+         */
+        private int getOrder(Block block) {
+            Integer order = depthFirstOrder.get(block);
+            if (order == null) {
+                order = blocks.size();
+                depthFirstOrder.put(block, order);
+                blocks.add(block);
+            }
+            return order;
+        }
+
+        /**
+         * Returns true if {@link #queue} is empty.
          *
-         * @see PriorityQueue#isEmpty
          * @return true if {@link #queue} is empty else false
          */
         @Pure
         @EnsuresNonNullIf(result = false, expression = "poll()")
         @SuppressWarnings("nullness:contracts.conditional.postcondition.not.satisfied") // forwarded
         public boolean isEmpty() {
-            assert queue.isEmpty() == queueSet.isEmpty();
             return queue.isEmpty();
         }
 
@@ -590,38 +608,42 @@ public abstract class AbstractAnalysis<
          * @return true if {@link #queue} contains the given block
          */
         public boolean contains(Block block) {
-            return queueSet.contains(block);
+            Integer order = depthFirstOrder.get(block);
+            return order != null && queue.get(order);
         }
 
         /**
-         * Add the given block to {@link #queue}. Adds unconditionally: does not check containment
-         * first.
+         * Add the given block to {@link #queue}. If the block is already present, does nothing.
          *
          * @param block the block to add to {@link #queue}
          */
         public void add(Block block) {
-            queue.add(block);
-            queueSet.add(block);
+            queue.set(getOrder(block));
         }
 
         /**
-         * See {@link PriorityQueue#poll}.
+         * Removes and returns the block with the lowest depth-first order for a forward analysis,
+         * or with the highest depth-first order for a backward analysis.
          *
-         * @see PriorityQueue#poll
-         * @return the head of {@link #queue}
+         * @return the head of {@link #queue}, or null if it is empty
          */
         @Pure
         public @Nullable Block poll() {
-            Block result = queue.poll();
-            if (result != null) {
-                queueSet.remove(result);
+            int order = direction == Direction.FORWARD ? queue.nextSetBit(0) : queue.length() - 1;
+            if (order < 0) {
+                return null;
             }
-            return result;
+            queue.clear(order);
+            return blocks.get(order);
         }
 
         @Override
         public String toString() {
-            return "Worklist(" + queue + ")";
+            StringJoiner result = new StringJoiner(", ", "Worklist([", "])");
+            for (int i = queue.nextSetBit(0); i >= 0; i = queue.nextSetBit(i + 1)) {
+                result.add(String.valueOf(blocks.get(i)));
+            }
+            return result.toString();
         }
     }
 }
@@ -95,6 +95,39 @@ public interface Analysis<
             @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
                     analysisCaches);
 
+    /**
+     * Runs the analysis again within the block of {@code node} and returns the store at the
+     * location of {@code node}, like {@link #runAnalysisFor(Node, BeforeOrAfter, TransferInput,
+     * IdentityHashMap, Map)}. If {@code checkpoints} has checkpoints for the block of {@code node},
+     * the analysis may start from the closest one before {@code node} instead of from the
+     * beginning of the block.
+     *
+     * <p>The default implementation ignores {@code checkpoints}.
+     *
+     * @param node the node to analyze
+     * @param preOrPost which store to return: the store immediately before {@code node} or the
+     *     store after {@code node}
+     * @param blockTransferInput the transfer input of the block of this node
+     * @param nodeValues abstract values of nodes
+     * @param analysisCaches caches of analysis results. If it is not null, this method uses and
+     *     updates it. It is a map from a TransferInput for a Block to a map. The inner map is from
+     *     a node within the block to a TransferResult.
+     * @param checkpoints maps a regular block to its checkpoints, as recorded by {@link
+     *     AbstractAnalysis#checkpoints}
+     * @return the store before or after {@code node} (depends on the value of {@code before}) after
+     *     running the analysis
+     */
+    default S runAnalysisFor(
+            Node node,
+            Analysis.BeforeOrAfter preOrPost,
+            TransferInput<V, S> blockTransferInput,
+            IdentityHashMap<Node, V> nodeValues,
+            @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
+                    analysisCaches,
+            Map<Block, BlockCheckpoints<V, S>> checkpoints) {
+        return runAnalysisFor(node, preOrPost, blockTransferInput, nodeValues, analysisCaches);
+    }
+
     /**
      * The result of running the analysis. This is only available once the analysis finished
      * running.
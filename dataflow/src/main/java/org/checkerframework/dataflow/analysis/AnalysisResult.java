@@ -6,6 +6,7 @@ import com.sun.source.tree.UnaryTree;
 
 import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.block.Block;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.javacutil.BugInCF;
@@ -74,6 +75,13 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
     protected final Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
             analysisCaches;
 
+    /**
+     * Checkpoints within long regular blocks. Maps a regular block to its checkpoints.
+     *
+     * @see AbstractAnalysis#checkpoints
+     */
+    protected final IdentityHashMap<Block, BlockCheckpoints<V, S>> checkpoints;
+
     /** The unique ID for the next-created object. */
     private static final AtomicLong nextUid = new AtomicLong(0);
 
@@ -102,6 +110,35 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
             IdentityHashMap<UnaryTree, BinaryTree> postfixLookup,
             Map<VariableElement, V> finalLocalValues,
             Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
+        this(
+                nodeValues,
+                inputs,
+                treeLookup,
+                postfixLookup,
+                finalLocalValues,
+                analysisCaches,
+                new IdentityHashMap<>());
+    }
+
+    /**
+     * Initialize with given mappings.
+     *
+     * @param nodeValues {@link #nodeValues}
+     * @param inputs {@link #inputs}
+     * @param treeLookup {@link #treeLookup}
+     * @param postfixLookup {@link #postfixLookup}
+     * @param finalLocalValues {@link #finalLocalValues}
+     * @param analysisCaches {@link #analysisCaches}
+     * @param checkpoints {@link #checkpoints}
+     */
+    protected AnalysisResult(
+            IdentityHashMap<Node, V> nodeValues,
+            IdentityHashMap<Block, TransferInput<V, S>> inputs,
+            IdentityHashMap<Tree, Set<Node>> treeLookup,
+            IdentityHashMap<UnaryTree, BinaryTree> postfixLookup,
+            Map<VariableElement, V> finalLocalValues,
+            Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches,
+            IdentityHashMap<Block, BlockCheckpoints<V, S>> checkpoints) {
         this.nodeValues = UnmodifiableIdentityHashMap.wrap(nodeValues);
         this.treeLookup = UnmodifiableIdentityHashMap.wrap(treeLookup);
         this.postfixLookup = UnmodifiableIdentityHashMap.wrap(postfixLookup);
@@ -109,6 +146,9 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
         this.inputs = inputs;
         this.finalLocalValues = finalLocalValues;
         this.analysisCaches = analysisCaches;
+        // Unlike the other maps, the checkpoints are copied eagerly: the analysis clears its map
+        // when it analyzes the next control flow graph.
+        this.checkpoints = new IdentityHashMap<>(checkpoints);
     }
 
     /**
@@ -135,6 +175,33 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
                 new IdentityHashMap<>());
     }
 
+    /**
+     * Initialize with given mappings and empty cache.
+     *
+     * @param nodeValues {@link #nodeValues}
+     * @param inputs {@link #inputs}
+     * @param treeLookup {@link #treeLookup}
+     * @param postfixLookup {@link #postfixLookup}
+     * @param finalLocalValues {@link #finalLocalValues}
+     * @param checkpoints {@link #checkpoints}
+     */
+    public AnalysisResult(
+            IdentityHashMap<Node, V> nodeValues,
+            IdentityHashMap<Block, TransferInput<V, S>> inputs,
+            IdentityHashMap<Tree, Set<Node>> treeLookup,
+            IdentityHashMap<UnaryTree, BinaryTree> postfixLookup,
+            Map<VariableElement, V> finalLocalValues,
+            IdentityHashMap<Block, BlockCheckpoints<V, S>> checkpoints) {
+        this(
+                nodeValues,
+                inputs,
+                treeLookup,
+                postfixLookup,
+                finalLocalValues,
+                new IdentityHashMap<>(),
+                checkpoints);
+    }
+
     /**
      * Initialize empty result with specified cache.
      *
@@ -163,6 +230,31 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
         postfixLookup.putAll(other.postfixLookup);
         inputs.putAll(other.inputs);
         finalLocalValues.putAll(other.finalLocalValues);
+        checkpoints.putAll(other.checkpoints);
+    }
+
+    /**
+     * Removes the results for the nodes, blocks, and trees of {@code cfg}, which must have been
+     * combined into this result. The values of effectively final local variables are kept, because
+     * code analyzed later may capture those variables.
+     *
+     * @param cfg a control flow graph whose results are no longer needed
+     */
+    public void removeResultsFor(ControlFlowGraph cfg) {
+        copyMapsIfNeeded();
+        for (Block block : cfg.getAllBlocks()) {
+            inputs.remove(block);
+            checkpoints.remove(block);
+            for (Node node : block.getNodes()) {
+                nodeValues.remove(node);
+            }
+        }
+        for (Tree tree : cfg.getTreeLookup().keySet()) {
+            treeLookup.remove(tree);
+        }
+        for (UnaryTree tree : cfg.getPostfixNodeLookup().keySet()) {
+            postfixLookup.remove(tree);
+        }
     }
 
     /** Make copies of certain internal IdentityHashMaps, if they have not been copied already. */
@@ -384,7 +476,8 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
                             Analysis.BeforeOrAfter.AFTER,
                             transferInput,
                             nodeValues,
-                            analysisCaches);
+                            analysisCaches,
+                            checkpoints);
                 }
             case BACKWARD:
                 return transferInput.getRegularStore();
@@ -454,7 +547,8 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
         // them.
         // TODO: Wouldn't it be safer to do at the beginning of the called method?
         copyMapsIfNeeded();
-        return runAnalysisFor(node, preOrPost, transferInput, nodeValues, analysisCaches);
+        return transferInput.analysis.runAnalysisFor(
+                node, preOrPost, transferInput, nodeValues, analysisCaches, checkpoints);
     }
 
     /**
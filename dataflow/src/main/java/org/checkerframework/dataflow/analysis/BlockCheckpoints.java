@@ -0,0 +1,116 @@
+package org.checkerframework.dataflow.analysis;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.javacutil.BugInCF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The checkpoints of one regular block: copies of the transfer input after every {@code k}-th node
+ * of the block, where {@code k} is the checkpoint interval. A forward analysis records them during
+ * its fixpoint iteration; the last pass over a block overwrites the checkpoints of earlier passes.
+ *
+ * <p>To find the store before or after a node, an analysis starts at the closest checkpoint before
+ * the node, instead of at the beginning of the block. Both finding the node and finding the
+ * checkpoint take constant time, so at most {@code k} transfer functions run per lookup.
+ *
+ * @param <V> type of the abstract value that is tracked
+ * @param <S> the store type used in the analysis
+ * @see AbstractAnalysis#checkpoints
+ */
+public final class BlockCheckpoints<V extends AbstractValue<V>, S extends Store<S>> {
+
+    /** The number of nodes between two checkpoints. */
+    private final int interval;
+
+    /** Maps each node of the block to its index in the block. */
+    private final IdentityHashMap<Node, Integer> nodeIndices;
+
+    /**
+     * Element {@code j} is the transfer input after the node at index {@code (j + 1) * interval -
+     * 1}, or null if it has not been recorded yet. There is no checkpoint after the last node of
+     * the block.
+     */
+    private final List<@Nullable TransferInput<V, S>> inputs;
+
+    /**
+     * Creates the checkpoints of a block, none of which has been recorded yet.
+     *
+     * @param nodes the nodes of the block
+     * @param interval the number of nodes between two checkpoints; must be positive
+     */
+    public BlockCheckpoints(List<Node> nodes, int interval) {
+        if (interval <= 0) {
+            throw new BugInCF("Non-positive checkpoint interval: " + interval);
+        }
+        this.interval = interval;
+        this.nodeIndices = new IdentityHashMap<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeIndices.put(nodes.get(i), i);
+        }
+        this.inputs = new ArrayList<>(Collections.nCopies((nodes.size() - 1) / interval, null));
+    }
+
+    /**
+     * Returns true if a checkpoint follows the node at {@code index}.
+     *
+     * @param index the index of a node in the block
+     * @return true if a checkpoint follows the node at {@code index}
+     */
+    public boolean isCheckpoint(int index) {
+        return (index + 1) % interval == 0 && (index + 1) / interval <= inputs.size();
+    }
+
+    /**
+     * Records the transfer input after the node at {@code index}, which must be a checkpoint. The
+     * caller must not modify {@code input} afterward.
+     *
+     * @param index the index of a node in the block
+     * @param input the transfer input after the node at {@code index}
+     */
+    public void record(int index, TransferInput<V, S> input) {
+        if (!isCheckpoint(index)) {
+            throw new BugInCF("No checkpoint after node %d", index);
+        }
+        inputs.set((index + 1) / interval - 1, input);
+    }
+
+    /**
+     * Returns the index of the node at which a replay that ends at {@code node} can start: the
+     * index right after the closest recorded checkpoint before {@code node}, or 0 if there is
+     * none.
+     *
+     * @param node a node of the block
+     * @return the index of the node at which a replay that ends at {@code node} can start
+     */
+    public int getStartIndex(Node node) {
+        Integer index = nodeIndices.get(node);
+        if (index == null) {
+            return 0;
+        }
+        int j = index / interval;
+        while (j > 0 && inputs.get(j - 1) == null) {
+            j--;
+        }
+        return j * interval;
+    }
+
+    /**
+     * Returns the transfer input before the node at {@code startIndex}, which was returned by
+     * {@link #getStartIndex} and is not 0.
+     *
+     * @param startIndex an index returned by {@link #getStartIndex}, other than 0
+     * @return the transfer input before the node at {@code startIndex}
+     */
+    public TransferInput<V, S> getInputBefore(int startIndex) {
+        TransferInput<V, S> input = inputs.get(startIndex / interval - 1);
+        if (startIndex % interval != 0 || input == null) {
+            throw new BugInCF("No checkpoint before node %d", startIndex);
+        }
+        return input;
+    }
+}
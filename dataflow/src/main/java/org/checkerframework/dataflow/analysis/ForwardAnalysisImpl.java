@@ -128,11 +128,24 @@ public class ForwardAnalysisImpl<
                     currentInput = inputBefore.copy();
                     Node lastNode = null;
                     boolean addToWorklistAgain = false;
-                    for (Node n : rb.getNodes()) {
+                    List<Node> nodes = rb.getNodes();
+                    BlockCheckpoints<V, S> blockCheckpoints = null;
+                    if (checkpointInterval > 0 && nodes.size() > checkpointInterval) {
+                        int interval = checkpointInterval;
+                        blockCheckpoints =
+                                checkpoints.computeIfAbsent(
+                                        rb, __ -> new BlockCheckpoints<>(nodes, interval));
+                    }
+                    for (int i = 0; i < nodes.size(); i++) {
+                        Node n = nodes.get(i);
                         assert currentInput != null : "@AssumeAssertion(nullness): invariant";
                         TransferResult<V, S> transferResult = callTransferFunction(n, currentInput);
                         addToWorklistAgain |= updateNodeValues(n, transferResult);
                         currentInput = new TransferInput<>(n, this, transferResult);
+                        if (blockCheckpoints != null && blockCheckpoints.isCheckpoint(i)) {
+                            // The next node mutates currentInput, so record a copy.
+                            blockCheckpoints.record(i, currentInput.copy());
+                        }
                         lastNode = n;
                     }
                     assert currentInput != null : "@AssumeAssertion(nullness): invariant";
@@ -249,6 +262,24 @@ public class ForwardAnalysisImpl<
             IdentityHashMap<Node, V> nodeValues,
             @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
                     analysisCaches) {
+        return runAnalysisFor(
+                node,
+                preOrPost,
+                blockTransferInput,
+                nodeValues,
+                analysisCaches,
+                Collections.emptyMap());
+    }
+
+    @Override
+    public S runAnalysisFor(
+            @FindDistinct Node node,
+            Analysis.BeforeOrAfter preOrPost,
+            TransferInput<V, S> blockTransferInput,
+            IdentityHashMap<Node, V> nodeValues,
+            @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
+                    analysisCaches,
+            Map<Block, BlockCheckpoints<V, S>> checkpoints) {
         Block block = node.getBlock();
         assert block != null : "@AssumeAssertion(nullness): invariant";
         Node oldCurrentNode = currentNode;
@@ -274,11 +305,20 @@ public class ForwardAnalysisImpl<
                 case REGULAR_BLOCK:
                     {
                         RegularBlock rb = (RegularBlock) block;
+                        List<Node> nodes = rb.getNodes();
                         // Apply transfer function to contents until we found the node we are
-                        // looking for.
+                        // looking for, starting at the last checkpoint before it, if any.
                         TransferInput<V, S> store = blockTransferInput;
+                        int start = 0;
+                        BlockCheckpoints<V, S> blockCheckpoints = checkpoints.get(rb);
+                        if (blockCheckpoints != null) {
+                            start = blockCheckpoints.getStartIndex(node);
+                            if (start != 0) {
+                                store = blockCheckpoints.getInputBefore(start);
+                            }
+                        }
                         TransferResult<V, S> transferResult;
-                        for (Node n : rb.getNodes()) {
+                        for (Node n : nodes.subList(start, nodes.size())) {
                             setCurrentNode(n);
                             if (n == node && preOrPost == Analysis.BeforeOrAfter.BEFORE) {
                                 return store.getRegularStore();
@@ -75,6 +75,7 @@ import org.checkerframework.framework.qual.HasQualifierParameter;
 import org.checkerframework.framework.qual.TargetLocations;
 import org.checkerframework.framework.qual.TypeUseLocation;
 import org.checkerframework.framework.qual.Unused;
+import org.checkerframework.framework.source.CheckerProfiler;
 import org.checkerframework.framework.source.DiagMessage;
 import org.checkerframework.framework.source.SourceVisitor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -1077,8 +1078,20 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
         if (checker.shouldSkipDefs(enclosingClass, tree)) {
             return null;
         }
-        // TODO: should we pass along the `enclosingClass`, to avoid re-computation?
-        processMethodTree(enclosingClass.getSimpleName().toString(), tree);
+        CheckerProfiler profiler = checker.getProfiler();
+        long startNanos = profiler.start();
+        try {
+            // TODO: should we pass along the `enclosingClass`, to avoid re-computation?
+            processMethodTree(enclosingClass.getSimpleName().toString(), tree);
+        } finally {
+            if (profiler.isEnabled()) {
+                // SourceChecker already records the visitor time of the whole class.
+                profiler.stopNested(
+                        CheckerProfiler.Phase.VISITOR,
+                        TreeUtils.elementFromDeclaration(tree),
+                        startNanos);
+            }
+        }
         return null;
     }
 
@@ -27,8 +27,19 @@ class RangeOrListOfValues {
     private List<Integer> values;
     private boolean isRange;
 
-    public RangeOrListOfValues(List<Integer> values) {
+    /** The maximum number of values in the list; more values are converted to a range. */
+    private int maxValues;
+
+    /**
+     * Creates a list of values.
+     *
+     * @param values the values
+     * @param maxValues the maximum number of values in the list; see {@link
+     *     ValueAnnotatedTypeFactory#getMaxValues}
+     */
+    public RangeOrListOfValues(List<Integer> values, int maxValues) {
         this.values = new ArrayList<>();
+        this.maxValues = maxValues;
         isRange = false;
         addAll(values);
     }
@@ -66,7 +77,7 @@ class RangeOrListOfValues {
                     values.add(i);
                 }
             }
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > maxValues) {
                 convertToRange();
             }
         }
@@ -21,7 +21,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -52,6 +54,28 @@ public class ReflectiveEvaluator {
      */
     private final boolean reportWarnings;
 
+    /** The maximum number of evaluation results that are remembered. */
+    private static final int RESULT_CACHE_SIZE = 1000;
+
+    /**
+     * The Method object for each method that has been evaluated, or null if the method could not
+     * be found.
+     */
+    private final Map<ExecutableElement, @Nullable Method> methods = new HashMap<>();
+
+    /**
+     * The Constructor object for each constructor that has been evaluated, or null if the
+     * constructor could not be found.
+     */
+    private final Map<ExecutableElement, @Nullable Constructor<?>> constructors = new HashMap<>();
+
+    /**
+     * Maps a method or constructor call to its result. A key is a list of the {@link Method} or
+     * {@link Constructor}, the receiver, and the arguments; see {@link #resultKey}. Only calls
+     * whose receiver, arguments, and result are immutable values are remembered.
+     */
+    private final Map<List<@Nullable Object>, Object> resultCache;
+
     /**
      * Create a new ReflectiveEvaluator.
      *
@@ -63,6 +87,11 @@ public class ReflectiveEvaluator {
             BaseTypeChecker checker, ValueAnnotatedTypeFactory factory, boolean reportWarnings) {
         this.checker = checker;
         this.reportWarnings = reportWarnings;
+        this.resultCache =
+                checker.getProfiler()
+                        .countLookups(
+                                "ReflectiveEvaluator.resultCache",
+                                CollectionsPlume.createLruCache(RESULT_CACHE_SIZE));
     }
 
     /**
@@ -112,8 +141,18 @@ public class ReflectiveEvaluator {
         List<Object> results = new ArrayList<>(listOfArguments.size());
         for (Object[] arguments : listOfArguments) {
             for (Object receiver : receiverValues) {
+                List<@Nullable Object> key = resultKey(method, receiver, arguments);
+                Object result = key == null ? null : resultCache.get(key);
+                if (result != null) {
+                    results.add(result);
+                    continue;
+                }
                 try {
-                    results.add(method.invoke(receiver, arguments));
+                    result = method.invoke(receiver, arguments);
+                    results.add(result);
+                    if (key != null && result != null && isImmutableValue(result)) {
+                        resultCache.put(key, result);
+                    }
                 } catch (InvocationTargetException e) {
                     if (reportWarnings) {
                         checker.reportWarning(
@@ -156,6 +195,55 @@ public class ReflectiveEvaluator {
         return results;
     }
 
+    /**
+     * Returns the key under which the result of a call is remembered, or null if the call's result
+     * should not be remembered because its receiver or an argument is not an immutable value.
+     *
+     * @param member the {@link Method} or {@link Constructor} that is called
+     * @param receiver the receiver, or null if there is none
+     * @param arguments the arguments, or null if there are none
+     * @return the key for the result of the call, or null
+     */
+    private static @Nullable List<@Nullable Object> resultKey(
+            Object member, @Nullable Object receiver, Object @Nullable [] arguments) {
+        if (!isImmutableValue(receiver)) {
+            return null;
+        }
+        int numArguments = arguments == null ? 0 : arguments.length;
+        List<@Nullable Object> key = new ArrayList<>(numArguments + 2);
+        key.add(member);
+        key.add(receiver);
+        if (arguments != null) {
+            for (Object argument : arguments) {
+                if (!isImmutableValue(argument)) {
+                    return null;
+                }
+                key.add(argument);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns true if {@code value} is null, a string, or a boxed primitive. Such values are never
+     * modified, and two of them are interchangeable if they are equal.
+     *
+     * @param value a receiver, argument, or result of a call
+     * @return true if {@code value} is null, a string, or a boxed primitive
+     */
+    private static boolean isImmutableValue(@Nullable Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Byte
+                || value instanceof Short
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Float
+                || value instanceof Double;
+    }
+
     /** An empty Object array. */
     private static final Object[] emptyObjectArray = new Object[] {};
 
@@ -191,13 +279,31 @@ public class ReflectiveEvaluator {
 
     /**
      * Method for reflectively obtaining a method object so it can (potentially) be statically
-     * executed by the checker for constant propagation.
+     * executed by the checker for constant propagation. The method object for each method is
+     * looked up only once.
      *
      * @param tree a method invocation tree
      * @return the Method object corresponding to the method invocation tree
      */
     private @Nullable Method getMethodObject(MethodInvocationTree tree) {
         ExecutableElement ele = TreeUtils.elementFromUse(tree);
+        Method method = methods.get(ele);
+        // If the lookup failed before, look it up again only to report the failure at this call.
+        if (method == null && (reportWarnings || !methods.containsKey(ele))) {
+            method = lookUpMethodObject(ele, tree);
+            methods.put(ele, method);
+        }
+        return method;
+    }
+
+    /**
+     * Reflectively obtains a method object.
+     *
+     * @param ele a method
+     * @param tree an invocation of {@code ele}, used for diagnostics
+     * @return the Method object corresponding to {@code ele}, or null if it cannot be found
+     */
+    private @Nullable Method lookUpMethodObject(ExecutableElement ele, MethodInvocationTree tree) {
         List<Class<?>> paramClasses = null;
         try {
             @CanonicalNameOrEmpty String className =
@@ -336,16 +442,20 @@ public class ReflectiveEvaluator {
 
     public @Nullable List<?> evaluteConstructorCall(
             List<List<?>> argValues, NewClassTree tree, TypeMirror typeToCreate) {
-        Constructor<?> constructor;
-        try {
-            // get the constructor
-            constructor = getConstructorObject(tree, typeToCreate);
-        } catch (Throwable e) {
-            // Catch all exception so that the checker doesn't crash
-            if (reportWarnings) {
-                checker.reportWarning(tree, "constructor.invocation.failed");
+        ExecutableElement ele = TreeUtils.elementFromUse(tree);
+        Constructor<?> constructor = constructors.get(ele);
+        // If the lookup failed before, look it up again only to report the failure at this call.
+        if (constructor == null && (reportWarnings || !constructors.containsKey(ele))) {
+            try {
+                // get the constructor
+                constructor = getConstructorObject(ele, typeToCreate);
+            } catch (Throwable e) {
+                // Catch all exception so that the checker doesn't crash
+                if (reportWarnings) {
+                    checker.reportWarning(tree, "constructor.invocation.failed");
+                }
             }
-            return null;
+            constructors.put(ele, constructor);
         }
         if (constructor == null) {
             return null;
@@ -362,8 +472,18 @@ public class ReflectiveEvaluator {
 
         List<Object> results = new ArrayList<>(listOfArguments.size());
         for (Object[] arguments : listOfArguments) {
+            List<@Nullable Object> key = resultKey(constructor, null, arguments);
+            Object result = key == null ? null : resultCache.get(key);
+            if (result != null) {
+                results.add(result);
+                continue;
+            }
             try {
-                results.add(constructor.newInstance(arguments));
+                result = constructor.newInstance(arguments);
+                results.add(result);
+                if (key != null && result != null && isImmutableValue(result)) {
+                    resultCache.put(key, result);
+                }
             } catch (Throwable e) {
                 if (reportWarnings) {
                     checker.reportWarning(
@@ -378,9 +498,8 @@ public class ReflectiveEvaluator {
         return results;
     }
 
-    private Constructor<?> getConstructorObject(NewClassTree tree, TypeMirror typeToCreate)
+    private Constructor<?> getConstructorObject(ExecutableElement ele, TypeMirror typeToCreate)
             throws ClassNotFoundException, NoSuchMethodException {
-        ExecutableElement ele = TreeUtils.elementFromUse(tree);
         List<Class<?>> paramClasses = getParameterClasses(ele);
         Class<?> recClass = boxPrimitives(TypesUtils.getClassFromType(typeToCreate));
         Constructor<?> constructor = recClass.getConstructor(paramClasses.toArray(new Class<?>[0]));
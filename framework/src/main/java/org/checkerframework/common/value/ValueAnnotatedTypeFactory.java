@@ -30,6 +30,7 @@ import org.checkerframework.common.value.qual.StringVal;
 import org.checkerframework.common.value.qual.UnknownVal;
 import org.checkerframework.common.value.util.NumberUtils;
 import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.SortedLongSet;
 import org.checkerframework.dataflow.expression.ArrayAccess;
 import org.checkerframework.dataflow.expression.ArrayCreation;
 import org.checkerframework.dataflow.expression.JavaExpression;
@@ -60,6 +61,7 @@ import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypeKindUtils;
 import org.checkerframework.javacutil.TypeSystemError;
 import org.checkerframework.javacutil.TypesUtils;
+import org.checkerframework.javacutil.UserError;
 import org.plumelib.util.ArraySet;
 import org.plumelib.util.CollectionsPlume;
 
@@ -70,6 +72,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.regex.Pattern;
@@ -137,9 +140,25 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     public static final String DOES_NOT_MATCH_REGEX_NAME =
             "org.checkerframework.common.value.qual.DoesNotMatchRegex";
 
-    /** The maximum number of values allowed in an annotation's array. */
+    /**
+     * The default maximum number of values allowed in an annotation's array. The {@code
+     * -AmaxValues} command-line option overrides it; see {@link #getMaxValues}.
+     */
     protected static final int MAX_VALUES = 10;
 
+    /**
+     * The largest value of the {@code -AmaxValues} command-line option. A set of values is stored
+     * as an array in each annotation, and a range is expanded into such an array, so the limit
+     * bounds the size of each annotation.
+     */
+    protected static final int MAX_MAX_VALUES = 1000;
+
+    /**
+     * The maximum number of values allowed in an annotation's array. Initialized here rather than
+     * in the constructor because the field initializers below already create annotations.
+     */
+    private final int maxValues = readMaxValuesOption(checker);
+
     /** The top type for this hierarchy. */
     protected final AnnotationMirror UNKNOWNVAL =
             AnnotationBuilder.fromClass(elements, UnknownVal.class);
@@ -227,6 +246,15 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** Helper class that holds references to special methods. */
     private final ValueMethodIdentifier methods;
 
+    /**
+     * Maps an {@code @IntVal} annotation to its values. {@link AnnotationMirror} does not override
+     * {@code equals}, so this cache compares annotations by identity, and it only pays off because
+     * {@link AnnotationBuilder} interns the annotations it builds: the same {@code @IntVal}
+     * instance is looked up again and again. An annotation that javac read from source or bytecode
+     * is a different instance from a built one with the same values and gets its own entry.
+     */
+    private final Map<AnnotationMirror, SortedLongSet> intValueSets;
+
     @SuppressWarnings({
         "StaticAssignmentInConstructor", // static Range.ignoreOverflow is gross
         "this-escape"
@@ -237,6 +265,11 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         reportEvalWarnings = checker.hasOption(ValueChecker.REPORT_EVAL_WARNS);
         Range.ignoreOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
         evaluator = new ReflectiveEvaluator(checker, this, reportEvalWarnings);
+        intValueSets =
+                checker.getProfiler()
+                        .countLookups(
+                                getClass().getSimpleName() + ".intValueSets",
+                                CollectionsPlume.createLruCache(getCacheSize()));
 
         addAliasedTypeAnnotation("android.support.annotation.IntRange", IntRange.class, true);
 
@@ -294,6 +327,43 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         return methods;
     }
 
+    /**
+     * Returns the value of the {@code -AmaxValues} command-line option, or {@link #MAX_VALUES} if
+     * it is not supplied. Rejects values that are not positive or that are larger than {@link
+     * #MAX_MAX_VALUES}.
+     *
+     * @param checker the checker
+     * @return the maximum number of values allowed in an annotation's array
+     */
+    private static int readMaxValuesOption(BaseTypeChecker checker) {
+        String option = checker.getOption(ValueChecker.MAX_VALUES);
+        if (option == null) {
+            return MAX_VALUES;
+        }
+        int result;
+        try {
+            result = Integer.parseInt(option);
+        } catch (NumberFormatException e) {
+            result = 0;
+        }
+        if (result <= 0 || result > MAX_MAX_VALUES) {
+            throw new UserError(
+                    "%s must be a positive integer no larger than %d: %s",
+                    ValueChecker.MAX_VALUES, MAX_MAX_VALUES, option);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of values allowed in an annotation's array. A set of more values
+     * is represented by a range, or by {@code @UnknownVal} if the values are not integral.
+     *
+     * @return the maximum number of values allowed in an annotation's array
+     */
+    public int getMaxValues() {
+        return maxValues;
+    }
+
     @Override
     protected void applyInferredAnnotations(AnnotatedTypeMirror type, CFValue inferred) {
         // Inference can widen an IntRange beyond the values possible for the Java type. Change the
@@ -875,8 +945,9 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /**
      * Returns a {@link IntVal} or {@link IntRange} annotation using the values. If {@code values}
      * is null, then UnknownVal is returned; if {@code values} is empty, then bottom is returned. If
-     * the number of {@code values} is greater than MAX_VALUES, return an {@link IntRange}. In other
-     * cases, the values are sorted and duplicates are removed before an {@link IntVal} is created.
+     * the number of {@code values} is greater than {@link #getMaxValues}, return an {@link
+     * IntRange}. In other cases, the values are sorted and duplicates are removed before an {@link
+     * IntVal} is created.
      *
      * @param values list of longs; duplicates are allowed and the values may be in any order
      * @return an annotation depends on the values
@@ -885,19 +956,29 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (values == null) {
             return UNKNOWNVAL;
         }
+        return createIntValAnnotation(SortedLongSet.of(values));
+    }
+
+    /**
+     * Returns an {@code @IntVal} annotation with the given values. If {@code values} is empty,
+     * then bottom is returned. If it contains more than {@link #getMaxValues} values, then an
+     * {@code @IntRange} annotation is returned.
+     *
+     * @param values the possible values
+     * @return an annotation that represents {@code values}
+     */
+    public AnnotationMirror createIntValAnnotation(SortedLongSet values) {
         if (values.isEmpty()) {
             return BOTTOMVAL;
         }
-        values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
-            long valMin = values.get(0);
-            long valMax = values.get(values.size() - 1);
-            return createIntRangeAnnotation(valMin, valMax);
-        } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntVal.class);
-            builder.setValue("value", values);
-            return builder.build();
+        if (values.size() > maxValues) {
+            return createIntRangeAnnotation(values.min(), values.max());
         }
+        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntVal.class);
+        builder.setValue("value", values.toList());
+        AnnotationMirror result = builder.build();
+        intValueSets.put(result, values);
+        return result;
     }
 
     /**
@@ -908,9 +989,8 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      * @return an {@code @IntVal} annotation corresponding to the argument
      */
     public AnnotationMirror convertIntRangeToIntVal(AnnotationMirror intRangeAnno) {
-        Range range = getRange(intRangeAnno);
-        List<Long> values = ValueCheckerUtils.getValuesFromRange(range, Long.class);
-        return createIntValAnnotation(values);
+        SortedLongSet values = SortedLongSet.fromRange(getRange(intRangeAnno), maxValues);
+        return values == null ? UNKNOWNVAL : createIntValAnnotation(values);
     }
 
     /**
@@ -929,7 +1009,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             AnnotationBuilder builder = new AnnotationBuilder(processingEnv, DoubleVal.class);
@@ -977,7 +1057,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             // Too many strings are replaced by their lengths
             List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
             return createArrayLenAnnotation(lengths);
@@ -1008,7 +1088,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         values = CollectionsPlume.withoutDuplicatesSorted(values);
         if (values.isEmpty() || Collections.min(values) < 0) {
             return BOTTOMVAL;
-        } else if (values.size() > MAX_VALUES) {
+        } else if (values.size() > maxValues) {
             return createArrayLenRangeAnnotation(Collections.min(values), Collections.max(values));
         } else {
             AnnotationBuilder builder = new AnnotationBuilder(processingEnv, ArrayLen.class);
@@ -1033,7 +1113,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             // TODO: This seems wasteful.  Why not create the 3 interesting AnnotationMirrors (with
@@ -1062,7 +1142,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             List<Long> longValues =
@@ -1087,7 +1167,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = CollectionsPlume.withoutDuplicatesSorted(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             return createDoubleValAnnotation(values);
@@ -1147,11 +1227,12 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         } else if (range.isLongEverything()) {
             return UNKNOWNVAL;
-        } else if (range.isWiderThan(MAX_VALUES)) {
+        }
+        SortedLongSet values = SortedLongSet.fromRange(range, maxValues);
+        if (values == null) {
             return createIntRangeAnnotation(range.from, range.to);
         } else {
-            List<Long> newValues = ValueCheckerUtils.getValuesFromRange(range, Long.class);
-            return createIntValAnnotation(newValues);
+            return createIntValAnnotation(values);
         }
     }
 
@@ -1273,8 +1354,8 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     /**
      * Converts a {@code @StringVal} annotation to an {@code @ArrayLen} annotation. If the
-     * {@code @StringVal} annotation contains string values of more than MAX_VALUES distinct
-     * lengths, {@code @ArrayLenRange} annotation is returned instead.
+     * {@code @StringVal} annotation contains string values of more than {@link #getMaxValues}
+     * distinct lengths, {@code @ArrayLenRange} annotation is returned instead.
      *
      * @param stringValAnno a {@code @StringVal} annotation
      * @return a corresponding {@code @ArrayLen} annotation
@@ -1312,8 +1393,8 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     /** Converts an {@code @IntVal} annotation to an {@code @IntRange} annotation. */
     public AnnotationMirror convertIntValToIntRange(AnnotationMirror intValAnno) {
-        List<Long> intValues = getIntValues(intValAnno);
-        return createIntRangeAnnotation(Collections.min(intValues), Collections.max(intValues));
+        SortedLongSet intValues = getIntValueSet(intValAnno);
+        return createIntRangeAnnotation(intValues.min(), intValues.max());
     }
 
     /**
@@ -1337,7 +1418,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             case INTRANGE_FROMGTENEGONE_NAME:
                 return Range.create(-1, Integer.MAX_VALUE);
             case INTVAL_NAME:
-                return ValueCheckerUtils.getRangeFromValues(getIntValues(rangeAnno));
+                return getIntValueSet(rangeAnno).toRange();
             case INTRANGE_NAME:
                 // Assume rangeAnno is well-formed, i.e., 'from' is less than or equal to 'to'.
                 return Range.create(getIntRangeFromValue(rangeAnno), getIntRangeToValue(rangeAnno));
@@ -1365,10 +1446,29 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (intAnno == null) {
             return null;
         }
-        List<Long> list =
-                AnnotationUtils.getElementValueArray(intAnno, intValValueElement, Long.class);
-        list = CollectionsPlume.withoutDuplicatesSorted(list);
-        return list;
+        return getIntValueSet(intAnno).toList();
+    }
+
+    /**
+     * Returns the possible values of an {@code @IntVal} annotation. Returns the empty set if no
+     * values are possible (for dead code).
+     *
+     * <p>Prefer this method to {@link #getIntValues} for computations on the values: it does not
+     * box them, and it reads the values of each annotation only once.
+     *
+     * @param intAnno an {@code @IntVal} annotation
+     * @return the possible values
+     */
+    public SortedLongSet getIntValueSet(AnnotationMirror intAnno) {
+        SortedLongSet result = intValueSets.get(intAnno);
+        if (result == null) {
+            result =
+                    SortedLongSet.of(
+                            AnnotationUtils.getElementValueArray(
+                                    intAnno, intValValueElement, Long.class));
+            intValueSets.put(intAnno, result);
+        }
+        return result;
     }
 
     /**
@@ -1677,8 +1777,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     public @Nullable Long getMinimumIntegralValue(AnnotatedTypeMirror atm) {
         AnnotationMirror anm = atm.getAnnotationInHierarchy(UNKNOWNVAL);
         if (AnnotationUtils.areSameByName(anm, INTVAL_NAME)) {
-            List<Long> possibleValues = getIntValues(anm);
-            return Collections.min(possibleValues);
+            return getIntValueSet(anm).min();
         } else if (isIntRange(anm)) {
             Range range = getRange(anm);
             return range.from;
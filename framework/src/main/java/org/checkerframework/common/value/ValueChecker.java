@@ -23,7 +23,8 @@ import java.util.Set;
 @SupportedOptions({
     ValueChecker.REPORT_EVAL_WARNS,
     ValueChecker.IGNORE_RANGE_OVERFLOW,
-    ValueChecker.NON_NULL_STRINGS_CONCATENATION
+    ValueChecker.NON_NULL_STRINGS_CONCATENATION,
+    ValueChecker.MAX_VALUES
 })
 public class ValueChecker extends BaseTypeChecker {
     /**
@@ -38,6 +39,13 @@ public class ValueChecker extends BaseTypeChecker {
     /** Command-line option that assumes most expressions in String concatenations can be null. */
     public static final String NON_NULL_STRINGS_CONCATENATION = "nonNullStringsConcatenation";
 
+    /**
+     * Command-line option to set the maximum number of values in a constant-value annotation such
+     * as {@code @IntVal}. A larger set of values is approximated by a range or by {@code
+     * UnknownVal}. The value must be between 1 and 1000.
+     */
+    public static final String MAX_VALUES = "maxValues";
+
     @Override
     protected BaseTypeVisitor<?> createSourceVisitor() {
         return new ValueVisitor(this);
@@ -73,7 +73,8 @@ public class ValueCheckerUtils {
                 break;
             case ValueAnnotatedTypeFactory.INTRANGE_NAME:
                 Range range = atypeFactory.getRange(anno);
-                List<Long> rangeValues = getValuesFromRange(range, Long.class);
+                List<Long> rangeValues =
+                        getValuesFromRange(range, Long.class, atypeFactory.getMaxValues());
                 values = convertIntVal(rangeValues, castType, castTo, isUnsigned);
                 break;
             case ValueAnnotatedTypeFactory.STRINGVAL_NAME:
@@ -148,7 +149,27 @@ public class ValueCheckerUtils {
      */
     public static <T> @Nullable List<T> getValuesFromRange(
             @Nullable Range range, Class<T> expectedType) {
-        if (range == null || range.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+        return getValuesFromRange(range, expectedType, ValueAnnotatedTypeFactory.MAX_VALUES);
+    }
+
+    /**
+     * Get all possible values from the given type and cast them into a boxed primitive type.
+     * Returns null if the list would have length greater than {@code maxValues}.
+     *
+     * <p>{@code expectedType} must be a boxed type, not a primitive type, because primitive types
+     * cannot be stored in a list.
+     *
+     * @param <T> the type of the values to obtain
+     * @param range the given range
+     * @param expectedType the expected type
+     * @param maxValues the maximum number of values, usually {@link
+     *     ValueAnnotatedTypeFactory#getMaxValues}
+     * @return a list of all the values in the range, or null if there would be more than {@code
+     *     maxValues}
+     */
+    public static <T> @Nullable List<T> getValuesFromRange(
+            @Nullable Range range, Class<T> expectedType, int maxValues) {
+        if (range == null || range.isWiderThan(maxValues)) {
             return null;
         }
         if (range.isNothing()) {
@@ -156,7 +177,7 @@ public class ValueCheckerUtils {
         }
 
         // The subtraction does not overflow, because the width has already been checked, so the
-        // bound difference is less than ValueAnnotatedTypeFactory.MAX_VALUES.
+        // bound difference is less than maxValues.
         long boundDifference = range.to - range.from;
 
         // Each value is computed as a sum of the first value and an offset within the range,
@@ -3,6 +3,7 @@ package org.checkerframework.common.value;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.regex.qual.Regex;
 import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.SortedLongSet;
 import org.checkerframework.framework.type.ElementQualifierHierarchy;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.TypeSystemError;
@@ -142,7 +143,7 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
 
     @Override
     public int numberOfIterationsBeforeWidening() {
-        return ValueAnnotatedTypeFactory.MAX_VALUES + 1;
+        return atypeFactory.getMaxValues() + 1;
     }
 
     @Override
@@ -264,8 +265,8 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                     Range range2 = atypeFactory.getRange(a2);
                     return atypeFactory.createArrayLenRangeAnnotation(range1.union(range2));
                 case ValueAnnotatedTypeFactory.INTVAL_NAME:
-                    List<Long> longs = atypeFactory.getIntValues(a1);
-                    CollectionsPlume.adjoinAll(longs, atypeFactory.getIntValues(a2));
+                    SortedLongSet longs =
+                            atypeFactory.getIntValueSet(a1).union(atypeFactory.getIntValueSet(a2));
                     return atypeFactory.createIntValAnnotation(longs);
                 case ValueAnnotatedTypeFactory.ARRAYLEN_NAME:
                     List<Integer> arrayLens = atypeFactory.getArrayLength(a1);
@@ -488,6 +489,10 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                 Range superRange = atypeFactory.getRange(superAnno);
                 Range subRange = atypeFactory.getRange(subAnno);
                 return superRange.contains(subRange);
+            } else if (subQualName.equals(ValueAnnotatedTypeFactory.INTVAL_NAME)) {
+                return atypeFactory
+                        .getIntValueSet(subAnno)
+                        .isSubsetOf(atypeFactory.getIntValueSet(superAnno));
             } else if (subQualName.equals(ValueAnnotatedTypeFactory.DOES_NOT_MATCH_REGEX_NAME)) {
                 List<String> superValues =
                         AnnotationUtils.getElementValueArray(
@@ -519,6 +524,9 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                                 atypeFactory.getIntValues(subAnno));
                 return superValues.containsAll(subValues);
             case ValueAnnotatedTypeFactory.INTVAL_NAME + ValueAnnotatedTypeFactory.INTRANGE_NAME:
+                return atypeFactory
+                        .getRange(superAnno)
+                        .contains(atypeFactory.getIntValueSet(subAnno).toRange());
             case ValueAnnotatedTypeFactory.ARRAYLEN_NAME
                     + ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME:
                 Range superRange = atypeFactory.getRange(superAnno);
@@ -527,22 +535,28 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                 return superRange.contains(subLongRange);
             case ValueAnnotatedTypeFactory.INTRANGE_NAME + ValueAnnotatedTypeFactory.DOUBLEVAL_NAME:
                 Range subRange = atypeFactory.getRange(subAnno);
-                if (subRange.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                if (subRange.isWiderThan(atypeFactory.getMaxValues())) {
                     return false;
                 }
                 List<Double> superDoubleValues = atypeFactory.getDoubleValues(superAnno);
                 List<Double> subDoubleValues =
-                        ValueCheckerUtils.getValuesFromRange(subRange, Double.class);
+                        ValueCheckerUtils.getValuesFromRange(
+                                subRange, Double.class, atypeFactory.getMaxValues());
                 return superDoubleValues.containsAll(subDoubleValues);
             case ValueAnnotatedTypeFactory.INTRANGE_NAME + ValueAnnotatedTypeFactory.INTVAL_NAME:
+                return atypeFactory
+                        .getIntValueSet(superAnno)
+                        .containsAll(atypeFactory.getRange(subAnno));
             case ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME
                     + ValueAnnotatedTypeFactory.ARRAYLEN_NAME:
                 Range subRange2 = atypeFactory.getRange(subAnno);
-                if (subRange2.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                if (subRange2.isWiderThan(atypeFactory.getMaxValues())) {
                     return false;
                 }
                 List<Long> superValues2 = atypeFactory.getArrayLenOrIntValue(superAnno);
-                List<Long> subValues2 = ValueCheckerUtils.getValuesFromRange(subRange2, Long.class);
+                List<Long> subValues2 =
+                        ValueCheckerUtils.getValuesFromRange(
+                                subRange2, Long.class, atypeFactory.getMaxValues());
                 return superValues2.containsAll(subValues2);
             case ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME
                     + ValueAnnotatedTypeFactory.STRINGVAL_NAME:
@@ -188,13 +188,16 @@ public class ValueTransfer extends CFTransfer {
             // @IntVal is not checked for, because if it is present, we would already have the
             // actual string values.
             Range lengthRange = getIntRangeStringLengthRange(subNode, p);
-            return ValueCheckerUtils.getValuesFromRange(lengthRange, Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    lengthRange, Integer.class, atypeFactory.getMaxValues());
         } else if (subNodeTypeKind == TypeKind.BYTE) {
             // bytes are between 1 and 4 characters long
-            return ValueCheckerUtils.getValuesFromRange(Range.create(1, 4), Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    Range.create(1, 4), Integer.class, atypeFactory.getMaxValues());
         } else if (subNodeTypeKind == TypeKind.SHORT) {
             // shorts are between 1 and 6 characters long
-            return ValueCheckerUtils.getValuesFromRange(Range.create(1, 6), Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    Range.create(1, 6), Integer.class, atypeFactory.getMaxValues());
         } else {
             return null;
         }
@@ -238,7 +241,9 @@ public class ValueTransfer extends CFTransfer {
             return getStringValues(((StringConversionNode) subNode).getOperand(), p);
         } else if (isIntRange(subNode, p)) {
             Range range = getIntRange(subNode, p);
-            List<Long> longValues = ValueCheckerUtils.getValuesFromRange(range, Long.class);
+            List<Long> longValues =
+                    ValueCheckerUtils.getValuesFromRange(
+                            range, Long.class, atypeFactory.getMaxValues());
             values = NumberUtils.castNumbers(subNode.getType(), longValues);
         } else {
             values = getNumericalValues(subNode, p);
@@ -311,7 +316,8 @@ public class ValueTransfer extends CFTransfer {
                     qualHierarchy.findAnnotationInHierarchy(
                             value.getAnnotations(), atypeFactory.UNKNOWNVAL);
             Range range = atypeFactory.getRange(intAnno);
-            return ValueCheckerUtils.getValuesFromRange(range, Character.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    range, Character.class, atypeFactory.getMaxValues());
         }
 
         return Collections.emptyList();
@@ -396,8 +402,7 @@ public class ValueTransfer extends CFTransfer {
         } else if (atypeFactory.isIntRange(val)) {
             range = atypeFactory.getRange(val);
         } else if (AnnotationUtils.areSameByName(val, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
-            List<Long> values = atypeFactory.getIntValues(val);
-            range = ValueCheckerUtils.getRangeFromValues(values);
+            range = atypeFactory.getIntValueSet(val).toRange();
         } else if (AnnotationUtils.areSameByName(val, ValueAnnotatedTypeFactory.DOUBLEVAL_NAME)) {
             List<Double> values = atypeFactory.getDoubleValues(val);
             range = ValueCheckerUtils.getRangeFromValues(values);
@@ -584,7 +589,10 @@ public class ValueTransfer extends CFTransfer {
         } else if (AnnotationUtils.areSameByName(
                 lengthAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
             List<Long> lengthValues = atypeFactory.getIntValues(lengthAnno);
-            rolv = new RangeOrListOfValues(RangeOrListOfValues.convertLongsToInts(lengthValues));
+            rolv =
+                    new RangeOrListOfValues(
+                            RangeOrListOfValues.convertLongsToInts(lengthValues),
+                            atypeFactory.getMaxValues());
         } else {
             return;
         }
@@ -154,7 +154,8 @@ class ValueTreeAnnotator extends TreeAnnotator {
                 rolv =
                         new RangeOrListOfValues(
                                 RangeOrListOfValues.convertLongsToInts(
-                                        atypeFactory.getIntValues(dimType)));
+                                        atypeFactory.getIntValues(dimType)),
+                                atypeFactory.getMaxValues());
             }
             if (rolv != null) {
                 AnnotationMirror newQual = rolv.createAnnotation(atypeFactory);
@@ -201,7 +202,9 @@ class ValueTreeAnnotator extends TreeAnnotator {
                     if (rolv != null) {
                         rolv.addAll(currentLengths);
                     } else {
-                        arrayLenOfDimensions.add(new RangeOrListOfValues(currentLengths));
+                        arrayLenOfDimensions.add(
+                                new RangeOrListOfValues(
+                                        currentLengths, atypeFactory.getMaxValues()));
                     }
                 } else {
                     // Check for an arrayLenRange annotation
@@ -292,9 +295,7 @@ class ValueTreeAnnotator extends TreeAnnotator {
                 // Strings and arrays do not allow conversions
                 newAnno = oldAnno;
             } else if (atypeFactory.isIntRange(oldAnno)
-                    && atypeFactory
-                            .getRange(oldAnno)
-                            .isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                    && atypeFactory.getRange(oldAnno).isWiderThan(atypeFactory.getMaxValues())) {
                 Class<?> newClass = TypesUtils.getClassFromType(newType);
                 if (newClass == String.class) {
                     newAnno = atypeFactory.UNKNOWNVAL;
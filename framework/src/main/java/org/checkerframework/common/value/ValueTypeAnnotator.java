@@ -45,11 +45,11 @@ class ValueTypeAnnotator extends TypeAnnotator {
     /**
      * This method performs pre-processing on annotations written by users.
      *
-     * <p>If any *Val annotation has &gt; MAX_VALUES number of values provided, replaces the
-     * annotation by @IntRange for integral types, @ArrayLenRange for arrays, @ArrayLen
-     * or @ArrayLenRange for strings, and @UnknownVal for all other types. Works together with
-     * {@link ValueVisitor#visitAnnotation(com.sun.source.tree.AnnotationTree, Void)} which issues
-     * warnings to users in these cases.
+     * <p>If any *Val annotation has more than {@link ValueAnnotatedTypeFactory#getMaxValues}
+     * values, replaces the annotation by @IntRange for integral types, @ArrayLenRange for arrays,
+     * {@literal @}ArrayLen or @ArrayLenRange for strings, and @UnknownVal for all other types. Works
+     * together with {@link ValueVisitor#visitAnnotation(com.sun.source.tree.AnnotationTree, Void)}
+     * which issues warnings to users in these cases.
      *
      * <p>If any @IntRange or @ArrayLenRange annotation has incorrect parameters, e.g. the value
      * "from" is greater than the value "to", replaces the annotation by {@code @BottomVal}. The
@@ -73,7 +73,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
 
         if (AnnotationUtils.areSameByName(anno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
             List<Long> values = typeFactory.getIntValues(anno);
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > typeFactory.getMaxValues()) {
                 atm.replaceAnnotation(typeFactory.createIntRangeAnnotation(Range.create(values)));
             }
         } else if (AnnotationUtils.areSameByName(anno, ValueAnnotatedTypeFactory.ARRAYLEN_NAME)) {
@@ -82,7 +82,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
                 atm.replaceAnnotation(typeFactory.BOTTOMVAL);
             } else if (Collections.min(values) < 0) {
                 atm.replaceAnnotation(typeFactory.BOTTOMVAL);
-            } else if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            } else if (values.size() > typeFactory.getMaxValues()) {
                 atm.replaceAnnotation(
                         typeFactory.createArrayLenRangeAnnotation(Range.create(values)));
             }
@@ -131,7 +131,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
             // ArrayLen or ArrayLenRange is used.
             List<String> values = typeFactory.getStringValues(anno);
 
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > typeFactory.getMaxValues()) {
                 List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
                 atm.replaceAnnotation(typeFactory.createArrayLenAnnotation(lengths));
             }
@@ -163,7 +163,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
             @SuppressWarnings("deprecation") // concrete annotation class is not known
             List<Object> values =
                     AnnotationUtils.getElementValueArray(anno, "value", Object.class, false);
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > typeFactory.getMaxValues()) {
                 atm.replaceAnnotation(typeFactory.UNKNOWNVAL);
             }
         }
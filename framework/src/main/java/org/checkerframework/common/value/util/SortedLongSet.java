@@ -0,0 +1,276 @@
+package org.checkerframework.common.value.util;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable set of {@code long} values, stored as a sorted array without duplicates. It is the
+ * internal representation of the values of an {@code @IntVal} annotation.
+ *
+ * <p>Reading the values of an annotation produces a list of boxed values, which must then be
+ * sorted and deduplicated. A {@code SortedLongSet} does that once per annotation; membership tests
+ * use binary search, and union and inclusion are computed by merging the arrays.
+ */
+public final class SortedLongSet {
+
+    /** The empty set. */
+    public static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    /** The values, sorted in ascending order and without duplicates. Never modified. */
+    private final long[] values;
+
+    /**
+     * Creates a set. The caller must not modify {@code values} afterward.
+     *
+     * @param values the values, sorted in ascending order and without duplicates
+     */
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns a set containing the given values.
+     *
+     * @param values the values; duplicates are allowed and the values may be in any order
+     * @return a set containing the given values
+     */
+    public static SortedLongSet of(long... values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new SortedLongSet(withoutDuplicates(sorted));
+    }
+
+    /**
+     * Returns a set containing the given values.
+     *
+     * @param values the values; duplicates are allowed and the values may be in any order
+     * @return a set containing the given values
+     */
+    public static SortedLongSet of(Collection<? extends Number> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        long[] sorted = new long[values.size()];
+        int i = 0;
+        for (Number value : values) {
+            sorted[i++] = value.longValue();
+        }
+        Arrays.sort(sorted);
+        return new SortedLongSet(withoutDuplicates(sorted));
+    }
+
+    /**
+     * Returns a set containing every value in {@code range}, or null if {@code range} contains more
+     * than {@code maxValues} values.
+     *
+     * @param range a range
+     * @param maxValues the maximum size of the result
+     * @return a set containing every value in {@code range}, or null if there are too many
+     */
+    public static @Nullable SortedLongSet fromRange(Range range, int maxValues) {
+        if (range.isWiderThan(maxValues)) {
+            return null;
+        }
+        if (range.isNothing()) {
+            return EMPTY;
+        }
+        // The subtraction does not overflow, because the width has already been checked.
+        int size = (int) (range.to - range.from) + 1;
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = range.from + i;
+        }
+        return new SortedLongSet(values);
+    }
+
+    /**
+     * Returns the distinct elements of {@code sorted}, which is a non-empty array. May modify and
+     * return {@code sorted} itself.
+     *
+     * @param sorted values sorted in ascending order
+     * @return the distinct values in {@code sorted}, in ascending order
+     */
+    private static long[] withoutDuplicates(long[] sorted) {
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Returns the number of values in this set.
+     *
+     * @return the number of values in this set
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns true if this set is empty.
+     *
+     * @return true if this set is empty
+     */
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Returns the smallest value in this set, which must not be empty.
+     *
+     * @return the smallest value in this set
+     */
+    public long min() {
+        return values[0];
+    }
+
+    /**
+     * Returns the largest value in this set, which must not be empty.
+     *
+     * @return the largest value in this set
+     */
+    public long max() {
+        return values[values.length - 1];
+    }
+
+    /**
+     * Returns true if this set contains {@code value}.
+     *
+     * @param value a value
+     * @return true if this set contains {@code value}
+     */
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Returns true if this set contains every value in {@code range}.
+     *
+     * @param range a range
+     * @return true if this set contains every value in {@code range}
+     */
+    public boolean containsAll(Range range) {
+        if (range.isNothing()) {
+            return true;
+        }
+        if (range.isWiderThan(values.length)) {
+            return false;
+        }
+        // The values are distinct, so the range is contained if its bounds are contained and the
+        // number of values between them equals the width of the range.
+        int fromIndex = Arrays.binarySearch(values, range.from);
+        int toIndex = Arrays.binarySearch(values, range.to);
+        return fromIndex >= 0 && toIndex >= 0 && toIndex - fromIndex == range.to - range.from;
+    }
+
+    /**
+     * Returns true if every value in this set is also in {@code other}.
+     *
+     * @param other a set
+     * @return true if this set is a subset of {@code other}
+     */
+    public boolean isSubsetOf(SortedLongSet other) {
+        if (values.length > other.values.length) {
+            return false;
+        }
+        int j = 0;
+        for (long value : values) {
+            while (j < other.values.length && other.values[j] < value) {
+                j++;
+            }
+            if (j == other.values.length || other.values[j] != value) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the union of this set and {@code other}.
+     *
+     * @param other a set
+     * @return the union of this set and {@code other}
+     */
+    public SortedLongSet union(SortedLongSet other) {
+        if (other.isSubsetOf(this)) {
+            return this;
+        } else if (this.isSubsetOf(other)) {
+            return other;
+        }
+        long[] merged = new long[values.length + other.values.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < values.length && j < other.values.length) {
+            long a = values[i];
+            long b = other.values[j];
+            if (a < b) {
+                merged[size++] = a;
+                i++;
+            } else if (b < a) {
+                merged[size++] = b;
+                j++;
+            } else {
+                merged[size++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < values.length) {
+            merged[size++] = values[i++];
+        }
+        while (j < other.values.length) {
+            merged[size++] = other.values[j++];
+        }
+        return new SortedLongSet(size == merged.length ? merged : Arrays.copyOf(merged, size));
+    }
+
+    /**
+     * Returns the smallest range that contains every value in this set.
+     *
+     * @return the smallest range that contains every value in this set
+     */
+    public Range toRange() {
+        return values.length == 0 ? Range.NOTHING : Range.create(min(), max());
+    }
+
+    /**
+     * Returns the values in this set, in ascending order. The result is a new list that the caller
+     * may modify.
+     *
+     * @return the values in this set, in ascending order
+     */
+    public List<Long> toList() {
+        List<Long> result = new ArrayList<>(values.length);
+        for (long value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        return obj instanceof SortedLongSet && Arrays.equals(values, ((SortedLongSet) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -34,7 +34,6 @@ import org.plumelib.util.UniqueId;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -145,12 +144,12 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
      */
     protected CFAbstractStore(CFAbstractAnalysis<V, S, ?> analysis, boolean sequentialSemantics) {
         this.analysis = analysis;
-        this.localVariableValues = new HashMap<>();
+        this.localVariableValues = new CopyOnWriteHashMap<>();
         this.thisValue = null;
-        this.fieldValues = new HashMap<>();
-        this.methodCallExpressions = new HashMap<>();
-        this.arrayValues = new HashMap<>();
-        this.classValues = new HashMap<>();
+        this.fieldValues = new CopyOnWriteHashMap<>();
+        this.methodCallExpressions = new CopyOnWriteHashMap<>();
+        this.arrayValues = new CopyOnWriteHashMap<>();
+        this.classValues = new CopyOnWriteHashMap<>();
         this.sequentialSemantics = sequentialSemantics;
         this.assumeSideEffectFree =
                 analysis.checker.hasOption("assumeSideEffectFree")
@@ -159,18 +158,19 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. Takes constant time: the maps of the copy share their storage with those of
+     * {@code other} until either store modifies them; see {@link CopyOnWriteHashMap}.
      *
      * @param other a CFAbstractStore to copy into this
      */
     protected CFAbstractStore(CFAbstractStore<V, S> other) {
         this.analysis = other.analysis;
-        this.localVariableValues = new HashMap<>(other.localVariableValues);
+        this.localVariableValues = new CopyOnWriteHashMap<>(other.localVariableValues);
         this.thisValue = other.thisValue;
-        this.fieldValues = new HashMap<>(other.fieldValues);
-        this.methodCallExpressions = new HashMap<>(other.methodCallExpressions);
-        this.arrayValues = new HashMap<>(other.arrayValues);
-        this.classValues = new HashMap<>(other.classValues);
+        this.fieldValues = new CopyOnWriteHashMap<>(other.fieldValues);
+        this.methodCallExpressions = new CopyOnWriteHashMap<>(other.methodCallExpressions);
+        this.arrayValues = new CopyOnWriteHashMap<>(other.arrayValues);
+        this.classValues = new CopyOnWriteHashMap<>(other.classValues);
         this.sequentialSemantics = other.sequentialSemantics;
         this.assumeSideEffectFree = other.assumeSideEffectFree;
         this.assumePureGetters = other.assumePureGetters;
@@ -361,8 +361,7 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
      */
     private void updateFieldValuesForMethodCall(
             GenericAnnotatedTypeFactory<V, S, ?, ?> atypeFactory) {
-        Map<FieldAccess, V> newFieldValues =
-                new HashMap<>(CollectionsPlume.mapCapacity(fieldValues));
+        Map<FieldAccess, V> newFieldValues = new CopyOnWriteHashMap<>();
         for (Map.Entry<FieldAccess, V> e : fieldValues.entrySet()) {
             FieldAccess fieldAccess = e.getKey();
             V value = e.getValue();
@@ -1170,20 +1169,13 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     private S upperBound(S other, boolean shouldWiden) {
         S newStore = analysis.createEmptyStore(sequentialSemantics);
 
-        for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-            // local variables that are only part of one store, but not the other are discarded, as
-            // one of store implicitly contains 'top' for that variable.
-            LocalVariable localVar = e.getKey();
-            V thisVal = localVariableValues.get(localVar);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-
-                if (mergedVal != null) {
-                    newStore.localVariableValues.put(localVar, mergedVal);
-                }
-            }
-        }
+        // local variables that are only part of one store, but not the other are discarded, as
+        // one of store implicitly contains 'top' for that variable.
+        upperBoundOfMaps(
+                localVariableValues,
+                other.localVariableValues,
+                newStore.localVariableValues,
+                shouldWiden);
 
         // information about the current object
         {
@@ -1196,57 +1188,58 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
             }
         }
 
-        for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-            // information about fields that are only part of one store, but not the other are
-            // discarded, as one store implicitly contains 'top' for that field.
-            FieldAccess el = e.getKey();
-            V thisVal = fieldValues.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.fieldValues.put(el, mergedVal);
-                }
-            }
-        }
-        for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-            // information about arrays that are only part of one store, but not the other are
-            // discarded, as one store implicitly contains 'top' for that array access.
-            ArrayAccess el = e.getKey();
-            V thisVal = arrayValues.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.arrayValues.put(el, mergedVal);
-                }
-            }
-        }
-        for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-            // information about methods that are only part of one store, but not the other are
-            // discarded, as one store implicitly contains 'top' for that field.
-            MethodCall el = e.getKey();
-            V thisVal = methodCallExpressions.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.methodCallExpressions.put(el, mergedVal);
-                }
-            }
+        // information about fields, arrays, methods, and classes that are only part of one store,
+        // but not the other are discarded, as one store implicitly contains 'top' for them.
+        upperBoundOfMaps(fieldValues, other.fieldValues, newStore.fieldValues, shouldWiden);
+        upperBoundOfMaps(arrayValues, other.arrayValues, newStore.arrayValues, shouldWiden);
+        upperBoundOfMaps(
+                methodCallExpressions,
+                other.methodCallExpressions,
+                newStore.methodCallExpressions,
+                shouldWiden);
+        upperBoundOfMaps(classValues, other.classValues, newStore.classValues, shouldWiden);
+        return newStore;
+    }
+
+    /**
+     * Puts into {@code newValues} the upper bound of the values of each key that is in both {@code
+     * thisValues} and {@code otherValues}.
+     *
+     * <p>The least upper bound of a value with itself is the value. So, if the two maps share their
+     * storage, {@code newValues} shares it too, in constant time; and a value that is the same
+     * object in both maps is not recomputed.
+     *
+     * @param <K> the type of the keys
+     * @param thisValues the values in this store
+     * @param otherValues the values in the other store
+     * @param newValues the empty map of the new store, into which to put the upper bounds
+     * @param shouldWiden true if widening should be performed
+     */
+    private <K> void upperBoundOfMaps(
+            Map<K, V> thisValues,
+            Map<K, V> otherValues,
+            Map<K, V> newValues,
+            boolean shouldWiden) {
+        if (!shouldWiden
+                && newValues instanceof CopyOnWriteHashMap
+                && CopyOnWriteHashMap.sharesStorage(thisValues, otherValues)) {
+            ((CopyOnWriteHashMap<K, V>) newValues).copyFrom(thisValues);
+            return;
         }
-        for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-            ClassName el = e.getKey();
-            V thisVal = classValues.get(el);
+        for (Map.Entry<K, V> e : otherValues.entrySet()) {
+            K key = e.getKey();
+            V thisVal = thisValues.get(key);
             if (thisVal != null) {
                 V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
+                V mergedVal =
+                        !shouldWiden && otherVal == thisVal
+                                ? thisVal
+                                : upperBoundOfValues(otherVal, thisVal, shouldWiden);
                 if (mergedVal != null) {
-                    newStore.classValues.put(el, mergedVal);
+                    newValues.put(key, mergedVal);
                 }
             }
         }
-        return newStore;
     }
 
     private V upperBoundOfValues(V otherVal, V thisVal, boolean shouldWiden) {
@@ -1260,40 +1253,34 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
      * equals predicate.
      */
     protected boolean supersetOf(CFAbstractStore<V, S> other) {
-        for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-            LocalVariable key = e.getKey();
-            V value = localVariableValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
         if (!Objects.equals(thisValue, other.thisValue)) {
             return false;
         }
-        for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-            FieldAccess key = e.getKey();
-            V value = fieldValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-            ArrayAccess key = e.getKey();
-            V value = arrayValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
+        return supersetOf(localVariableValues, other.localVariableValues)
+                && supersetOf(fieldValues, other.fieldValues)
+                && supersetOf(arrayValues, other.arrayValues)
+                && supersetOf(methodCallExpressions, other.methodCallExpressions)
+                && supersetOf(classValues, other.classValues);
+    }
+
+    /**
+     * Returns true iff {@code thisValues} contains a superset of the map entries of {@code
+     * otherValues}. Takes constant time if the maps share their storage.
+     *
+     * @param <K> the type of the keys
+     * @param thisValues a map of this store
+     * @param otherValues the corresponding map of another store
+     * @return true iff {@code thisValues} contains every entry of {@code otherValues}
+     */
+    private static <K, V> boolean supersetOf(Map<K, V> thisValues, Map<K, V> otherValues) {
+        if (CopyOnWriteHashMap.sharesStorage(thisValues, otherValues)) {
+            return true;
         }
-        for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-            MethodCall key = e.getKey();
-            V value = methodCallExpressions.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
+        if (thisValues.size() < otherValues.size()) {
+            return false;
         }
-        for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-            ClassName key = e.getKey();
-            V value = classValues.get(key);
+        for (Map.Entry<K, V> e : otherValues.entrySet()) {
+            V value = thisValues.get(e.getKey());
             if (value == null || !value.equals(e.getValue())) {
                 return false;
             }
@@ -8,6 +8,8 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
 
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
@@ -19,14 +21,24 @@ import org.checkerframework.dataflow.cfg.builder.PhaseOneResult;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.framework.util.SharedCompilationCaches;
+import org.checkerframework.javacutil.AnnotationProvider;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.UserError;
+import org.plumelib.util.IPair;
 
+import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.TypeKind;
@@ -56,14 +68,38 @@ public class CFCFGBuilder extends CFGBuilder {
 
         // Subcheckers with dataflow share control-flow graph structure to
         // allow a super-checker to query the stores of a subchecker.
-        if (atypeFactory instanceof GenericAnnotatedTypeFactory) {
-            GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
-                    (GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory;
-            if (asGATF.hasOrIsSubchecker) {
-                ControlFlowGraph sharedCFG = asGATF.getSharedCFGForTree(underlyingAST.getCode());
-                if (sharedCFG != null) {
-                    return sharedCFG;
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
+                atypeFactory instanceof GenericAnnotatedTypeFactory
+                        ? (GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory
+                        : null;
+        if (asGATF != null && asGATF.hasOrIsSubchecker) {
+            ControlFlowGraph sharedCFG = asGATF.getSharedCFGForTree(underlyingAST.getCode());
+            if (sharedCFG != null) {
+                return sharedCFG;
+            }
+        }
+
+        // Other checkers in the same javac invocation may have built the same control-flow graph.
+        SharedCompilationCaches compilationCaches = null;
+        SharedCFG recorder = null;
+        if (asGATF != null && asGATF.shouldCache) {
+            compilationCaches = SharedCompilationCaches.instance(env);
+            if (compilationCaches.isShared()) {
+                for (SharedCFG shared : compilationCaches.getCFGs(root, underlyingAST.getCode())) {
+                    ControlFlowGraph sharedCFG = shared.cfg;
+                    if (sharedCFG != null
+                            && shared.isReusableBy(
+                                    checker,
+                                    atypeFactory,
+                                    assumeAssertionsEnabled,
+                                    assumeAssertionsDisabled)) {
+                        if (asGATF.hasOrIsSubchecker) {
+                            asGATF.addSharedCFGForTree(underlyingAST.getCode(), sharedCFG);
+                        }
+                        return sharedCFG;
+                    }
                 }
+                recorder = new SharedCFG(assumeAssertionsEnabled, assumeAssertionsDisabled);
             }
         }
 
@@ -75,20 +111,147 @@ public class CFCFGBuilder extends CFGBuilder {
                                 atypeFactory,
                                 assumeAssertionsEnabled,
                                 assumeAssertionsDisabled,
-                                env)
+                                env,
+                                recorder)
                         .process(root, underlyingAST);
         ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
         ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
-        if (atypeFactory instanceof GenericAnnotatedTypeFactory) {
-            GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
-                    (GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory;
-            if (asGATF.hasOrIsSubchecker) {
-                asGATF.addSharedCFGForTree(underlyingAST.getCode(), phase3result);
-            }
+        if (asGATF != null && asGATF.hasOrIsSubchecker) {
+            asGATF.addSharedCFGForTree(underlyingAST.getCode(), phase3result);
+        }
+        if (compilationCaches != null && recorder != null) {
+            recorder.cfg = phase3result;
+            compilationCaches.addCFG(root, underlyingAST.getCode(), recorder);
         }
         return phase3result;
     }
 
+    /**
+     * A control-flow graph that can be reused by other checkers, together with the inputs from the
+     * checker that built it. The structure of a control-flow graph depends on the checker only
+     * through these inputs: whether assertions are assumed to be enabled or disabled, which
+     * {@code @AssumeAssertion} strings apply to the checker, and which methods are annotated with
+     * {@code @AssertMethod}, and with which elements, or with {@code @TerminatesExecution},
+     * possibly in a stub file.
+     *
+     * @see SharedCompilationCaches
+     */
+    public static final class SharedCFG {
+        /** The control-flow graph. Set when it has been built. */
+        private @MonotonicNonNull ControlFlowGraph cfg;
+
+        /** Whether the checker that built the graph assumed that assertions are enabled. */
+        private final boolean assumeAssertionsEnabled;
+
+        /** Whether the checker that built the graph assumed that assertions are disabled. */
+        private final boolean assumeAssertionsDisabled;
+
+        /**
+         * Whether an {@code @AssumeAssertion} string applied to the checker that built the graph,
+         * for each assert statement that has a detail message.
+         */
+        private final Map<AssertTree, Boolean> assumeAssertions = new IdentityHashMap<>();
+
+        /**
+         * The declaration annotation that was found, or null if there was none, for each query that
+         * building the graph made. The elements of an annotation matter, too: for example, those of
+         * {@code @AssertMethod} determine the structure of the graph.
+         */
+        private final Map<IPair<Element, Class<? extends Annotation>>, @Nullable AnnotationMirror>
+                declAnnotations = new HashMap<>();
+
+        /**
+         * Creates a record of the inputs of a control-flow graph that is about to be built.
+         *
+         * @param assumeAssertionsEnabled whether assertions are assumed to be enabled
+         * @param assumeAssertionsDisabled whether assertions are assumed to be disabled
+         */
+        SharedCFG(boolean assumeAssertionsEnabled, boolean assumeAssertionsDisabled) {
+            this.assumeAssertionsEnabled = assumeAssertionsEnabled;
+            this.assumeAssertionsDisabled = assumeAssertionsDisabled;
+        }
+
+        /**
+         * Returns true if {@code checker} would build the same control-flow graph. Must only be
+         * called after the graph has been built.
+         *
+         * @param checker a checker
+         * @param atypeFactory the type factory of {@code checker}
+         * @param assumeAssertionsEnabled whether {@code checker} assumes that assertions are
+         *     enabled
+         * @param assumeAssertionsDisabled whether {@code checker} assumes that assertions are
+         *     disabled
+         * @return true if {@code checker} would build the same control-flow graph
+         */
+        boolean isReusableBy(
+                BaseTypeChecker checker,
+                AnnotationProvider atypeFactory,
+                boolean assumeAssertionsEnabled,
+                boolean assumeAssertionsDisabled) {
+            if (assumeAssertionsEnabled != this.assumeAssertionsEnabled
+                    || assumeAssertionsDisabled != this.assumeAssertionsDisabled) {
+                return false;
+            }
+            for (Map.Entry<AssertTree, Boolean> entry : assumeAssertions.entrySet()) {
+                if (assumeAssertionsActivatedForAssertTree(checker, entry.getKey())
+                        != entry.getValue()) {
+                    return false;
+                }
+            }
+            for (Map.Entry<IPair<Element, Class<? extends Annotation>>, @Nullable AnnotationMirror>
+                    entry : declAnnotations.entrySet()) {
+                IPair<Element, Class<? extends Annotation>> query = entry.getKey();
+                @Nullable AnnotationMirror recorded = entry.getValue();
+                @Nullable AnnotationMirror current =
+                        atypeFactory.getDeclAnnotation(query.first, query.second);
+                if (recorded == null || current == null) {
+                    if (recorded != current) {
+                        return false;
+                    }
+                } else if (!AnnotationUtils.areSame(recorded, current)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns an annotation provider that records the declaration annotation queries made
+         * through it.
+         *
+         * @param delegate the annotation provider of the checker that builds the graph
+         * @return an annotation provider that records queries and forwards them to {@code
+         *     delegate}
+         */
+        AnnotationProvider recordingProvider(AnnotationProvider delegate) {
+            return new AnnotationProvider() {
+                @Override
+                public @Nullable AnnotationMirror getDeclAnnotation(
+                        Element elt, Class<? extends Annotation> anno) {
+                    AnnotationMirror result = delegate.getDeclAnnotation(elt, anno);
+                    declAnnotations.put(IPair.of(elt, anno), result);
+                    return result;
+                }
+
+                @Override
+                public @Nullable AnnotationMirror getAnnotationMirror(
+                        Tree tree, Class<? extends Annotation> target) {
+                    return delegate.getAnnotationMirror(tree, target);
+                }
+
+                @Override
+                public boolean isSideEffectFree(ExecutableElement methodElement) {
+                    return delegate.isSideEffectFree(methodElement);
+                }
+
+                @Override
+                public boolean isDeterministic(ExecutableElement methodElement) {
+                    return delegate.isDeterministic(methodElement);
+                }
+            };
+        }
+    }
+
     /**
      * Given a SourceChecker and an AssertTree, returns whether the AssertTree uses
      * an @AssumeAssertion string that is relevant to the SourceChecker.
@@ -131,6 +294,9 @@ public class CFCFGBuilder extends CFGBuilder {
         /** Type factory to provide types used during CFG building. */
         protected final AnnotatedTypeFactory atypeFactory;
 
+        /** Where to record the inputs of the control-flow graph, or null not to record them. */
+        private final @Nullable SharedCFG recorder;
+
         public CFCFGTranslationPhaseOne(
                 CFTreeBuilder builder,
                 BaseTypeChecker checker,
@@ -138,14 +304,55 @@ public class CFCFGBuilder extends CFGBuilder {
                 boolean assumeAssertionsEnabled,
                 boolean assumeAssertionsDisabled,
                 ProcessingEnvironment env) {
-            super(builder, atypeFactory, assumeAssertionsEnabled, assumeAssertionsDisabled, env);
+            this(
+                    builder,
+                    checker,
+                    atypeFactory,
+                    assumeAssertionsEnabled,
+                    assumeAssertionsDisabled,
+                    env,
+                    null);
+        }
+
+        /**
+         * Creates a phase-one builder that records the inputs that the control-flow graph depends
+         * on, so that other checkers can reuse the graph.
+         *
+         * @param builder the tree builder
+         * @param checker the checker
+         * @param atypeFactory the type factory of {@code checker}
+         * @param assumeAssertionsEnabled whether assertions are assumed to be enabled
+         * @param assumeAssertionsDisabled whether assertions are assumed to be disabled
+         * @param env the processing environment
+         * @param recorder where to record the inputs of the control-flow graph, or null not to
+         *     record them
+         */
+        protected CFCFGTranslationPhaseOne(
+                CFTreeBuilder builder,
+                BaseTypeChecker checker,
+                AnnotatedTypeFactory atypeFactory,
+                boolean assumeAssertionsEnabled,
+                boolean assumeAssertionsDisabled,
+                ProcessingEnvironment env,
+                @Nullable SharedCFG recorder) {
+            super(
+                    builder,
+                    recorder == null ? atypeFactory : recorder.recordingProvider(atypeFactory),
+                    assumeAssertionsEnabled,
+                    assumeAssertionsDisabled,
+                    env);
             this.checker = checker;
             this.atypeFactory = atypeFactory;
+            this.recorder = recorder;
         }
 
         @Override
         protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
-            if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
+            boolean activated = assumeAssertionsActivatedForAssertTree(checker, tree);
+            if (recorder != null && tree.getDetail() != null) {
+                recorder.assumeAssertions.put(tree, activated);
+            }
+            if (activated) {
                 return true;
             }
             return super.assumeAssertionsEnabledFor(tree);
@@ -0,0 +1,350 @@
+package org.checkerframework.framework.flow;
+
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A hash map whose copies share their storage until one of them is modified.
+ *
+ * <p>Copying a CopyOnWriteHashMap, with {@link #CopyOnWriteHashMap(Map)} or {@link #copyFrom},
+ * takes constant time. The first modification of either the original or the copy then copies the
+ * storage. {@link CFAbstractStore} uses this class because most copies of a store are never
+ * modified, or differ from the original in only a few of their maps.
+ *
+ * <p>Two maps that share their storage are equal, so {@link #sharesStorage} is a constant-time
+ * sufficient condition for equality.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class CopyOnWriteHashMap<K, V> extends AbstractMap<K, V> {
+
+    /** The mappings. If {@link #shared} is true, this may be shared and must not be modified. */
+    private HashMap<K, V> map;
+
+    /** True if {@link #map} may be shared with another CopyOnWriteHashMap. */
+    private boolean shared;
+
+    /** The view returned by {@link #entrySet}, or null if it has not yet been created. */
+    private @MonotonicNonNull EntrySet entrySet;
+
+    /** Creates an empty CopyOnWriteHashMap. */
+    public CopyOnWriteHashMap() {
+        this.map = new HashMap<>();
+        this.shared = false;
+    }
+
+    /**
+     * Creates a CopyOnWriteHashMap with the same mappings as {@code m}. If {@code m} is a
+     * CopyOnWriteHashMap, this takes constant time.
+     *
+     * @param m the map whose mappings to copy
+     */
+    @SuppressWarnings("unchecked") // the shared storage is never modified
+    public CopyOnWriteHashMap(Map<? extends K, ? extends V> m) {
+        if (m instanceof CopyOnWriteHashMap) {
+            CopyOnWriteHashMap<K, V> other = (CopyOnWriteHashMap<K, V>) m;
+            other.shared = true;
+            this.map = other.map;
+            this.shared = true;
+        } else {
+            this.map = new HashMap<>(m);
+            this.shared = false;
+        }
+    }
+
+    /**
+     * Replaces the mappings of this map by those of {@code m}. If {@code m} is a
+     * CopyOnWriteHashMap, this takes constant time.
+     *
+     * @param m the map whose mappings to copy
+     */
+    @SuppressWarnings("unchecked") // the shared storage is never modified
+    public void copyFrom(Map<? extends K, ? extends V> m) {
+        if (m == this) {
+            return;
+        }
+        if (m instanceof CopyOnWriteHashMap) {
+            CopyOnWriteHashMap<K, V> other = (CopyOnWriteHashMap<K, V>) m;
+            other.shared = true;
+            map = other.map;
+            shared = true;
+        } else {
+            map = new HashMap<>(m);
+            shared = false;
+        }
+    }
+
+    /**
+     * Returns true if the two maps are the same map, or are CopyOnWriteHashMaps that share their
+     * storage. In either case, they contain the same mappings. Takes constant time.
+     *
+     * @param m1 a map
+     * @param m2 another map
+     * @return true if {@code m1} and {@code m2} are known to contain the same mappings without
+     *     comparing them
+     */
+    public static boolean sharesStorage(Map<?, ?> m1, Map<?, ?> m2) {
+        if (m1 == m2) {
+            return true;
+        }
+        return m1 instanceof CopyOnWriteHashMap
+                && m2 instanceof CopyOnWriteHashMap
+                && ((CopyOnWriteHashMap<?, ?>) m1).map == ((CopyOnWriteHashMap<?, ?>) m2).map;
+    }
+
+    /** Ensures that {@link #map} is not shared, so that it can be modified. */
+    private void unshare() {
+        if (shared) {
+            map = new HashMap<>(map);
+            shared = false;
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(@Nullable Object value) {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public @Nullable V get(@Nullable Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        map.forEach(action);
+    }
+
+    @Override
+    public @Nullable V put(K key, V value) {
+        if (shared) {
+            V oldValue = map.get(key);
+            if (oldValue == value && (oldValue != null || map.containsKey(key))) {
+                // Do not copy the storage if the map does not change.
+                return oldValue;
+            }
+            unshare();
+        }
+        return map.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (m.isEmpty()) {
+            return;
+        }
+        if (map.isEmpty()) {
+            copyFrom(m);
+            return;
+        }
+        unshare();
+        map.putAll(m);
+    }
+
+    @Override
+    public @Nullable V remove(@Nullable Object key) {
+        if (shared && !map.containsKey(key)) {
+            return null;
+        }
+        unshare();
+        return map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        if (shared) {
+            map = new HashMap<>();
+            shared = false;
+        } else {
+            map.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o instanceof CopyOnWriteHashMap) {
+            return map.equals(((CopyOnWriteHashMap<?, ?>) o).map);
+        }
+        return map.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    /** The entry set of a CopyOnWriteHashMap. Removing entries and setting values write through. */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(@Nullable Object o) {
+            return map.entrySet().contains(o);
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void clear() {
+            CopyOnWriteHashMap.this.clear();
+        }
+    }
+
+    /**
+     * An iterator over the entries of a CopyOnWriteHashMap. It iterates over the storage at the
+     * time it was created. If the map copies its storage during the iteration, for example because
+     * {@link #remove} is called while the storage is shared, the iteration continues over the old
+     * storage and modifications go to the new storage.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        /** The storage over which this iterates. */
+        private final HashMap<K, V> iteratedMap = map;
+
+        /** The iterator over {@link #iteratedMap}. */
+        private final Iterator<Map.Entry<K, V>> iterator = iteratedMap.entrySet().iterator();
+
+        /** The key of the entry most recently returned by {@link #next}, if it can be removed. */
+        private @Nullable K lastKey;
+
+        /** True if {@link #lastKey} is the key of an entry that can be removed. */
+        private boolean canRemove = false;
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!iterator.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> e = iterator.next();
+            lastKey = e.getKey();
+            canRemove = true;
+            return new Entry(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            if (map == iteratedMap && !shared) {
+                iterator.remove();
+            } else {
+                unshare();
+                map.remove(lastKey);
+            }
+        }
+    }
+
+    /** An entry of a CopyOnWriteHashMap. Setting its value writes through to the map. */
+    private final class Entry implements Map.Entry<K, V> {
+
+        /** The key. */
+        private final K key;
+
+        /** The value. */
+        private V value;
+
+        /**
+         * Creates an entry.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            // Does not change the structure of the storage, so iteration can continue.
+            put(key, value);
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
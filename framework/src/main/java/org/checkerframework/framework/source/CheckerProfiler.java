@@ -0,0 +1,584 @@
+package org.checkerframework.framework.source;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.ElementUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Records how much time a checker spends in each phase of type-checking, and how often the caches
+ * of its type factory are hit. It is used when the {@code -Aprofile=file} command-line option is
+ * supplied; the ultimate parent checker then writes a JSON report, for itself and all its
+ * subcheckers, to the file at the end of the compilation.
+ *
+ * <p>The times are wall-clock times and are inclusive: phases nest, and the time of a phase
+ * includes the time of the phases that run inside it. For example, the visitor phase of a class
+ * includes the dataflow analysis of the class, which includes type argument inference.
+ *
+ * <p>Use it as follows:
+ *
+ * <pre>{@code
+ * CheckerProfiler profiler = checker.getProfiler();
+ * long start = profiler.start();
+ * try {
+ *     ...
+ * } finally {
+ *     profiler.stop(CheckerProfiler.Phase.DATAFLOW, methodElement, start);
+ * }
+ * }</pre>
+ *
+ * If profiling is disabled, {@link #start} and the {@code stop} methods do nothing.
+ */
+public final class CheckerProfiler {
+
+    /** A phase of type-checking. */
+    public enum Phase {
+        /** Parsing stub files, ajava files, and files of the annotated JDK. */
+        STUB_PARSING("stubParsing"),
+        /** Building control flow graphs. */
+        CFG_BUILDING("cfgBuilding"),
+        /** Running the dataflow analysis of a control flow graph to a fixpoint. */
+        DATAFLOW("dataflow"),
+        /** Running the visitor, which issues most diagnostics. */
+        VISITOR("visitor"),
+        /** Inferring the type arguments of method invocations and method references. */
+        TYPE_INFERENCE("typeInference");
+
+        /** The name of the phase in the report. */
+        private final String reportName;
+
+        /**
+         * Creates a phase.
+         *
+         * @param reportName the name of the phase in the report
+         */
+        Phase(String reportName) {
+            this.reportName = reportName;
+        }
+    }
+
+    /** A profiler that records nothing. It is used when {@code -Aprofile} is not supplied. */
+    static final CheckerProfiler DISABLED = new CheckerProfiler("", false);
+
+    /** The name of the checker. */
+    private final String checkerName;
+
+    /** True if this profiler records anything. */
+    private final boolean enabled;
+
+    /** The fully-qualified name of the top-level class that is being type-checked, or null. */
+    private @Nullable String currentClass = null;
+
+    /** For each phase, the time spent in the phase for each top-level class. */
+    private final Map<Phase, Map<String, Counter>> byClass = new EnumMap<>(Phase.class);
+
+    /** For each phase, the time spent in the phase for each method. */
+    private final Map<Phase, Map<String, Counter>> byMethod = new EnumMap<>(Phase.class);
+
+    /** For each phase, the time spent in the phase for each file. */
+    private final Map<Phase, Map<String, Counter>> byFile = new EnumMap<>(Phase.class);
+
+    /** For each phase, the total time spent in the phase. */
+    private final Map<Phase, Counter> totals = new EnumMap<>(Phase.class);
+
+    /** The lookup counters of the caches, by cache name. */
+    private final Map<String, CacheCounter> caches = new TreeMap<>();
+
+    /** The profilers of the subcheckers. */
+    private final List<CheckerProfiler> subcheckerProfilers = new ArrayList<>();
+
+    /**
+     * Creates a profiler.
+     *
+     * @param checkerName the name of the checker
+     * @param enabled true if the profiler records anything
+     */
+    private CheckerProfiler(String checkerName, boolean enabled) {
+        this.checkerName = checkerName;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates an enabled profiler.
+     *
+     * @param checker the checker whose work to record
+     */
+    CheckerProfiler(SourceChecker checker) {
+        this(checker.getClass().getName(), true);
+    }
+
+    /**
+     * Returns true if this profiler records anything.
+     *
+     * @return true if this profiler records anything
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to a {@code stop} method.
+     *
+     * @return the current time in nanoseconds, or 0 if profiling is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records that an operation of the given phase ran from {@code startNanos} until now, on
+     * behalf of the top-level class that is being type-checked and of the given method.
+     *
+     * @param phase the phase of the operation
+     * @param method the method or other element that the operation was about, or null
+     * @param startNanos the result of {@link #start} at the beginning of the operation
+     */
+    public void stop(Phase phase, @Nullable Element method, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        String methodName = method == null ? null : ElementUtils.getQualifiedName(method);
+        synchronized (this) {
+            totals.computeIfAbsent(phase, p -> new Counter()).add(nanos);
+            if (currentClass != null) {
+                add(byClass, phase, currentClass, nanos);
+            }
+            if (methodName != null) {
+                add(byMethod, phase, methodName, nanos);
+            }
+        }
+    }
+
+    /**
+     * Records that an operation of the given phase ran from {@code startNanos} until now, on
+     * behalf of the given method, within an enclosing operation of the same phase that is
+     * recorded by {@link #stop}. Only the time of the method is recorded, so that the time of the
+     * phase is not counted twice.
+     *
+     * @param phase the phase of the operation
+     * @param method the method that the operation was about
+     * @param startNanos the result of {@link #start} at the beginning of the operation
+     */
+    public void stopNested(Phase phase, Element method, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        String methodName = ElementUtils.getQualifiedName(method);
+        synchronized (this) {
+            add(byMethod, phase, methodName, nanos);
+        }
+    }
+
+    /**
+     * Records that an operation of the given phase on the given file ran from {@code startNanos}
+     * until now.
+     *
+     * @param phase the phase of the operation
+     * @param fileName the name of the file that the operation was about
+     * @param startNanos the result of {@link #start} at the beginning of the operation
+     */
+    public void stopForFile(Phase phase, String fileName, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        synchronized (this) {
+            totals.computeIfAbsent(phase, p -> new Counter()).add(nanos);
+            add(byFile, phase, fileName, nanos);
+        }
+    }
+
+    /**
+     * Adds one operation that took {@code nanos} nanoseconds to the counter of {@code key} for
+     * {@code phase} in {@code map}.
+     *
+     * @param map the counters
+     * @param phase the phase of the operation
+     * @param key the class, method, or file that the operation was about
+     * @param nanos the duration of the operation
+     */
+    private static void add(
+            Map<Phase, Map<String, Counter>> map, Phase phase, String key, long nanos) {
+        map.computeIfAbsent(phase, p -> new HashMap<>())
+                .computeIfAbsent(key, k -> new Counter())
+                .add(nanos);
+    }
+
+    /**
+     * Sets the top-level class that is being type-checked. Operations recorded by {@link #stop}
+     * are attributed to it.
+     *
+     * @param className the fully-qualified name of the class, or null
+     */
+    void setCurrentClass(@Nullable String className) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            this.currentClass = className;
+        }
+    }
+
+    /**
+     * Adds the profiler of a subchecker, whose results are written with the results of this one.
+     *
+     * @param subcheckerProfiler the profiler of a subchecker
+     */
+    synchronized void addSubcheckerProfiler(CheckerProfiler subcheckerProfiler) {
+        subcheckerProfilers.add(subcheckerProfiler);
+    }
+
+    /**
+     * If profiling is enabled, returns a view of {@code cache} that counts the hits and misses of
+     * lookups; otherwise, returns {@code cache}. A lookup is a call to {@code containsKey}, to
+     * {@code get} (unless it immediately follows a {@code containsKey} of the same key), or to
+     * {@code computeIfAbsent}.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @param cacheName the name of the cache in the report; lookups of caches with the same name
+     *     are added up
+     * @param cache a cache
+     * @return {@code cache}, or a view of it that counts lookups
+     */
+    public <K, V> Map<K, V> countLookups(String cacheName, Map<K, V> cache) {
+        if (!enabled) {
+            return cache;
+        }
+        CacheCounter counter;
+        synchronized (this) {
+            counter = caches.computeIfAbsent(cacheName, n -> new CacheCounter());
+        }
+        return new CountingMap<>(cache, counter);
+    }
+
+    /**
+     * If profiling is enabled, records a lookup in a cache that is not a {@link Map}, or that is
+     * not owned by this checker; otherwise, does nothing.
+     *
+     * @param cacheName the name of the cache in the report; lookups of caches with the same name
+     *     are added up
+     * @param hit true if the lookup found an entry
+     */
+    public void countLookup(String cacheName, boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        CacheCounter counter;
+        synchronized (this) {
+            counter = caches.computeIfAbsent(cacheName, n -> new CacheCounter());
+        }
+        counter.record(hit);
+    }
+
+    /**
+     * Writes the report of this profiler and of the profilers of the subcheckers to a file, in
+     * JSON format.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    void writeReport(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"checkers\": [");
+        List<CheckerProfiler> all = new ArrayList<>();
+        collect(all);
+        for (int i = 0; i < all.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            all.get(i).appendJson(sb);
+        }
+        sb.append("\n  ]\n}\n");
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds this profiler and the profilers of all its subcheckers, transitively, to {@code all}.
+     *
+     * @param all the list to add to
+     */
+    private synchronized void collect(List<CheckerProfiler> all) {
+        all.add(this);
+        for (CheckerProfiler subcheckerProfiler : subcheckerProfilers) {
+            subcheckerProfiler.collect(all);
+        }
+    }
+
+    /**
+     * Appends the JSON object that describes this profiler to {@code sb}.
+     *
+     * @param sb where to append the report
+     */
+    private synchronized void appendJson(StringBuilder sb) {
+        sb.append("    {\n      \"checker\": ").append(quote(checkerName));
+        sb.append(",\n      \"phases\": {");
+        boolean first = true;
+        for (Phase phase : Phase.values()) {
+            Counter total = totals.get(phase);
+            if (total == null) {
+                continue;
+            }
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("        ").append(quote(phase.reportName)).append(": {");
+            total.appendJson(sb);
+            appendCounters(sb, "classes", byClass.get(phase));
+            appendCounters(sb, "methods", byMethod.get(phase));
+            appendCounters(sb, "files", byFile.get(phase));
+            sb.append('}');
+        }
+        sb.append(first ? "}" : "\n      }");
+        sb.append(",\n      \"caches\": {");
+        first = true;
+        for (Map.Entry<String, CacheCounter> entry : caches.entrySet()) {
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("        ").append(quote(entry.getKey())).append(": ");
+            entry.getValue().appendJson(sb);
+        }
+        sb.append(first ? "}" : "\n      }");
+        sb.append("\n    }");
+    }
+
+    /**
+     * Appends a JSON member that maps each key of {@code counters} to its counter, in order of
+     * decreasing time. Does nothing if {@code counters} is null.
+     *
+     * @param sb where to append the member
+     * @param name the name of the member
+     * @param counters the counters, or null
+     */
+    private static void appendCounters(
+            StringBuilder sb, String name, @Nullable Map<String, Counter> counters) {
+        if (counters == null) {
+            return;
+        }
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort(
+                (e1, e2) -> {
+                    int cmp = Long.compare(e2.getValue().nanos, e1.getValue().nanos);
+                    return cmp != 0 ? cmp : e1.getKey().compareTo(e2.getKey());
+                });
+        sb.append(", ").append(quote(name)).append(": {");
+        boolean first = true;
+        for (Map.Entry<String, Counter> entry : entries) {
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("          ").append(quote(entry.getKey())).append(": {");
+            entry.getValue().appendJson(sb);
+            sb.append('}');
+        }
+        sb.append(first ? "}" : "\n        }");
+    }
+
+    /**
+     * Returns {@code s} as a JSON string literal.
+     *
+     * @param s a string
+     * @return a JSON string literal whose value is {@code s}
+     */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** The number and total duration of operations. */
+    private static final class Counter {
+
+        /** The number of operations. */
+        private long count = 0;
+
+        /** The total duration of the operations, in nanoseconds. */
+        private long nanos = 0;
+
+        /**
+         * Adds an operation.
+         *
+         * @param nanos the duration of the operation
+         */
+        void add(long nanos) {
+            this.count++;
+            this.nanos += nanos;
+        }
+
+        /**
+         * Appends the members of the JSON object that describes this counter to {@code sb}.
+         *
+         * @param sb where to append the members
+         */
+        void appendJson(StringBuilder sb) {
+            sb.append("\"count\": ").append(count);
+            sb.append(", \"timeMs\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+        }
+    }
+
+    /** The number of hits and misses of lookups in a cache. */
+    private static final class CacheCounter {
+
+        /** The number of lookups that found an entry. */
+        private long hits = 0;
+
+        /** The number of lookups that did not find an entry. */
+        private long misses = 0;
+
+        /**
+         * Records a lookup.
+         *
+         * @param hit true if the lookup found an entry
+         */
+        synchronized void record(boolean hit) {
+            if (hit) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        /**
+         * Appends the JSON object that describes this counter to {@code sb}.
+         *
+         * @param sb where to append the object
+         */
+        synchronized void appendJson(StringBuilder sb) {
+            long lookups = hits + misses;
+            sb.append("{\"hits\": ").append(hits);
+            sb.append(", \"misses\": ").append(misses);
+            String hitRate =
+                    lookups == 0
+                            ? "0"
+                            : String.format(Locale.ROOT, "%.4f", hits / (double) lookups);
+            sb.append(", \"hitRate\": ").append(hitRate);
+            sb.append('}');
+        }
+    }
+
+    /**
+     * A view of a cache that counts the hits and misses of lookups. All operations write through
+     * to the cache.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    private static final class CountingMap<K, V> extends AbstractMap<K, V> {
+
+        /** The cache. */
+        private final Map<K, V> cache;
+
+        /** The counter of lookups. */
+        private final CacheCounter counter;
+
+        /**
+         * The key of the most recent call to {@link #containsKey}, if no {@code get} has been
+         * called since. A {@code get} of this key is not counted, because {@code containsKey}
+         * already was.
+         */
+        private @Nullable Object lastContainsKey = null;
+
+        /**
+         * Creates a view of {@code cache} that counts lookups.
+         *
+         * @param cache the cache
+         * @param counter the counter of lookups
+         */
+        CountingMap(Map<K, V> cache, CacheCounter counter) {
+            this.cache = cache;
+            this.counter = counter;
+        }
+
+        @Override
+        public int size() {
+            return cache.size();
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            boolean result = cache.containsKey(key);
+            counter.record(result);
+            lastContainsKey = key;
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("interning:not.interned") // identity of the key of containsKey
+        public @Nullable V get(@Nullable Object key) {
+            V result = cache.get(key);
+            if (key != null && key == lastContainsKey) {
+                lastContainsKey = null;
+            } else {
+                counter.record(result != null);
+            }
+            return result;
+        }
+
+        @Override
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+            counter.record(cache.containsKey(key));
+            return cache.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public @Nullable V put(K key, V value) {
+            return cache.put(key, value);
+        }
+
+        @Override
+        public @Nullable V remove(@Nullable Object key) {
+            return cache.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return cache.entrySet();
+        }
+    }
+}
@@ -0,0 +1,720 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.tree.JCTree;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Stores, in a directory, the diagnostics that a checker issued for each top-level class, so that
+ * a later compilation can skip type-checking a class that has not changed and replay its
+ * diagnostics instead. It is used when the {@code -AincrementalCache=dir} command-line option is
+ * supplied.
+ *
+ * <p>An entry for a class is valid if all of the following are unchanged since it was written:
+ *
+ * <ul>
+ *   <li>the source code of the compilation unit that contains the class, and the annotations of
+ *       its package;
+ *   <li>the checker jar, the command-line options, and the contents of the {@code -Astubs} and
+ *       {@code -Aajava} files;
+ *   <li>the signatures and annotations of every top-level class that the class depends on, and of
+ *       all their supertypes, and the annotations of their packages;
+ *   <li>the annotations of every package whose annotations were queried.
+ * </ul>
+ *
+ * <p>The dependencies of a class are recorded from several sources, because a checker can read
+ * the annotations of an element in several ways. {@link
+ * org.checkerframework.framework.type.AnnotatedTypeFactory} and {@link
+ * org.checkerframework.framework.stub.AnnotationFileElementTypes} report every element whose type
+ * or declaration annotations they look up, via {@link #recordDependency}. A checker can also read
+ * annotations directly from an element, for example with {@link Element#getAnnotationMirrors()} or
+ * {@link ElementUtils#hasAnnotation}, and those reads cannot be intercepted. To cover them, every
+ * element that the code of the class refers to is recorded as well, together with the supertypes
+ * of the class and of each dependency.
+ *
+ * <p>A diagnostic about an element is replayed at the same element. If a diagnostic is about an
+ * element that is not declared in the class, or that has no declaration tree, then no entry is
+ * written, because the diagnostic could not be replayed.
+ *
+ * <p>The cache is only used by the ultimate parent checker, which type-checks a class by running
+ * all its subcheckers, so an entry contains the diagnostics of all subcheckers.
+ */
+public final class IncrementalCache {
+
+    /** The version of the format of entries. Change it whenever the format changes. */
+    private static final String FORMAT_VERSION = "2";
+
+    /** The directory that contains the entries. */
+    private final Path dir;
+
+    /** The ultimate parent checker. */
+    private final SourceChecker checker;
+
+    /** The element utilities. */
+    private final Elements elements;
+
+    /** The type utilities. */
+    private final Types types;
+
+    /** The tree utilities. */
+    private final Trees trees;
+
+    /** The digest of everything that a type-checking result depends on, other than source code. */
+    private final String configurationDigest;
+
+    /** Memoizes {@link #digestOfSignature}; elements do not change during a compilation. */
+    private final Map<TypeElement, String> signatureDigests = new HashMap<>();
+
+    /** The class that is currently being type-checked, or null if none is. */
+    private @Nullable TypeElement currentClass = null;
+
+    /** The top-level classes that were queried while type-checking {@link #currentClass}. */
+    private final Set<TypeElement> currentDependencies = new LinkedHashSet<>();
+
+    /** The named packages that were queried while type-checking {@link #currentClass}. */
+    private final Set<PackageElement> currentPackages = new LinkedHashSet<>();
+
+    /**
+     * The classes, top-level or not, whose enclosing top-level class and supertypes have already
+     * been added to {@link #currentDependencies}.
+     */
+    private final Set<TypeElement> visitedTypes = new HashSet<>();
+
+    /** The diagnostics issued while type-checking {@link #currentClass}. */
+    private final List<String> currentMessages = new ArrayList<>();
+
+    /** The number of errors in {@link #currentMessages}. */
+    private int currentErrors = 0;
+
+    /**
+     * False if a diagnostic that cannot be replayed was issued while type-checking {@link
+     * #currentClass}.
+     */
+    private boolean currentReplayable = true;
+
+    /** True if a failure to write an entry has already been reported. */
+    private boolean reportedWriteFailure = false;
+
+    /**
+     * Creates an IncrementalCache.
+     *
+     * @param checker the ultimate parent checker
+     * @param dir the directory that contains the entries
+     */
+    public IncrementalCache(SourceChecker checker, Path dir) {
+        this.dir = dir.resolve(checker.getClass().getName());
+        this.checker = checker;
+        ProcessingEnvironment env = checker.getProcessingEnvironment();
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.trees = Trees.instance(env);
+        this.configurationDigest = digestOfConfiguration(checker);
+    }
+
+    /**
+     * If the cache has a valid entry for {@code classElt}, prints the diagnostics stored in it and
+     * returns true. Otherwise, returns false, and the caller must type-check the class.
+     *
+     * @param classElt a top-level class
+     * @param path the path to the class
+     * @return true if the diagnostics of the class were replayed from the cache
+     */
+    public boolean replay(TypeElement classElt, TreePath path) {
+        List<String> lines = readEntry(classElt);
+        if (lines == null
+                || lines.size() < 3
+                || !lines.get(0).equals("version " + FORMAT_VERSION)
+                || !lines.get(1).equals("configuration " + configurationDigest)
+                || !lines.get(2)
+                        .equals("source " + digestOfSource(classElt, path.getCompilationUnit()))) {
+            return false;
+        }
+        List<String[]> messages = new ArrayList<>();
+        for (String line : lines.subList(3, lines.size())) {
+            String[] fields = line.split(" ", 5);
+            if (fields[0].equals("dependency") && fields.length == 3) {
+                TypeElement dependency = elements.getTypeElement(fields[1]);
+                if (dependency == null || !digestOfSignature(dependency).equals(fields[2])) {
+                    return false;
+                }
+            } else if (fields[0].equals("package") && fields.length == 3) {
+                PackageElement pkg = elements.getPackageElement(fields[1]);
+                if (pkg == null || !digestOfPackage(pkg).equals(fields[2])) {
+                    return false;
+                }
+            } else if ((fields[0].equals("message") || fields[0].equals("element-message"))
+                    && fields.length == 5) {
+                messages.add(fields);
+            } else {
+                return false;
+            }
+        }
+
+        // The source code is unchanged, so each message is about a tree at the same position.
+        CompilationUnitTree root = path.getCompilationUnit();
+        Set<String> positions = new HashSet<>();
+        for (String[] message : messages) {
+            positions.add(message[2] + " " + message[3]);
+        }
+        Map<String, Tree> treesByPosition = new HashMap<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree != null) {
+                    String position = positionKey(tree);
+                    if (positions.contains(position)) {
+                        treesByPosition.putIfAbsent(position, tree);
+                    }
+                }
+                return super.scan(tree, p);
+            }
+        }.scan(root, null);
+        // A tree for a "message" line, and the element it declares for an "element-message" line.
+        List<Object> sources = new ArrayList<>(messages.size());
+        for (String[] message : messages) {
+            Tree source = treesByPosition.get(message[2] + " " + message[3]);
+            if (source == null) {
+                return false;
+            }
+            if (message[0].equals("element-message")) {
+                Element elt = trees.getElement(TreePath.getPath(root, source));
+                if (elt == null) {
+                    return false;
+                }
+                sources.add(elt);
+            } else {
+                sources.add(source);
+            }
+        }
+
+        Messager messager = checker.getProcessingEnvironment().getMessager();
+        for (int i = 0; i < messages.size(); i++) {
+            String[] message = messages.get(i);
+            Diagnostic.Kind kind = Diagnostic.Kind.valueOf(message[1]);
+            Object source = sources.get(i);
+            if (source instanceof Element) {
+                messager.printMessage(kind, unescape(message[4]), (Element) source);
+            } else {
+                trees.printMessage(kind, unescape(message[4]), (Tree) source, root);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts recording the dependencies and diagnostics of a class that is about to be
+     * type-checked.
+     *
+     * @param classElt a top-level class
+     */
+    public void startClass(TypeElement classElt) {
+        currentClass = classElt;
+        currentDependencies.clear();
+        currentPackages.clear();
+        visitedTypes.clear();
+        currentMessages.clear();
+        currentErrors = 0;
+        currentReplayable = true;
+        addDependency(classElt);
+    }
+
+    /**
+     * Stops recording, and writes the entry for the class passed to {@link #startClass}.
+     *
+     * @param path the path to the class
+     * @param errors the number of errors that javac reported while the class was type-checked. If
+     *     it differs from the number of recorded errors, then javac itself or a crash issued an
+     *     error, and no entry is written.
+     */
+    public void finishClass(TreePath path, int errors) {
+        TypeElement classElt = currentClass;
+        if (classElt == null || errors != currentErrors || !currentReplayable) {
+            currentClass = null;
+            return;
+        }
+        recordReferencedElements(path.getLeaf());
+        currentClass = null;
+        List<String> lines = new ArrayList<>();
+        lines.add("version " + FORMAT_VERSION);
+        lines.add("configuration " + configurationDigest);
+        lines.add("source " + digestOfSource(classElt, path.getCompilationUnit()));
+        for (TypeElement dependency : currentDependencies) {
+            lines.add(
+                    "dependency "
+                            + dependency.getQualifiedName()
+                            + " "
+                            + digestOfSignature(dependency));
+        }
+        for (PackageElement pkg : currentPackages) {
+            lines.add("package " + pkg.getQualifiedName() + " " + digestOfPackage(pkg));
+        }
+        lines.addAll(currentMessages);
+        writeEntry(classElt, lines);
+    }
+
+    /**
+     * Records that the result of type-checking the current class depends on the signature and
+     * annotations of {@code elt}. Does nothing if no class is being type-checked.
+     *
+     * @param elt an element whose annotated type or declaration annotations were queried
+     */
+    public void recordDependency(Element elt) {
+        if (currentClass == null || elt.getKind() == ElementKind.MODULE) {
+            return;
+        }
+        if (elt.getKind() == ElementKind.PACKAGE) {
+            PackageElement pkg = (PackageElement) elt;
+            if (!pkg.isUnnamed()) {
+                currentPackages.add(pkg);
+            }
+            return;
+        }
+        TypeElement enclosing = ElementUtils.enclosingTypeElement(elt);
+        if (enclosing != null) {
+            addDependency(enclosing);
+        }
+    }
+
+    /**
+     * Records that the current class depends on the top-level class that encloses {@code type},
+     * and on the top-level classes that enclose the supertypes of {@code type}, transitively.
+     *
+     * @param type a class
+     */
+    private void addDependency(TypeElement type) {
+        Deque<TypeElement> worklist = new ArrayDeque<>();
+        worklist.add(type);
+        while (!worklist.isEmpty()) {
+            TypeElement next = worklist.pop();
+            if (!visitedTypes.add(next)) {
+                continue;
+            }
+            TypeElement outermost = ElementUtils.toplevelEnclosingTypeElement(next);
+            if (outermost != currentClass) {
+                currentDependencies.add(outermost);
+            }
+            for (TypeMirror supertype : types.directSupertypes(next.asType())) {
+                if (supertype.getKind() == TypeKind.DECLARED) {
+                    worklist.add((TypeElement) ((DeclaredType) supertype).asElement());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records every element that the code of a class refers to by name, so that annotations that a
+     * checker reads directly from those elements are covered by the dependencies.
+     *
+     * @param tree the declaration of a class
+     */
+    private void recordReferencedElements(Tree tree) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void p) {
+                recordElementOf(node);
+                return super.visitIdentifier(node, p);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void p) {
+                recordElementOf(node);
+                return super.visitMemberSelect(node, p);
+            }
+
+            @Override
+            public Void visitMemberReference(MemberReferenceTree node, Void p) {
+                recordElementOf(node);
+                return super.visitMemberReference(node, p);
+            }
+
+            @Override
+            public Void visitNewClass(NewClassTree node, Void p) {
+                recordElementOf(node);
+                return super.visitNewClass(node, p);
+            }
+
+            /**
+             * Records the element that {@code node} refers to, if any.
+             *
+             * @param node a tree that refers to an element
+             */
+            private void recordElementOf(Tree node) {
+                Element elt = TreeUtils.elementFromTree(node);
+                if (elt != null) {
+                    recordDependency(elt);
+                }
+            }
+        }.scan(tree, null);
+    }
+
+    /**
+     * Records a diagnostic about the current class. Does nothing if no class is being
+     * type-checked.
+     *
+     * @param kind the kind of the diagnostic
+     * @param message the text of the diagnostic
+     * @param source the tree that the diagnostic is about
+     */
+    public void recordMessage(Diagnostic.Kind kind, String message, Tree source) {
+        if (currentClass == null) {
+            return;
+        }
+        currentMessages.add(
+                "message " + kind.name() + " " + positionKey(source) + " " + escape(message));
+        if (kind == Diagnostic.Kind.ERROR) {
+            currentErrors++;
+        }
+    }
+
+    /**
+     * Records a diagnostic about an element of the current class. Does nothing if no class is being
+     * type-checked. If the element is not declared by a tree of the current class, then no entry
+     * is written for the class.
+     *
+     * @param kind the kind of the diagnostic
+     * @param message the text of the diagnostic
+     * @param source the element that the diagnostic is about
+     */
+    public void recordMessage(Diagnostic.Kind kind, String message, Element source) {
+        if (currentClass == null) {
+            return;
+        }
+        if (kind == Diagnostic.Kind.ERROR) {
+            currentErrors++;
+        }
+        TypeElement enclosing = ElementUtils.enclosingTypeElement(source);
+        Tree tree = enclosing == null ? null : trees.getTree(source);
+        if (tree == null || ElementUtils.toplevelEnclosingTypeElement(enclosing) != currentClass) {
+            currentReplayable = false;
+            return;
+        }
+        currentMessages.add(
+                "element-message "
+                        + kind.name()
+                        + " "
+                        + positionKey(tree)
+                        + " "
+                        + escape(message));
+    }
+
+    /**
+     * Returns a string that identifies the position of a tree within its compilation unit.
+     *
+     * @param tree a tree
+     * @return the start and preferred position of {@code tree}, separated by a space
+     */
+    private static String positionKey(Tree tree) {
+        JCTree jcTree = (JCTree) tree;
+        return jcTree.getStartPosition() + " " + jcTree.getPreferredPosition();
+    }
+
+    /**
+     * Returns the digest of the source code of a compilation unit and of the annotations of the
+     * package of a class in it, which can come from a {@code package-info.java} file that is not
+     * part of the compilation unit.
+     *
+     * @param classElt a top-level class
+     * @param root the compilation unit that contains {@code classElt}
+     * @return the digest of the source code of {@code root} and of the annotations of the package
+     *     of {@code classElt}, or the empty string if the source code cannot be read
+     */
+    private String digestOfSource(TypeElement classElt, CompilationUnitTree root) {
+        String source;
+        try {
+            source = root.getSourceFile().getCharContent(true).toString();
+        } catch (IOException e) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        appendPackageAnnotations(elements.getPackageOf(classElt), sb);
+        return digest(sb.append(source).toString());
+    }
+
+    /**
+     * Returns the digest of the annotations of a package.
+     *
+     * @param pkg a package
+     * @return the digest of the annotations of {@code pkg}
+     */
+    private static String digestOfPackage(PackageElement pkg) {
+        StringBuilder sb = new StringBuilder();
+        appendPackageAnnotations(pkg, sb);
+        return digest(sb.toString());
+    }
+
+    /**
+     * Appends the name and the declaration annotations of a package to {@code sb}.
+     *
+     * @param pkg a package
+     * @param sb where to append the annotations
+     */
+    private static void appendPackageAnnotations(PackageElement pkg, StringBuilder sb) {
+        sb.append("package ").append(pkg.getQualifiedName());
+        for (AnnotationMirror anno : pkg.getAnnotationMirrors()) {
+            sb.append(' ').append(anno);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Returns the digest of the signature of a top-level class: the annotations of its package, and
+     * the kind, modifiers, type, and declaration annotations of the class and of all its members,
+     * recursively. The types include type annotations.
+     *
+     * @param classElt a top-level class
+     * @return the digest of the signature of {@code classElt}
+     */
+    private String digestOfSignature(TypeElement classElt) {
+        String result = signatureDigests.get(classElt);
+        if (result == null) {
+            StringBuilder sb = new StringBuilder();
+            appendPackageAnnotations(elements.getPackageOf(classElt), sb);
+            appendSignature(classElt, sb);
+            result = digest(sb.toString());
+            signatureDigests.put(classElt, result);
+        }
+        return result;
+    }
+
+    /**
+     * Appends the signature of an element and its members to {@code sb}.
+     *
+     * @param elt an element
+     * @param sb where to append the signature
+     */
+    private static void appendSignature(Element elt, StringBuilder sb) {
+        sb.append(elt.getKind())
+                .append(' ')
+                .append(elt.getModifiers())
+                .append(' ')
+                .append(elt)
+                .append(" : ")
+                .append(elt.asType());
+        for (AnnotationMirror anno : elt.getAnnotationMirrors()) {
+            sb.append(' ').append(anno);
+        }
+        if (elt instanceof TypeElement) {
+            TypeElement typeElt = (TypeElement) elt;
+            sb.append(" extends ").append(typeElt.getSuperclass());
+            sb.append(" implements ").append(typeElt.getInterfaces());
+        } else if (elt instanceof VariableElement) {
+            sb.append(" = ").append(((VariableElement) elt).getConstantValue());
+        }
+        sb.append('\n');
+        for (Element enclosed : elt.getEnclosedElements()) {
+            appendSignature(enclosed, sb);
+        }
+    }
+
+    /**
+     * Returns the digest of everything that a type-checking result depends on, other than the
+     * source code: the checker jar, the command-line options, and the {@code -Astubs} and {@code
+     * -Aajava} files.
+     *
+     * @param checker the ultimate parent checker
+     * @return the digest of the configuration of {@code checker}
+     */
+    private static String digestOfConfiguration(SourceChecker checker) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(checker.getClass().getName()).append('\n');
+        CodeSource codeSource = checker.getClass().getProtectionDomain().getCodeSource();
+        URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location != null) {
+            sb.append(location);
+            try {
+                File file = new File(location.toURI());
+                sb.append(' ').append(file.length()).append(' ').append(file.lastModified());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // The location is not a file; use only its name.
+            }
+            sb.append('\n');
+        }
+        sb.append(new TreeMap<>(checker.getProcessingEnvironment().getOptions())).append('\n');
+        for (String option : new String[] {"stubs", "ajava"}) {
+            for (String name : checker.getStringsOption(option, File.pathSeparator)) {
+                sb.append(name).append('\n');
+                appendFileContents(Paths.get(name), sb);
+            }
+        }
+        return digest(sb.toString());
+    }
+
+    /**
+     * Appends the contents of a file, or of all files in a directory, to {@code sb}. Does nothing
+     * if there is no such file, for example because it is a resource in a jar file.
+     *
+     * @param path a file or directory
+     * @param sb where to append the contents
+     */
+    private static void appendFileContents(Path path, StringBuilder sb) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            List<Path> files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            Collections.sort(files);
+            for (Path file : files) {
+                sb.append(file).append('\n');
+                sb.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // An unreadable file will also be unreadable when it is parsed; it has no contents.
+        }
+    }
+
+    /**
+     * Returns the lines of the entry for a class, or null if there is none.
+     *
+     * @param classElt a top-level class
+     * @return the lines of the entry for {@code classElt}, or null if there is none
+     */
+    private @Nullable List<String> readEntry(TypeElement classElt) {
+        Path file = entryFile(classElt);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry for a class. The file is written atomically, so that concurrent builds
+     * never read a partial entry.
+     *
+     * @param classElt a top-level class
+     * @param lines the lines of the entry
+     */
+    private void writeEntry(TypeElement classElt, List<String> lines) {
+        Path file = entryFile(classElt);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (!reportedWriteFailure) {
+                reportedWriteFailure = true;
+                checker.message(
+                        Diagnostic.Kind.WARNING,
+                        "Cannot write to -AincrementalCache directory %s: %s",
+                        dir,
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the file that holds the entry for a class.
+     *
+     * @param classElt a top-level class
+     * @return the file that holds the entry for {@code classElt}
+     */
+    private Path entryFile(TypeElement classElt) {
+        return dir.resolve(classElt.getQualifiedName() + ".txt");
+    }
+
+    /**
+     * Returns the SHA-256 digest of a string, in hexadecimal.
+     *
+     * @param s a string
+     * @return the SHA-256 digest of {@code s}, in hexadecimal
+     */
+    private static String digest(String s) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error("SHA-256 is required of every Java platform", e);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest(s.getBytes(StandardCharsets.UTF_8))) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escapes backslashes and line terminators, so that a message fits on one line.
+     *
+     * @param s a message
+     * @return {@code s}, escaped
+     */
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Undoes {@link #escape}.
+     *
+     * @param s an escaped message
+     * @return the original message
+     */
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -33,9 +33,11 @@ import org.checkerframework.checker.signature.qual.FullyQualifiedName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.framework.qual.AnnotatedFor;
+import org.checkerframework.framework.stub.ParallelStubParser;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.OptionConfiguration;
+import org.checkerframework.framework.util.SharedCompilationCaches;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
@@ -64,6 +66,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayDeque;
@@ -73,6 +76,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -347,6 +352,11 @@ import javax.tools.Diagnostic;
     // org.checkerframework.common.basetype.BaseTypeVisitor.checkSlowTypechecking
     "slowTypecheckingSeconds",
 
+    // Write a JSON report of the time spent in each phase of type-checking, per class and per
+    // method, and of the hit rates of the caches of the type factories, to the given file.
+    // org.checkerframework.framework.source.CheckerProfiler
+    "profile",
+
     // Print the version of the Checker Framework
     "version",
 
@@ -405,6 +415,22 @@ import javax.tools.Diagnostic;
     // org.checkerframework.framework.stub.AnnotationFileElementTypes.AnnotationFileElementTypes
     "parseAllJdk",
 
+    // Parse annotation files (stub files, ajava files, and the annotated JDK) with JavaParser on
+    // the given number of worker threads (default: the number of processors), and share the parsed
+    // files among the checker and all its subcheckers.
+    // org.checkerframework.framework.stub.ParallelStubParser
+    "parallelStubParsing",
+
+    // Keep the parsed files of the annotated JDK in memory, and reuse them in later compilations
+    // in the same JVM, such as in a build daemon.
+    // org.checkerframework.framework.stub.AnnotatedJdkCache
+    "jdkStubCache",
+
+    // Store the diagnostics of each class in the given directory, and skip type-checking classes
+    // whose source code and dependencies are unchanged since they were stored.
+    // org.checkerframework.framework.source.IncrementalCache
+    "incrementalCache",
+
     // Whether to print debugging messages while processing the stub files
     // org.checkerframework.framework.stub.AnnotationFileParser.debugAnnotationFileParser
     "stubDebug",
@@ -462,6 +488,19 @@ import javax.tools.Diagnostic;
     // Sets AnnotatedTypeFactory shouldCache to false
     "atfDoNotCache",
 
+    // During dataflow analysis, record the store after every k-th node of each basic block, so
+    // that looking up the store at a node re-runs the transfer function on at most k nodes.
+    // org.checkerframework.dataflow.analysis.AbstractAnalysis.checkpoints
+    "flowCheckpointInterval",
+
+    // The number of subtyping results to cache, keyed by the structure of the two types.
+    // org.checkerframework.framework.type.DefaultTypeHierarchy.subtypeCache
+    "subtypeCacheSize",
+
+    // Discard the dataflow results for each top-level class once it has been type-checked.
+    // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.releaseFlowResults
+    "releaseFlowResults",
+
     // Language Server Protocol (LSP) Support
 
     // Output detailed type information for nodes in AST
@@ -721,11 +760,27 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     protected @MonotonicNonNull List<SourceChecker> immediateSubcheckers = null;
 
     /**
-     * TreePathCacher to share between subcheckers. Initialized either in {@link
+     * TreePathCacher to share between subcheckers, and between all checkers in the processing
+     * environment (see {@link SharedCompilationCaches}). Initialized either in {@link
      * #getTreePathCacher()} or {@link #instantiateSubcheckers(Map)}.
      */
     protected TreePathCacher treePathCacher = null;
 
+    /**
+     * Parses annotation files for all type factories of this checker and its subcheckers. Null
+     * until {@link #getParallelStubParser()} first creates it, and always null for subcheckers.
+     */
+    private @MonotonicNonNull ParallelStubParser parallelStubParser = null;
+
+    /**
+     * The cache of diagnostics of unchanged classes. Null until {@link #getIncrementalCache()}
+     * first creates it, and always null for subcheckers.
+     */
+    private @MonotonicNonNull IncrementalCache incrementalCache = null;
+
+    /** The profiler of this checker. Null until {@link #getProfiler()} first creates it. */
+    private @MonotonicNonNull CheckerProfiler profiler = null;
+
     /** Creates a source checker. */
     protected SourceChecker() {}
 
@@ -736,6 +791,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         super.init(unwrappedEnv);
         // Sets processing enviroment and other related fields.
         setProcessingEnvironment(unwrappedEnv);
+        // Share caches with the other checkers that javac runs; see getTreePathCacher().
+        SharedCompilationCaches.instance(unwrappedEnv).register(this);
 
         // Keep in sync with check in checker-framework/build.gradle .
         int jreVersion = SystemUtil.jreVersion;
@@ -824,9 +881,22 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     protected void setRoot(CompilationUnitTree newRoot) {
         this.currentRoot = newRoot;
         visitor.setRoot(currentRoot);
+        declarationSuppressionScopes.clear();
+        elementSuppressionScopes.clear();
+        if (parentChecker == null) {
+            // Only release the path cache if this is the main checker. The paths of a compilation
+            // unit are cleared once all checkers are done with it.
+            SharedCompilationCaches.instance(processingEnv).enterCompilationUnit(this, newRoot);
+        }
+    }
+
+    /**
+     * Releases the caches shared with other checkers (see {@link SharedCompilationCaches}), because
+     * this checker will not type-check any more compilation units.
+     */
+    private void stopSharingCompilationCaches() {
         if (parentChecker == null) {
-            // Only clear the path cache if this is the main checker.
-            treePathCacher.clear();
+            SharedCompilationCaches.instance(processingEnv).finish(this);
         }
     }
 
@@ -1141,6 +1211,13 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         for (SourceChecker checker : getSubcheckers()) {
             checker.typeProcessingOver();
         }
+        if (parallelStubParser != null) {
+            parallelStubParser.shutdown();
+        }
+        if (parentChecker == null && profiler != null && profiler.isEnabled()) {
+            writeProfile(profiler);
+        }
+        stopSharingCompilationCaches();
 
         super.typeProcessingOver();
     }
@@ -1320,18 +1397,162 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     public TreePathCacher getTreePathCacher() {
         if (treePathCacher == null) {
             // In case it wasn't already set in instantiateSubcheckers.
-            treePathCacher = new TreePathCacher();
+            treePathCacher =
+                    parentChecker == null
+                            ? SharedCompilationCaches.instance(processingEnv).getTreePathCacher()
+                            : new TreePathCacher();
         }
         return treePathCacher;
     }
 
+    /**
+     * Returns the parser of annotation files that is shared by this checker and all its
+     * subcheckers, or null if the {@code -AparallelStubParsing} command-line option was not
+     * supplied.
+     *
+     * <p>Only the JavaParser parse of stub files and of the annotated JDK runs on worker threads.
+     * Compilation units are type-checked on the javac thread, as without the option.
+     *
+     * @return the shared parser of annotation files, or null if {@code -AparallelStubParsing} was
+     *     not supplied
+     */
+    public @Nullable ParallelStubParser getParallelStubParser() {
+        if (parentChecker != null) {
+            return parentChecker.getParallelStubParser();
+        }
+        if (parallelStubParser == null && hasOption("parallelStubParsing")) {
+            String option = getOption("parallelStubParsing");
+            int numThreads;
+            if (option == null || option.isEmpty()) {
+                numThreads = Runtime.getRuntime().availableProcessors();
+            } else {
+                try {
+                    numThreads = Integer.parseInt(option);
+                } catch (NumberFormatException e) {
+                    throw new UserError("-AparallelStubParsing was not an integer: " + option);
+                }
+                if (numThreads < 1) {
+                    throw new UserError("-AparallelStubParsing must be positive: " + option);
+                }
+            }
+            // Each BaseTypeChecker in the hierarchy has one type factory that reads annotation
+            // files.
+            int numFactories = this instanceof BaseTypeChecker ? 1 : 0;
+            for (SourceChecker subchecker : getSubcheckers()) {
+                if (subchecker instanceof BaseTypeChecker) {
+                    numFactories++;
+                }
+            }
+            parallelStubParser = new ParallelStubParser(numThreads, numFactories);
+        }
+        return parallelStubParser;
+    }
+
+    /**
+     * Returns the cache of diagnostics of unchanged classes that is shared by this checker and all
+     * its subcheckers, or null if the {@code -AincrementalCache} command-line option was not
+     * supplied.
+     *
+     * @return the cache of diagnostics of unchanged classes, or null if {@code -AincrementalCache}
+     *     was not supplied
+     */
+    public @Nullable IncrementalCache getIncrementalCache() {
+        if (parentChecker != null) {
+            return parentChecker.getIncrementalCache();
+        }
+        if (incrementalCache == null) {
+            String dir = getOption("incrementalCache");
+            if (dir != null) {
+                incrementalCache = new IncrementalCache(this, Paths.get(dir));
+            }
+        }
+        return incrementalCache;
+    }
+
+    /**
+     * Returns the profiler of this checker. If the {@code -Aprofile} command-line option was not
+     * supplied, the profiler records nothing.
+     *
+     * @return the profiler of this checker
+     */
+    public CheckerProfiler getProfiler() {
+        if (profiler == null) {
+            if (hasOption("profile")) {
+                profiler = new CheckerProfiler(this);
+                if (parentChecker != null) {
+                    parentChecker.getProfiler().addSubcheckerProfiler(profiler);
+                }
+            } else {
+                profiler = CheckerProfiler.DISABLED;
+            }
+        }
+        return profiler;
+    }
+
+    /**
+     * Writes the report of the given profiler to the file given by the {@code -Aprofile}
+     * command-line option.
+     *
+     * @param profiler the profiler of this checker, which is the ultimate parent checker
+     */
+    private void writeProfile(CheckerProfiler profiler) {
+        String file = getOption("profile");
+        if (file == null || file.isEmpty()) {
+            message(
+                    Diagnostic.Kind.WARNING,
+                    "-Aprofile requires a file name, as in -Aprofile=profile.json");
+            return;
+        }
+        try {
+            profiler.writeReport(Paths.get(file));
+        } catch (IOException e) {
+            message(
+                    Diagnostic.Kind.WARNING,
+                    "Cannot write -Aprofile file %s: %s",
+                    file,
+                    e.getMessage());
+        }
+    }
+
     /**
      * Type-check the code using this checker's visitor.
      *
+     * <p>If the {@code -AincrementalCache} command-line option was supplied and neither the class
+     * nor anything it depends on has changed since it was last type-checked, then instead of
+     * type-checking it, print the diagnostics that were issued back then.
+     *
      * @see Processor#process(Set, RoundEnvironment)
      */
     @Override
     public void typeProcess(TypeElement e, TreePath p) {
+        IncrementalCache cache =
+                (parentChecker == null && e != null && p != null) ? getIncrementalCache() : null;
+        if (cache == null) {
+            typeProcessClass(e, p);
+            return;
+        }
+
+        Log log = Log.instance(((JavacProcessingEnvironment) processingEnv).getContext());
+        if (!javacErrored && log.nerrors == this.errsOnLastExit && cache.replay(e, p)) {
+            this.errsOnLastExit = log.nerrors;
+            return;
+        }
+        cache.startClass(e);
+        int errorsBefore = log.nerrors;
+        try {
+            typeProcessClass(e, p);
+        } finally {
+            cache.finishClass(p, log.nerrors - errorsBefore);
+        }
+    }
+
+    /**
+     * Type-check the code using this checker's visitor, after running all subcheckers on it.
+     *
+     * @param e the top-level class to type-check
+     * @param p the path to {@code e}
+     */
+    private void typeProcessClass(TypeElement e, TreePath p) {
         if (messageStore != null && parentChecker == null) {
             messageStore.clear();
         }
@@ -1363,6 +1584,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         this.errsOnLastExit = numErrorsOfAllPreviousCheckers;
 
         if (javacErrored) {
+            stopSharingCompilationCaches();
             return;
         }
 
@@ -1407,6 +1629,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         if (log.nerrors > this.errsOnLastExit) {
             this.errsOnLastExit = log.nerrors;
             javacErrored = true;
+            stopSharingCompilationCaches();
             return;
         }
 
@@ -1414,6 +1637,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
             // typeProcessingStart invokes initChecker, which should have set the visitor. If the
             // field is still null, an exception occurred during initialization, which was already
             // logged there. Don't also cause a NPE here.
+            stopSharingCompilationCaches();
             return;
         }
         if (p.getCompilationUnit() != currentRoot) {
@@ -1438,6 +1662,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         }
 
         // Visit the attributed tree.
+        CheckerProfiler profiler = getProfiler();
+        profiler.setCurrentClass(e.getQualifiedName().toString());
+        long startNanos = profiler.start();
         try {
             visitor.visit(p);
             warnUnneededSuppressions();
@@ -1450,6 +1677,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         } catch (Throwable t) {
             logBugInCF(wrapThrowableAsBugInCF("SourceChecker.typeProcess", t, p));
         } finally {
+            profiler.stop(CheckerProfiler.Phase.VISITOR, null, startNanos);
+            profiler.setCurrentClass(null);
             // Also add possibly deferred diagnostics, which will get published back in
             // AbstractTypeProcessor.
             this.errsOnLastExit = log.nerrors;
@@ -1570,6 +1799,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         }
 
         if (preciseSource instanceof Element) {
+            IncrementalCache cache = getIncrementalCache();
+            if (cache != null) {
+                cache.recordMessage(kind, messageText, (Element) preciseSource);
+            }
             messager.printMessage(kind, messageText, (Element) preciseSource);
         } else if (preciseSource instanceof Tree) {
             printOrStoreMessage(kind, messageText, (Tree) preciseSource, currentRoot);
@@ -1729,6 +1962,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
             Tree source,
             CompilationUnitTree root,
             StackTraceElement[] trace) {
+        IncrementalCache cache = getIncrementalCache();
+        if (cache != null) {
+            cache.recordMessage(kind, message, source);
+        }
         Trees.instance(processingEnv).printMessage(kind, message, source, root);
         printStackTrace(trace);
     }
@@ -2760,64 +2997,14 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
             return false;
         }
 
-        // iterate through the path; continue until path contains no declarations
-        for (TreePath declPath = TreePathUtil.enclosingDeclarationPath(path);
-                declPath != null;
-                declPath = TreePathUtil.enclosingDeclarationPath(declPath.getParentPath())) {
-
-            Tree decl = declPath.getLeaf();
-
-            if (decl instanceof VariableTree) {
-                Element elt = TreeUtils.elementFromDeclaration((VariableTree) decl);
-                if (shouldSuppressWarnings(elt, errKey)) {
-                    return true;
-                }
-            } else if (decl instanceof MethodTree) {
-                Element elt = TreeUtils.elementFromDeclaration((MethodTree) decl);
-                if (shouldSuppressWarnings(elt, errKey)) {
-                    return true;
-                }
-
-                if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
-                    // Return false immediately. Do NOT check for AnnotatedFor in the enclosing
-                    // elements as the closest AnnotatedFor is already found.
-                    return false;
-                }
-            } else if (TreeUtils.classTreeKinds().contains(decl.getKind())) {
-                // A class tree
-                Element elt = TreeUtils.elementFromDeclaration((ClassTree) decl);
-                if (shouldSuppressWarnings(elt, errKey)) {
-                    return true;
-                }
-
-                if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
-                    // Return false immediately. Do NOT check for AnnotatedFor in the enclosing
-                    // elements as the closest AnnotatedFor is already found.
-                    return false;
-                }
-                Element packageElement = elt.getEnclosingElement();
-                if (packageElement != null && packageElement.getKind() == ElementKind.PACKAGE) {
-                    if (shouldSuppressWarnings(packageElement, errKey)) {
-                        return true;
-                    }
-                    if (isAnnotatedForThisCheckerOrUpstreamChecker(packageElement)) {
-                        // Return false immediately. Do NOT check for AnnotatedFor in the enclosing
-                        // elements as the closest AnnotatedFor is already found.
-                        return false;
-                    }
-                }
-            } else {
-                throw new BugInCF("Unexpected declaration kind: " + decl.getKind() + " " + decl);
-            }
+        TreePath declPath = TreePathUtil.enclosingDeclarationPath(path);
+        if (declPath == null) {
+            return useConservativeDefaultsSource || onlyAnnotatedFor;
         }
-
-        if (useConservativeDefaultsSource || onlyAnnotatedFor) {
-            // If we got this far without hitting an @AnnotatedFor and returning
-            // false, we DO suppress the warning.
+        if (shouldSuppress(getSuppressWarningsStringsFromOption(), errKey)) {
             return true;
         }
-
-        return false;
+        return shouldSuppressWarnings(getSuppressionScope(declPath), errKey);
     }
 
     /**
@@ -2868,25 +3055,196 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         if (shouldSuppress(getSuppressWarningsStringsFromOption(), errKey)) {
             return true;
         }
+        if (elt == null) {
+            return false;
+        }
+
+        SuppressionScope scope = elementSuppressionScopes.get(elt);
+        if (scope == null) {
+            Map<Element, String[]> suppressWarnings = new LinkedHashMap<>();
+            addSuppressWarnings(elt, suppressWarnings);
+            scope = new SuppressionScope(suppressWarnings, false);
+            elementSuppressionScopes.put(elt, scope);
+        }
+        return shouldSuppressWarnings(scope, errKey);
+    }
+
+    /**
+     * The {@code @SuppressWarnings} annotations that are in effect at a declaration or element, in
+     * the order in which they are consulted. A warning at the declaration is suppressed by the
+     * first annotation one of whose strings suppresses it. The decision for each message key is
+     * remembered, so that every later warning with the same message key needs only one lookup.
+     */
+    private static final class SuppressionScope {
+
+        /** The elements that have a {@code @SuppressWarnings} annotation in effect, in order. */
+        final Element[] elements;
+
+        /** The {@code @SuppressWarnings} strings of each element of {@link #elements}. */
+        final String[][] suppressWarningsStrings;
+
+        /**
+         * True if a warning that no {@code @SuppressWarnings} string suppresses is suppressed
+         * nonetheless, because the declaration is not within the scope of an {@code @AnnotatedFor}
+         * annotation and {@code -AonlyAnnotatedFor} or conservative defaults for source code are in
+         * effect.
+         */
+        final boolean suppressUnmatched;
+
+        /**
+         * Maps a message key to the index in {@link #elements} of the element that suppresses it,
+         * or to -1 if none does.
+         */
+        final Map<String, Integer> decisions = new HashMap<>();
+
+        /**
+         * Creates a suppression scope.
+         *
+         * @param suppressWarnings the elements that have a {@code @SuppressWarnings} annotation in
+         *     effect, in order, and their {@code @SuppressWarnings} strings
+         * @param suppressUnmatched true if a warning that no {@code @SuppressWarnings} string
+         *     suppresses is suppressed nonetheless
+         */
+        SuppressionScope(Map<Element, String[]> suppressWarnings, boolean suppressUnmatched) {
+            this.elements = suppressWarnings.keySet().toArray(new Element[0]);
+            this.suppressWarningsStrings = suppressWarnings.values().toArray(new String[0][]);
+            this.suppressUnmatched = suppressUnmatched;
+        }
+    }
+
+    /**
+     * The suppression scope of each declaration of the current compilation unit for which one was
+     * needed. Cleared when the compilation unit changes.
+     */
+    private final Map<Tree, SuppressionScope> declarationSuppressionScopes =
+            new IdentityHashMap<>();
+
+    /**
+     * The suppression scope of each element for which one was needed while checking the current
+     * compilation unit. Cleared when the compilation unit changes.
+     */
+    private final Map<Element, SuppressionScope> elementSuppressionScopes = new HashMap<>();
+
+    /**
+     * Returns true if a warning with message key {@code errKey} is suppressed in {@code scope}. If
+     * a {@code @SuppressWarnings} annotation suppresses it, records that annotation as needed.
+     *
+     * @param scope a suppression scope
+     * @param errKey the error key the checker is emitting
+     * @return true if a warning with message key {@code errKey} is suppressed in {@code scope}
+     */
+    private boolean shouldSuppressWarnings(SuppressionScope scope, String errKey) {
+        Integer index = scope.decisions.get(errKey);
+        if (index == null) {
+            index = -1;
+            for (int i = 0; i < scope.elements.length; i++) {
+                if (shouldSuppress(scope.suppressWarningsStrings[i], errKey)) {
+                    index = i;
+                    break;
+                }
+            }
+            scope.decisions.put(errKey, index);
+        }
+        if (index == -1) {
+            return scope.suppressUnmatched;
+        }
+        if (warnUnneededSuppressions) {
+            elementsWithSuppressedWarnings.add(scope.elements[index]);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the suppression scope of the declaration at the leaf of {@code declPath}, computing
+     * it from the scope of the enclosing declaration if necessary.
+     *
+     * <p>A warning within a declaration is suppressed by the {@code @SuppressWarnings} annotations
+     * of the declaration and of its enclosing elements. The search stops at a method, class, or
+     * package that has an {@code @AnnotatedFor} annotation for this checker; in that case, only
+     * its own {@code @SuppressWarnings} annotation is consulted.
+     *
+     * @param declPath the path to a variable, method, or class declaration
+     * @return the suppression scope of the declaration
+     */
+    private SuppressionScope getSuppressionScope(TreePath declPath) {
+        Tree decl = declPath.getLeaf();
+        SuppressionScope scope = declarationSuppressionScopes.get(decl);
+        if (scope != null) {
+            return scope;
+        }
+
+        Map<Element, String[]> suppressWarnings = new LinkedHashMap<>();
+        // True if the search stops at this declaration, because it is within the scope of an
+        // @AnnotatedFor annotation.
+        boolean annotatedFor;
+        if (decl instanceof VariableTree) {
+            Element elt = TreeUtils.elementFromDeclaration((VariableTree) decl);
+            addSuppressWarnings(elt, suppressWarnings);
+            annotatedFor = false;
+        } else if (decl instanceof MethodTree) {
+            Element elt = TreeUtils.elementFromDeclaration((MethodTree) decl);
+            addSuppressWarnings(elt, suppressWarnings);
+            annotatedFor = isAnnotatedForThisCheckerOrUpstreamChecker(elt);
+        } else if (TreeUtils.classTreeKinds().contains(decl.getKind())) {
+            Element elt = TreeUtils.elementFromDeclaration((ClassTree) decl);
+            addSuppressWarnings(elt, suppressWarnings);
+            annotatedFor = isAnnotatedForThisCheckerOrUpstreamChecker(elt);
+            Element packageElement = elt.getEnclosingElement();
+            if (!annotatedFor
+                    && packageElement != null
+                    && packageElement.getKind() == ElementKind.PACKAGE) {
+                addSuppressWarnings(packageElement, suppressWarnings);
+                annotatedFor = isAnnotatedForThisCheckerOrUpstreamChecker(packageElement);
+            }
+        } else {
+            throw new BugInCF("Unexpected declaration kind: " + decl.getKind() + " " + decl);
+        }
+
+        boolean suppressUnmatched;
+        if (annotatedFor) {
+            suppressUnmatched = false;
+        } else {
+            TreePath enclosingDeclPath =
+                    TreePathUtil.enclosingDeclarationPath(declPath.getParentPath());
+            if (enclosingDeclPath == null) {
+                // If we got this far without hitting an @AnnotatedFor, we DO suppress the warning.
+                suppressUnmatched = useConservativeDefaultsSource || onlyAnnotatedFor;
+            } else {
+                SuppressionScope enclosingScope = getSuppressionScope(enclosingDeclPath);
+                for (int i = 0; i < enclosingScope.elements.length; i++) {
+                    suppressWarnings.putIfAbsent(
+                            enclosingScope.elements[i], enclosingScope.suppressWarningsStrings[i]);
+                }
+                suppressUnmatched = enclosingScope.suppressUnmatched;
+            }
+        }
 
+        scope = new SuppressionScope(suppressWarnings, suppressUnmatched);
+        declarationSuppressionScopes.put(decl, scope);
+        return scope;
+    }
+
+    /**
+     * Adds to {@code suppressWarnings} the {@code @SuppressWarnings} strings of {@code elt} and of
+     * its enclosing elements, innermost first. If {@code elt} has an {@code @AnnotatedFor}
+     * annotation for this checker, only its own strings are added. Elements that are already in
+     * {@code suppressWarnings} are not added again.
+     *
+     * @param elt an element
+     * @param suppressWarnings maps elements to their {@code @SuppressWarnings} strings, in order
+     */
+    private void addSuppressWarnings(Element elt, Map<Element, String[]> suppressWarnings) {
         for (Element currElt = elt; currElt != null; currElt = currElt.getEnclosingElement()) {
             SuppressWarnings suppressWarningsAnno = currElt.getAnnotation(SuppressWarnings.class);
             if (suppressWarningsAnno != null) {
-                String[] suppressWarningsStrings = suppressWarningsAnno.value();
-                if (shouldSuppress(suppressWarningsStrings, errKey)) {
-                    if (warnUnneededSuppressions) {
-                        elementsWithSuppressedWarnings.add(currElt);
-                    }
-                    return true;
-                }
+                suppressWarnings.putIfAbsent(currElt, suppressWarningsAnno.value());
             }
             if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
-                // Return false immediately. Do NOT check for AnnotatedFor in the
-                // enclosing elements, because they may not have an @AnnotatedFor.
-                return false;
+                // Do NOT check for AnnotatedFor in the enclosing elements, because they may not
+                // have an @AnnotatedFor.
+                return;
             }
         }
-        return false;
     }
 
     /**
@@ -0,0 +1,128 @@
+package org.checkerframework.framework.stub;
+
+import com.github.javaparser.ast.StubUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * A cache of the parsed files of the annotated JDK, shared by all compilations that load this class
+ * with the same class loader. It is used when the {@code -AjdkStubCache} command-line option is
+ * supplied.
+ *
+ * <p>The cache lives in static fields, so it only outlives a compilation if the Checker Framework
+ * does. javac loads annotation processors that are found on the {@code -processorpath} with a new
+ * class loader for every compilation, so when a build tool such as Gradle or Maven passes the
+ * checker on the processor path, each compilation starts with an empty cache, even in a build
+ * daemon. The cache pays off when the Checker Framework is loaded by a long-lived class loader:
+ * for example, by the {@link org.checkerframework.framework.util.CheckerDaemon} that {@code java
+ * -jar checker.jar -startDaemon} runs, or when the checker is on the class path of a JVM that
+ * runs javac in process several times.
+ *
+ * <p>Entries are keyed by the path of the file or jar file that holds the annotated JDK together
+ * with its size and modification time, so a rebuilt checker jar is never served stale data. The
+ * cached ASTs are held by soft references, so the garbage collector reclaims them before running
+ * out of memory. The ASTs are never modified after parsing, so compilations that run concurrently
+ * in the same JVM can share them.
+ */
+final class AnnotatedJdkCache {
+
+    /** Maps a key, as returned by {@link #key}, to the AST of the file with that key. */
+    private static final Map<String, SoftReference<StubUnit>> stubUnits =
+            new ConcurrentHashMap<>();
+
+    /** Maps the key of a jar file to the sorted names of the files in it. */
+    private static final Map<String, List<String>> jarFileNames = new ConcurrentHashMap<>();
+
+    /** Do not instantiate. */
+    private AnnotatedJdkCache() {
+        throw new Error("Do not instantiate");
+    }
+
+    /**
+     * Returns a key that identifies the current version of a file.
+     *
+     * @param file a file or jar file
+     * @param entryName the name of an entry in {@code file}, or null if {@code file} is not a jar
+     *     file
+     * @return a key that changes whenever {@code file} changes
+     */
+    static String key(File file, @Nullable String entryName) {
+        String key = file.getAbsolutePath() + "@" + file.length() + ":" + file.lastModified();
+        return entryName == null ? key : key + "!/" + entryName;
+    }
+
+    /**
+     * Returns true if the AST of the file with the given key is in the cache.
+     *
+     * @param key a key, as returned by {@link #key}
+     * @return true if the AST of the file with the given key is in the cache
+     */
+    static boolean contains(String key) {
+        SoftReference<StubUnit> ref = stubUnits.get(key);
+        return ref != null && ref.get() != null;
+    }
+
+    /**
+     * Returns the AST of the file with the given key. If it is not in the cache, obtains it from
+     * {@code parser} and caches it.
+     *
+     * @param key a key, as returned by {@link #key}
+     * @param parser parses the file; may throw {@link com.github.javaparser.ParseProblemException},
+     *     in which case nothing is cached
+     * @return the AST of the file with the given key
+     */
+    static StubUnit getStubUnit(String key, Supplier<StubUnit> parser) {
+        SoftReference<StubUnit> ref = stubUnits.get(key);
+        StubUnit stubUnit = ref == null ? null : ref.get();
+        if (stubUnit == null) {
+            stubUnit = parser.get();
+            stubUnits.put(key, new SoftReference<>(stubUnit));
+        }
+        return stubUnit;
+    }
+
+    /**
+     * Returns the names of the files (not directories) in a jar file, in sorted order.
+     *
+     * @param jarFile a jar file
+     * @param useCache if true, use and update the cache; otherwise, always read {@code jarFile}
+     * @return the sorted names of the files in {@code jarFile}
+     */
+    static List<String> getJarFileNames(JarFile jarFile, boolean useCache) {
+        if (!useCache) {
+            return readJarFileNames(jarFile);
+        }
+        return jarFileNames.computeIfAbsent(
+                key(new File(jarFile.getName()), null), k -> readJarFileNames(jarFile));
+    }
+
+    /**
+     * Reads the names of the files (not directories) in a jar file, in sorted order.
+     *
+     * @param jarFile a jar file
+     * @return the sorted names of the files in {@code jarFile}
+     */
+    private static List<String> readJarFileNames(JarFile jarFile) {
+        List<String> result = new ArrayList<>();
+        for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements(); ) {
+            JarEntry jarEntry = e.nextElement();
+            if (!jarEntry.isDirectory()) {
+                result.add(jarEntry.getName());
+            }
+        }
+        Collections.sort(result);
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -1,11 +1,14 @@
 package org.checkerframework.framework.stub;
 
+import com.github.javaparser.ast.StubUnit;
 import com.sun.source.tree.CompilationUnitTree;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.CanonicalNameOrEmpty;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.framework.qual.StubFiles;
+import org.checkerframework.framework.source.CheckerProfiler;
+import org.checkerframework.framework.source.IncrementalCache;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.stub.AnnotationFileParser.AnnotationFileAnnotations;
 import org.checkerframework.framework.stub.AnnotationFileParser.RecordComponentStub;
@@ -13,12 +16,12 @@ import org.checkerframework.framework.stub.AnnotationFileUtil.AnnotationFileType
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.JavaParserUtil;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.SystemUtil;
 import org.checkerframework.javacutil.TypesUtils;
-import org.plumelib.util.CollectionsPlume;
 import org.plumelib.util.IPair;
 import org.plumelib.util.SystemPlume;
 
@@ -37,14 +40,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
-import java.util.jar.JarEntry;
+import java.util.function.Supplier;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -108,6 +110,9 @@ public class AnnotationFileElementTypes {
     /** True if -AstubDebug was passed on the command line. */
     private final boolean stubDebug;
 
+    /** True if -AjdkStubCache was passed on the command line. */
+    private final boolean jdkStubCache;
+
     /**
      * Stores the fully qualified name of top-level classes (from any type of stub file) that are
      * currently being parsed. This can stop recursively parsing an annotated JDK class that is
@@ -115,6 +120,20 @@ public class AnnotationFileElementTypes {
      */
     private final Set<String> processingClasses = new LinkedHashSet<>();
 
+    /**
+     * Parses annotation files on worker threads and shares them with the other type factories of
+     * the compilation, or null if the {@code -AparallelStubParsing} command-line option was not
+     * supplied.
+     */
+    private final @Nullable ParallelStubParser stubParser;
+
+    /**
+     * The cache of diagnostics of unchanged classes, to which this object reports the elements
+     * whose annotations are looked up; null if the {@code -AincrementalCache} command-line option
+     * was not supplied.
+     */
+    private final @Nullable IncrementalCache incrementalCache;
+
     /**
      * Creates an empty annotation source.
      *
@@ -134,6 +153,9 @@ public class AnnotationFileElementTypes {
         this.parseAllJdkFiles = checker.hasOption("parseAllJdk");
         this.permitMissingJdk = checker.hasOption("permitMissingJdk");
         this.stubDebug = checker.hasOption("stubDebug");
+        this.jdkStubCache = checker.hasOption("jdkStubCache");
+        this.stubParser = checker.getParallelStubParser();
+        this.incrementalCache = checker.getIncrementalCache();
     }
 
     /**
@@ -250,9 +272,10 @@ public class AnnotationFileElementTypes {
                             stubFileName,
                             jdkVersionStubIn);
                 }
+                String filename = checkerClass.getResource(stubFileName).toString();
                 AnnotationFileParser.parseStubFile(
-                        checkerClass.getResource(stubFileName).toString(),
-                        jdkVersionStubIn,
+                        filename,
+                        stubUnitParser(filename, jdkVersionStubIn),
                         atypeFactory,
                         processingEnv,
                         annotationFileAnnos,
@@ -346,6 +369,11 @@ public class AnnotationFileElementTypes {
             List<AnnotationFileResource> allFiles =
                     AnnotationFileUtil.allAnnotationFiles(fullPath, fileType);
             if (allFiles != null) {
+                if (stubParser != null) {
+                    for (AnnotationFileResource resource : allFiles) {
+                        stubParser.prefetch(resource.getDescription(), resource::getInputStream);
+                    }
+                }
                 for (AnnotationFileResource resource : allFiles) {
                     // See note with the SuppressWarnings on this method for why this is not a
                     // try-with-resources.
@@ -364,7 +392,7 @@ public class AnnotationFileElementTypes {
                     // Java file.
                     AnnotationFileParser.parseStubFile(
                             resource.getDescription(),
-                            annotationFileStream,
+                            stubUnitParser(resource.getDescription(), annotationFileStream),
                             atypeFactory,
                             processingEnv,
                             annotationFileAnnos,
@@ -476,6 +504,9 @@ public class AnnotationFileElementTypes {
      *     not appear in an annotation file.
      */
     public @Nullable AnnotatedTypeMirror getAnnotatedTypeMirror(Element e) {
+        if (incrementalCache != null) {
+            incrementalCache.recordDependency(e);
+        }
         maybeParseEnclosingJdkClass(e);
         AnnotatedTypeMirror type = annotationFileAnnos.atypes.get(e);
         return type == null ? null : type.deepCopy();
@@ -504,6 +535,9 @@ public class AnnotationFileElementTypes {
             }
         }
 
+        if (incrementalCache != null) {
+            incrementalCache.recordDependency(elt);
+        }
         maybeParseEnclosingJdkClass(elt);
         String eltName = ElementUtils.getQualifiedName(elt);
         if (annotationFileAnnos.declAnnos.containsKey(eltName)) {
@@ -808,7 +842,7 @@ public class AnnotationFileElementTypes {
         try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
             AnnotationFileParser.parseJdkFileAsStub(
                     path.toFile().getName(),
-                    jdkStub,
+                    jdkStubUnitParser(AnnotatedJdkCache.key(path.toFile(), null), jdkStub),
                     atypeFactory,
                     atypeFactory.getProcessingEnv(),
                     annotationFileAnnos,
@@ -836,7 +870,7 @@ public class AnnotationFileElementTypes {
             try (InputStream jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
                 AnnotationFileParser.parseJdkFileAsStub(
                         jarEntryName,
-                        jdkStub,
+                        jdkStubUnitParser(jdkJarEntryKey(jarFile, jarEntryName), jdkStub),
                         atypeFactory,
                         atypeFactory.getProcessingEnv(),
                         annotationFileAnnos,
@@ -857,6 +891,77 @@ public class AnnotationFileElementTypes {
         }
     }
 
+    /**
+     * Returns a function that returns the JavaParser AST of an annotation file. If the {@code
+     * -AparallelStubParsing} command-line option was supplied, the AST is shared with the other
+     * type factories of the compilation, and it might already have been parsed on a worker thread.
+     *
+     * @param key identifies the annotation file across type factories, such as its absolute path
+     * @param in the contents of the annotation file; not read if it has already been parsed
+     * @return a function that returns the AST of the annotation file
+     */
+    private Supplier<StubUnit> stubUnitParser(String key, InputStream in) {
+        ParallelStubParser stubParser = this.stubParser;
+        if (stubParser == null) {
+            return () -> JavaParserUtil.parseStubUnit(in);
+        }
+        return () -> stubParser.getStubUnit(key, in);
+    }
+
+    /**
+     * Like {@link #stubUnitParser}, but for a file of the annotated JDK. If the {@code
+     * -AjdkStubCache} command-line option was supplied, the AST is shared with the other
+     * compilations that load the Checker Framework with the same class loader; see {@link
+     * AnnotatedJdkCache}. With {@code -Aprofile}, the lookups are reported as the cache {@code
+     * jdkStubCache}.
+     *
+     * @param key identifies the annotation file, as returned by {@link AnnotatedJdkCache#key}
+     * @param in the contents of the annotation file; not read if it has already been parsed
+     * @return a function that returns the AST of the annotation file
+     */
+    private Supplier<StubUnit> jdkStubUnitParser(String key, InputStream in) {
+        Supplier<StubUnit> parser = stubUnitParser(key, in);
+        if (!jdkStubCache) {
+            return parser;
+        }
+        CheckerProfiler profiler = atypeFactory.getChecker().getProfiler();
+        return () -> {
+            boolean[] parsed = {false};
+            StubUnit stubUnit =
+                    AnnotatedJdkCache.getStubUnit(
+                            key,
+                            () -> {
+                                parsed[0] = true;
+                                return parser.get();
+                            });
+            profiler.countLookup("jdkStubCache", !parsed[0]);
+            return stubUnit;
+        };
+    }
+
+    /**
+     * Returns true if the file of the annotated JDK with the given key should be parsed in advance
+     * by {@link #stubParser}: that is, if it is not in the cache of the JVM.
+     *
+     * @param key identifies the annotation file, as returned by {@link AnnotatedJdkCache#key}
+     * @return true if the file should be parsed in advance
+     */
+    private boolean shouldPrefetchJdkFile(String key) {
+        return !(jdkStubCache && AnnotatedJdkCache.contains(key));
+    }
+
+    /**
+     * Returns the key of a file of the annotated JDK for {@link #stubParser} and {@link
+     * AnnotatedJdkCache}.
+     *
+     * @param jarFile the jar file that contains the annotated JDK
+     * @param jarEntryName the name of the file in the jar file
+     * @return the key of the file
+     */
+    private static String jdkJarEntryKey(JarFile jarFile, String jarEntryName) {
+        return AnnotatedJdkCache.key(new File(jarFile.getName()), jarEntryName);
+    }
+
     /**
      * Returns a JarURLConnection to "/jdk*".
      *
@@ -935,6 +1040,17 @@ public class AnnotationFileElementTypes {
                     walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".java"))
                             .collect(Collectors.toList());
             paths.sort(Path::compareTo);
+            if (stubParser != null) {
+                for (Path path : paths) {
+                    String fileName = path.getFileName().toString();
+                    String key = AnnotatedJdkCache.key(path.toFile(), null);
+                    if ((fileName.equals("package-info.java")
+                                    || (parseAllJdkFiles && !fileName.equals("module-info.java")))
+                            && shouldPrefetchJdkFile(key)) {
+                        stubParser.prefetch(key, () -> new FileInputStream(path.toFile()));
+                    }
+                }
+            }
             for (Path path : paths) {
                 if (path.getFileName().toString().equals("package-info.java")) {
                     parseJdkStubFile(path);
@@ -982,14 +1098,28 @@ public class AnnotationFileElementTypes {
         JarURLConnection connection = getJarURLConnectionToJdk();
 
         try (JarFile jarFile = connection.getJarFile()) {
-            ArrayList<JarEntry> entries = CollectionsPlume.makeArrayList(jarFile.entries());
-            entries.sort(Comparator.comparing(Object::toString));
-            for (JarEntry jarEntry : entries) {
-                // filter out directories and non-Java files
-                if (jarEntry.isDirectory()) {
-                    continue;
+            // The names of the files (not directories) in the jar file, in sorted order.
+            List<String> jarEntryNames = AnnotatedJdkCache.getJarFileNames(jarFile, jdkStubCache);
+            if (stubParser != null) {
+                for (String jarEntryName : jarEntryNames) {
+                    if (!jarEntryName.startsWith("annotated-jdk")
+                            || !(jarEntryName.endsWith("package-info.java")
+                                    || (parseAllJdkFiles
+                                            && jarEntryName.endsWith(".java")
+                                            && !jarEntryName.endsWith("module-info.java")))) {
+                        continue;
+                    }
+                    String key = jdkJarEntryKey(jarFile, jarEntryName);
+                    if (shouldPrefetchJdkFile(key)) {
+                        try (InputStream in =
+                                jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
+                            stubParser.prefetch(key, in);
+                        }
+                    }
                 }
-                String jarEntryName = jarEntry.getName();
+            }
+            for (String jarEntryName : jarEntryNames) {
+                // filter out non-Java files
                 if (!(jarEntryName.startsWith("annotated-jdk") && jarEntryName.endsWith(".java"))
                         // JavaParser can't parse module-info files, so skip them.
                         || jarEntryName.endsWith("module-info.java")) {
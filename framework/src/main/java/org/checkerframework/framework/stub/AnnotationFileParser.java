@@ -66,6 +66,7 @@ import org.checkerframework.checker.signature.qual.FullyQualifiedName;
 import org.checkerframework.framework.ajava.DefaultJointVisitor;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.qual.FromStubFile;
+import org.checkerframework.framework.source.CheckerProfiler;
 import org.checkerframework.framework.stub.AnnotationFileUtil.AnnotationFileType;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
@@ -101,6 +102,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.processing.ProcessingEnvironment;
@@ -688,11 +690,46 @@ public class AnnotationFileParser {
             AnnotationFileAnnotations annotationFileAnnos,
             AnnotationFileType fileType,
             AnnotationFileElementTypes fileElementTypes) {
+        parseStubFile(
+                filename,
+                () -> JavaParserUtil.parseStubUnit(inputStream),
+                atypeFactory,
+                processingEnv,
+                annotationFileAnnos,
+                fileType,
+                fileElementTypes);
+    }
+
+    /**
+     * Like {@link #parseStubFile(String, InputStream, AnnotatedTypeFactory, ProcessingEnvironment,
+     * AnnotationFileAnnotations, AnnotationFileType, AnnotationFileElementTypes)}, but obtains the
+     * JavaParser AST from {@code stubUnitParser}, which might return an AST that was parsed in
+     * advance or on another thread.
+     *
+     * @param filename name of stub file, used only for diagnostic messages
+     * @param stubUnitParser returns the AST of the stub file; may throw {@link
+     *     ParseProblemException}
+     * @param atypeFactory the type factory
+     * @param processingEnv the processing environment
+     * @param annotationFileAnnos annotations from the annotation file; side-effected by this method
+     * @param fileType the annotation file type and source
+     * @param fileElementTypes the manager that controls the stub file parsing process
+     */
+    static void parseStubFile(
+            String filename,
+            Supplier<StubUnit> stubUnitParser,
+            AnnotatedTypeFactory atypeFactory,
+            ProcessingEnvironment processingEnv,
+            AnnotationFileAnnotations annotationFileAnnos,
+            AnnotationFileType fileType,
+            AnnotationFileElementTypes fileElementTypes) {
         AnnotationFileParser afp =
                 new AnnotationFileParser(
                         filename, atypeFactory, processingEnv, fileType, fileElementTypes);
+        CheckerProfiler profiler = atypeFactory.getChecker().getProfiler();
+        long startNanos = profiler.start();
         try {
-            afp.parseStubUnit(inputStream);
+            afp.parseStubUnit(stubUnitParser);
             afp.process(annotationFileAnnos);
         } catch (ParseProblemException e) {
             for (Problem p : e.getProblems()) {
@@ -700,6 +737,8 @@ public class AnnotationFileParser {
             }
         } catch (Throwable t) {
             afp.warn(null, "Parse problem: " + t);
+        } finally {
+            profiler.stopForFile(CheckerProfiler.Phase.STUB_PARSING, filename, startNanos);
         }
     }
 
@@ -730,6 +769,8 @@ public class AnnotationFileParser {
                         processingEnv,
                         AnnotationFileType.AJAVA,
                         fileElementTypes);
+        CheckerProfiler profiler = atypeFactory.getChecker().getProfiler();
+        long startNanos = profiler.start();
         try {
             afp.parseStubUnit(inputStream);
             JavaParserUtil.concatenateAddedStringLiterals(afp.stubUnit);
@@ -741,6 +782,8 @@ public class AnnotationFileParser {
             }
         } catch (Throwable t) {
             afp.warn(null, "Parse problem: " + t);
+        } finally {
+            profiler.stopForFile(CheckerProfiler.Phase.STUB_PARSING, filename, startNanos);
         }
     }
 
@@ -762,6 +805,36 @@ public class AnnotationFileParser {
             ProcessingEnvironment processingEnv,
             AnnotationFileAnnotations stubAnnos,
             AnnotationFileElementTypes fileElementTypes) {
+        parseJdkFileAsStub(
+                filename,
+                () -> JavaParserUtil.parseStubUnit(inputStream),
+                atypeFactory,
+                processingEnv,
+                stubAnnos,
+                fileElementTypes);
+    }
+
+    /**
+     * Like {@link #parseJdkFileAsStub(String, InputStream, AnnotatedTypeFactory,
+     * ProcessingEnvironment, AnnotationFileAnnotations, AnnotationFileElementTypes)}, but obtains
+     * the JavaParser AST from {@code stubUnitParser}, which might return an AST that was parsed in
+     * advance or on another thread.
+     *
+     * @param filename name of stub file, used only for diagnostic messages
+     * @param stubUnitParser returns the AST of the stub file; may throw {@link
+     *     ParseProblemException}
+     * @param atypeFactory the type factory
+     * @param processingEnv the processing environment
+     * @param stubAnnos annotations from the stub file; side-effected by this method
+     * @param fileElementTypes the manager that controls the stub file parsing process
+     */
+    static void parseJdkFileAsStub(
+            String filename,
+            Supplier<StubUnit> stubUnitParser,
+            AnnotatedTypeFactory atypeFactory,
+            ProcessingEnvironment processingEnv,
+            AnnotationFileAnnotations stubAnnos,
+            AnnotationFileElementTypes fileElementTypes) {
         Map<String, String> options = processingEnv.getOptions();
         boolean debugAnnotationFileParser = options.containsKey("stubDebug");
         if (debugAnnotationFileParser) {
@@ -774,7 +847,7 @@ public class AnnotationFileParser {
 
         parseStubFile(
                 filename,
-                inputStream,
+                stubUnitParser,
                 atypeFactory,
                 processingEnv,
                 stubAnnos,
@@ -792,10 +865,19 @@ public class AnnotationFileParser {
      * @param inputStream the stream from which to read an annotation file
      */
     private void parseStubUnit(InputStream inputStream) {
+        parseStubUnit(() -> JavaParserUtil.parseStubUnit(inputStream));
+    }
+
+    /**
+     * Like {@link #parseStubUnit(InputStream)}, but obtains the AST from {@code stubUnitParser}.
+     *
+     * @param stubUnitParser returns the AST of the annotation file
+     */
+    private void parseStubUnit(Supplier<StubUnit> stubUnitParser) {
         stubDebug(
                 "started parsing annotation file %s for %s",
                 filename, atypeFactory.getClass().getSimpleName());
-        stubUnit = JavaParserUtil.parseStubUnit(inputStream);
+        stubUnit = stubUnitParser.get();
 
         // getImportedAnnotations() also modifies importedConstants and importedTypes. This should
         // be refactored to be nicer.
@@ -0,0 +1,197 @@
+package org.checkerframework.framework.stub;
+
+import com.github.javaparser.ast.StubUnit;
+
+import org.checkerframework.framework.util.JavaParserUtil;
+import org.checkerframework.javacutil.BugInCF;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses annotation files (stub files and files of the annotated JDK) with JavaParser on a pool of
+ * worker threads, and shares the resulting ASTs among all the checkers and subcheckers of a
+ * compilation. It is used when the {@code -AparallelStubParsing} command-line option is supplied.
+ *
+ * <p>Only the JavaParser parse runs on a worker thread. Processing a parsed file, that is,
+ * resolving its names with javac and copying its annotations into an {@link
+ * org.checkerframework.framework.type.AnnotatedTypeFactory}, happens on the javac thread in the
+ * same order as without this option. Therefore, the option does not change any type or
+ * diagnostic.
+ *
+ * <p>Files are identified by a key, such as an absolute path or a jar entry URL. A file is parsed
+ * at most once per compilation, no matter how many type factories process it. The parsed ASTs are
+ * never modified, so sharing them is safe.
+ *
+ * <p>A parsed file is dropped once it has been read by as many type factories as the parser was
+ * created for, so that it can be garbage-collected as it would be without this option. A file that
+ * some factory never reads, such as a file of the annotated JDK for a class that only one checker
+ * looks up, stays in memory until {@link #shutdown} is called at the end of the compilation. A file
+ * that is read again after it has been dropped is parsed again.
+ *
+ * <p>All methods except the parsing itself must be called on the javac thread.
+ */
+public final class ParallelStubParser {
+
+    /** The worker threads. */
+    private final ExecutorService executor;
+
+    /** Maps a key to the (possibly not yet finished) parse of the file with that key. */
+    private final Map<String, Future<StubUnit>> stubUnits = new HashMap<>();
+
+    /** Maps a key in {@link #stubUnits} to the number of times its file has been read. */
+    private final Map<String, Integer> readCounts = new HashMap<>();
+
+    /** The number of type factories that read files from this parser. */
+    private final int numConsumers;
+
+    /**
+     * Creates a ParallelStubParser.
+     *
+     * @param numThreads the number of worker threads
+     * @param numConsumers the number of type factories that read files from this parser; a parsed
+     *     file is dropped once it has been read this many times
+     */
+    public ParallelStubParser(int numThreads, int numConsumers) {
+        this.numConsumers = numConsumers;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor =
+                Executors.newFixedThreadPool(
+                        numThreads,
+                        r -> {
+                            Thread t =
+                                    new Thread(
+                                            r,
+                                            "checker-stub-parser-" + threadCount.incrementAndGet());
+                            // Do not prevent javac from exiting.
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /**
+     * Starts parsing, on a worker thread, the file with the given key, unless it has already been
+     * parsed or its parse has already started.
+     *
+     * @param key identifies the file
+     * @param opener opens the file; called on a worker thread, which closes the stream
+     */
+    public void prefetch(String key, Callable<InputStream> opener) {
+        if (stubUnits.containsKey(key) || executor.isShutdown()) {
+            return;
+        }
+        stubUnits.put(
+                key,
+                executor.submit(
+                        () -> {
+                            try (InputStream in = opener.call()) {
+                                return JavaParserUtil.parseStubUnit(in);
+                            }
+                        }));
+    }
+
+    /**
+     * Starts parsing, on a worker thread, the given contents of the file with the given key,
+     * unless it has already been parsed or its parse has already started.
+     *
+     * @param key identifies the file
+     * @param in the contents of the file; read completely, but not closed, by this method
+     * @throws IOException if {@code in} cannot be read
+     */
+    public void prefetch(String key, InputStream in) throws IOException {
+        if (stubUnits.containsKey(key) || executor.isShutdown()) {
+            return;
+        }
+        byte[] contents = readAllBytes(in);
+        prefetch(key, () -> new ByteArrayInputStream(contents));
+    }
+
+    /**
+     * Returns the AST of the file with the given key. If the file has been prefetched, waits for
+     * its parse to finish; otherwise, parses {@code in} on the current thread and remembers the
+     * result for later calls. Once every type factory has read the file, it is dropped.
+     *
+     * @param key identifies the file
+     * @param in the contents of the file; only read if the file has not been prefetched
+     * @return the AST of the file
+     * @throws com.github.javaparser.ParseProblemException if the file has parser errors
+     */
+    public StubUnit getStubUnit(String key, InputStream in) {
+        Future<StubUnit> future = stubUnits.get(key);
+        int readCount = readCounts.getOrDefault(key, 0) + 1;
+        if (readCount >= numConsumers) {
+            stubUnits.remove(key);
+            readCounts.remove(key);
+        } else {
+            readCounts.put(key, readCount);
+        }
+        if (future == null) {
+            CompletableFuture<StubUnit> parsed = new CompletableFuture<>();
+            if (readCount < numConsumers) {
+                stubUnits.put(key, parsed);
+            }
+            try {
+                StubUnit stubUnit = JavaParserUtil.parseStubUnit(in);
+                parsed.complete(stubUnit);
+                return stubUnit;
+            } catch (RuntimeException e) {
+                // Later calls report the same parse problems.
+                parsed.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BugInCF("Interrupted while parsing " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BugInCF("Cannot parse " + key, cause);
+        }
+    }
+
+    /**
+     * Stops the worker threads. Parses that have not finished yet are abandoned. After this method
+     * has been called, {@code prefetch} does nothing and files are parsed on the calling thread.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        stubUnits.clear();
+        readCounts.clear();
+    }
+
+    /**
+     * Reads the rest of an input stream.
+     *
+     * @param in an input stream
+     * @return the bytes read from {@code in}
+     * @throws IOException if {@code in} cannot be read
+     */
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
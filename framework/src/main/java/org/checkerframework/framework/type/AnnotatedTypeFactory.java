@@ -55,6 +55,8 @@ import org.checkerframework.framework.qual.HasQualifierParameter;
 import org.checkerframework.framework.qual.InheritedAnnotation;
 import org.checkerframework.framework.qual.NoQualifierParameter;
 import org.checkerframework.framework.qual.RequiresQualifier;
+import org.checkerframework.framework.source.CheckerProfiler;
+import org.checkerframework.framework.source.IncrementalCache;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.stub.AnnotationFileElementTypes;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
@@ -354,6 +356,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** The checker to use for option handling and resource management. */
     protected final BaseTypeChecker checker;
 
+    /**
+     * The cache of diagnostics of unchanged classes, to which this factory reports the elements it
+     * queries; null if the {@code -AincrementalCache} command-line option was not supplied.
+     */
+    private final @Nullable IncrementalCache incrementalCache;
+
     /**
      * Scans all parts of the {@link AnnotatedTypeMirror} so that all of its fields are initialized.
      */
@@ -590,19 +598,42 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
 
         // get the shared instance from the checker
         this.treePathCache = checker.getTreePathCacher();
+        this.incrementalCache = checker.getIncrementalCache();
 
         this.shouldCache = !checker.hasOption("atfDoNotCache");
         if (shouldCache) {
             int cacheSize = getCacheSize();
-            this.classAndMethodTreeCache = CollectionsPlume.createLruCache(cacheSize);
-            this.fromExpressionTreeCache = CollectionsPlume.createLruCache(cacheSize);
-            this.fromMemberTreeCache = CollectionsPlume.createLruCache(cacheSize);
-            this.fromTypeTreeCache = CollectionsPlume.createLruCache(cacheSize);
-            this.elementCache = CollectionsPlume.createLruCache(cacheSize);
-            this.elementToTreeCache = CollectionsPlume.createLruCache(cacheSize);
+            // With -Aprofile, count the hits and misses of each cache.
+            CheckerProfiler profiler = checker.getProfiler();
+            String prefix = getClass().getSimpleName() + ".";
+            this.classAndMethodTreeCache =
+                    profiler.countLookups(
+                            prefix + "classAndMethodTreeCache",
+                            CollectionsPlume.createLruCache(cacheSize));
+            this.fromExpressionTreeCache =
+                    profiler.countLookups(
+                            prefix + "fromExpressionTreeCache",
+                            CollectionsPlume.createLruCache(cacheSize));
+            this.fromMemberTreeCache =
+                    profiler.countLookups(
+                            prefix + "fromMemberTreeCache",
+                            CollectionsPlume.createLruCache(cacheSize));
+            this.fromTypeTreeCache =
+                    profiler.countLookups(
+                            prefix + "fromTypeTreeCache",
+                            CollectionsPlume.createLruCache(cacheSize));
+            this.elementCache =
+                    profiler.countLookups(
+                            prefix + "elementCache", CollectionsPlume.createLruCache(cacheSize));
+            this.elementToTreeCache =
+                    profiler.countLookups(
+                            prefix + "elementToTreeCache",
+                            CollectionsPlume.createLruCache(cacheSize));
             this.annotationClassNames =
                     Collections.synchronizedMap(
-                            CollectionsPlume.createLruCache(ANNOTATION_CACHE_SIZE));
+                            profiler.countLookups(
+                                    prefix + "annotationClassNames",
+                                    CollectionsPlume.createLruCache(ANNOTATION_CACHE_SIZE)));
         } else {
             this.classAndMethodTreeCache = null;
             this.fromExpressionTreeCache = null;
@@ -1419,6 +1450,18 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     // Factories for annotated types that account for default qualifiers
     // **********************************************************************
 
+    /**
+     * Returns a copy of {@code type}, which is stored in one of the caches of this factory. The
+     * copy may be modified by the caller. Its type arguments are only copied when they are first
+     * read, which is possible because the cached types are never modified.
+     *
+     * @param type a type stored in one of the caches of this factory
+     * @return a copy of {@code type}
+     */
+    private static AnnotatedTypeMirror copyCachedType(AnnotatedTypeMirror type) {
+        return new LazyAnnotatedTypeCopier().visit(type);
+    }
+
     /**
      * Returns the size for LRU caches. It is either the value supplied via the {@code
      * -AatfCacheSize} option or the default cache size.
@@ -1485,7 +1528,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             throw new BugInCF("AnnotatedTypeFactory.getAnnotatedType: null tree");
         }
         if (shouldCache && classAndMethodTreeCache.containsKey(tree)) {
-            return classAndMethodTreeCache.get(tree).deepCopy();
+            return copyCachedType(classAndMethodTreeCache.get(tree));
         }
 
         AnnotatedTypeMirror type;
@@ -1665,8 +1708,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
      */
     public AnnotatedTypeMirror fromElement(Element elt) {
+        if (incrementalCache != null) {
+            // Record the dependency before consulting the cache, which spans classes.
+            incrementalCache.recordDependency(elt);
+        }
         if (shouldCache && elementCache.containsKey(elt)) {
-            return elementCache.get(elt).deepCopy();
+            return copyCachedType(elementCache.get(elt));
         }
         if (elt.getKind() == ElementKind.PACKAGE) {
             return toAnnotatedType(elt.asType(), false);
@@ -1759,7 +1806,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                             + tree);
         }
         if (shouldCache && fromMemberTreeCache.containsKey(tree)) {
-            return fromMemberTreeCache.get(tree).deepCopy();
+            return copyCachedType(fromMemberTreeCache.get(tree));
         }
         AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
 
@@ -1852,7 +1899,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      */
     private AnnotatedTypeMirror fromExpression(ExpressionTree tree) {
         if (shouldCache && fromExpressionTreeCache.containsKey(tree)) {
-            return fromExpressionTreeCache.get(tree).deepCopy();
+            return copyCachedType(fromExpressionTreeCache.get(tree));
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromExpression(this, tree);
@@ -1882,7 +1929,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      */
     /*package-private*/ final AnnotatedTypeMirror fromTypeTree(Tree tree) {
         if (shouldCache && fromTypeTreeCache.containsKey(tree)) {
-            return fromTypeTreeCache.get(tree).deepCopy();
+            return copyCachedType(fromTypeTreeCache.get(tree));
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromTypeTree(this, tree);
@@ -4263,6 +4310,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      *     inherited
      */
     public AnnotationMirrorSet getDeclAnnotations(Element elt) {
+        if (incrementalCache != null) {
+            incrementalCache.recordDependency(elt);
+        }
         AnnotationMirrorSet cachedValue = cacheDeclAnnos.get(elt);
         if (cachedValue != null) {
             // Found in cache, return result.
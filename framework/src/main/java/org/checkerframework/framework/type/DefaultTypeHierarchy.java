@@ -1,5 +1,6 @@
 package org.checkerframework.framework.type;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.qual.Covariant;
@@ -12,6 +13,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVari
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedUnionType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
 import org.checkerframework.framework.type.visitor.AbstractAtmComboVisitor;
+import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AtmCombo;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
@@ -19,10 +21,13 @@ import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
+import org.checkerframework.javacutil.UserError;
+import org.plumelib.util.CollectionsPlume;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ElementKind;
@@ -85,6 +90,14 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
     /** The Covariant.value field/element. */
     protected final ExecutableElement covariantValueElement;
 
+    /**
+     * Caches the results of {@link #isSubtype(AnnotatedTypeMirror, AnnotatedTypeMirror)}, both true
+     * and false. The keys compare types structurally, so a result is reused for every copy of the
+     * same pair of types. Null unless the {@code -AsubtypeCacheSize} command-line option is a
+     * positive number.
+     */
+    private final @Nullable Map<SubtypeQuery, Boolean> subtypeCache;
+
     /**
      * Creates a DefaultTypeHierarchy.
      *
@@ -112,6 +125,40 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
         covariantValueElement =
                 TreeUtils.getMethod(
                         Covariant.class, "value", 0, checker.getProcessingEnvironment());
+
+        int subtypeCacheSize = getSubtypeCacheSize(checker);
+        this.subtypeCache =
+                subtypeCacheSize == 0
+                        ? null
+                        : checker.getProfiler()
+                                .countLookups(
+                                        "DefaultTypeHierarchy.subtypeCache",
+                                        CollectionsPlume.createLruCache(subtypeCacheSize));
+    }
+
+    /**
+     * Returns the size of {@link #subtypeCache}, as given by the {@code -AsubtypeCacheSize}
+     * command-line option. Returns 0, meaning no cache, if the option is not given or if the
+     * {@code -AatfDoNotCache} command-line option is given.
+     *
+     * @param checker the type-checker that is associated with this
+     * @return the size of the cache of subtype results, or 0 if there is no cache
+     */
+    private static int getSubtypeCacheSize(BaseTypeChecker checker) {
+        String option = checker.getOption("subtypeCacheSize");
+        if (option == null || checker.hasOption("atfDoNotCache")) {
+            return 0;
+        }
+        int size;
+        try {
+            size = Integer.parseInt(option);
+        } catch (NumberFormatException e) {
+            size = -1;
+        }
+        if (size < 0) {
+            throw new UserError("subtypeCacheSize must be a non-negative integer: " + option);
+        }
+        return size;
     }
 
     /**
@@ -137,6 +184,29 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
      */
     @Override
     public boolean isSubtype(AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
+        if (subtypeCache == null || !isCacheable(subtype) || !isCacheable(supertype)) {
+            return isSubtypeInAllHierarchies(subtype, supertype);
+        }
+        SubtypeQuery query = new SubtypeQuery(subtype, supertype);
+        Boolean cached = subtypeCache.get(query);
+        if (cached != null) {
+            return cached;
+        }
+        boolean result = isSubtypeInAllHierarchies(subtype, supertype);
+        subtypeCache.put(query.deepCopy(), result);
+        return result;
+    }
+
+    /**
+     * Returns true if subtype {@literal <:} supertype in every qualifier hierarchy, without
+     * consulting {@link #subtypeCache}.
+     *
+     * @param subtype expected subtype
+     * @param supertype expected supertype
+     * @return true if subtype is a subtype of supertype or equal to it
+     */
+    private boolean isSubtypeInAllHierarchies(
+            AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
         for (AnnotationMirror top : qualHierarchy.getTopAnnotations()) {
             if (!isSubtype(subtype, supertype, top)) {
                 return false;
@@ -146,6 +216,113 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
         return true;
     }
 
+    /** The implementation of {@link #isCacheable}. */
+    private final SimpleAnnotatedTypeScanner<Boolean, Void> isCacheableScanner =
+            new SimpleAnnotatedTypeScanner<>(
+                    (type, p) -> {
+                        switch (type.getKind()) {
+                            case DECLARED:
+                                return !((AnnotatedDeclaredType) type).isUnderlyingTypeRaw();
+                            case TYPEVAR:
+                                return !TypesUtils.isCapturedTypeVariable(
+                                        type.getUnderlyingType());
+                            case WILDCARD:
+                                return !((AnnotatedWildcardType) type).isTypeArgOfRawType();
+                            case EXECUTABLE:
+                                return false;
+                            default:
+                                return true;
+                        }
+                    },
+                    Boolean::logicalAnd,
+                    true);
+
+    /**
+     * Returns true if the subtyping result for {@code type} may be stored in {@link #subtypeCache}.
+     *
+     * <p>Structural equality of annotated types only compares the underlying types and the
+     * annotations of a type and its component types. That is not enough for raw types, whose
+     * subtyping depends on whether the type was raw. It would be enough for captured type
+     * variables, but every capture conversion creates fresh type variables, so their results
+     * would never be reused and would only evict other entries.
+     *
+     * @param type a type
+     * @return true if the subtyping result for {@code type} may be cached
+     */
+    private boolean isCacheable(AnnotatedTypeMirror type) {
+        return isCacheableScanner.visit(type);
+    }
+
+    /**
+     * A key of {@link #subtypeCache}: a pair of types that are compared structurally, using {@link
+     * AnnotatedTypeMirror#equals} and {@link AnnotatedTypeMirror#hashCode}. Both of those handle
+     * recursive types.
+     */
+    private static final class SubtypeQuery {
+
+        /** The expected subtype. */
+        private final AnnotatedTypeMirror subtype;
+
+        /** The expected supertype. */
+        private final AnnotatedTypeMirror supertype;
+
+        /** The hash code of this, which is expensive to compute. */
+        private final int hashCode;
+
+        /**
+         * Creates a query.
+         *
+         * @param subtype the expected subtype
+         * @param supertype the expected supertype
+         */
+        SubtypeQuery(AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
+            this(subtype, supertype, 31 * subtype.hashCode() + supertype.hashCode());
+        }
+
+        /**
+         * Creates a query.
+         *
+         * @param subtype the expected subtype
+         * @param supertype the expected supertype
+         * @param hashCode the hash code of the query
+         */
+        private SubtypeQuery(
+                AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype, int hashCode) {
+            this.subtype = subtype;
+            this.supertype = supertype;
+            this.hashCode = hashCode;
+        }
+
+        /**
+         * Returns a query for copies of the types of this. Annotated types are mutable, so the
+         * keys of the cache must not be types that a client holds.
+         *
+         * @return a query for copies of the types of this
+         */
+        SubtypeQuery deepCopy() {
+            return new SubtypeQuery(subtype.deepCopy(), supertype.deepCopy(), hashCode);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SubtypeQuery)) {
+                return false;
+            }
+            SubtypeQuery other = (SubtypeQuery) obj;
+            return hashCode == other.hashCode
+                    && subtype.equals(other.subtype)
+                    && supertype.equals(other.supertype);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     /** A set of annotations and a {@link TypeMirror}. */
     @AnnotatedFor("nullness")
     private static class ShallowType {
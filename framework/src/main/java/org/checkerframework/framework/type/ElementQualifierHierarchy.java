@@ -18,6 +18,7 @@ import org.checkerframework.javacutil.TypeSystemError;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -122,7 +123,8 @@ public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
     @RequiresNonNull({"this.qualifierKindHierarchy", "this.elements"})
     protected Map<QualifierKind, AnnotationMirror> createElementlessQualifierMap(
             @UnderInitialization ElementQualifierHierarchy this) {
-        Map<QualifierKind, AnnotationMirror> quals = new TreeMap<>();
+        // QualifierKinds are interned, and this map is used on every lub and glb.
+        Map<QualifierKind, AnnotationMirror> quals = new IdentityHashMap<>();
         for (QualifierKind kind : qualifierKindHierarchy.allQualifierKinds()) {
             if (!kind.hasElements()) {
                 quals.put(kind, AnnotationBuilder.fromClass(elements, kind.getAnnotationClass()));
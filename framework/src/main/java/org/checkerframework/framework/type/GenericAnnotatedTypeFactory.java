@@ -61,6 +61,7 @@ import org.checkerframework.framework.qual.QualifierForLiterals;
 import org.checkerframework.framework.qual.RelevantJavaTypes;
 import org.checkerframework.framework.qual.RequiresQualifier;
 import org.checkerframework.framework.qual.TypeUseLocation;
+import org.checkerframework.framework.source.CheckerProfiler;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
@@ -314,6 +315,9 @@ public abstract class GenericAnnotatedTypeFactory<
      * any checker for which getParentChecker() returns non-null). This map is also unused (and
      * therefore null) for a checker with no subcheckers with which it can share CFGs.
      *
+     * <p>Checkers that are not subcheckers of one another share CFGs through {@link
+     * org.checkerframework.framework.util.SharedCompilationCaches} instead.
+     *
      * <p>The initial capacity of the map is set by {@link #getCacheSize()}.
      */
     protected @MonotonicNonNull Map<Tree, ControlFlowGraph> subcheckerSharedCFG;
@@ -357,11 +361,21 @@ public abstract class GenericAnnotatedTypeFactory<
 
         this.cfgVisualizer = createCFGVisualizer();
         this.handleCFGViz = checker.hasOption("flowdotdir") || checker.hasOption("cfgviz");
+        this.shouldReleaseFlowResults = checker.hasOption("releaseFlowResults");
+        this.analyzedClasses = shouldReleaseFlowResults ? new IdentityHashMap<>() : null;
 
         if (shouldCache) {
             int cacheSize = getCacheSize();
-            flowResultAnalysisCaches = CollectionsPlume.createLruCache(cacheSize);
-            initializerCache = CollectionsPlume.createLruCache(cacheSize);
+            CheckerProfiler profiler = checker.getProfiler();
+            String prefix = getClass().getSimpleName() + ".";
+            flowResultAnalysisCaches =
+                    profiler.countLookups(
+                            prefix + "flowResultAnalysisCaches",
+                            CollectionsPlume.createLruCache(cacheSize));
+            initializerCache =
+                    profiler.countLookups(
+                            prefix + "initializerCache",
+                            CollectionsPlume.createLruCache(cacheSize));
         } else {
             flowResultAnalysisCaches = null;
             initializerCache = null;
@@ -432,6 +446,21 @@ public abstract class GenericAnnotatedTypeFactory<
         this.poly = createQualifierPolymorphism();
 
         this.analysis = createFlowAnalysis();
+        String checkpointInterval = checker.getOption("flowCheckpointInterval");
+        if (checkpointInterval != null) {
+            int interval;
+            try {
+                interval = Integer.parseInt(checkpointInterval);
+            } catch (NumberFormatException e) {
+                interval = -1;
+            }
+            if (interval < 0) {
+                throw new UserError(
+                        "flowCheckpointInterval must be a non-negative integer: "
+                                + checkpointInterval);
+            }
+            analysis.setCheckpointInterval(interval);
+        }
         this.transfer = analysis.getTransferFunction();
         this.emptyStore = analysis.createEmptyStore(transfer.usesSequentialSemantics());
 
@@ -453,6 +482,66 @@ public abstract class GenericAnnotatedTypeFactory<
         }
     }
 
+    /**
+     * If {@code -AreleaseFlowResults} was given and {@code classTree} is a top-level class,
+     * discards the dataflow results for it, in this type factory and in those of all subcheckers.
+     *
+     * <p>Only the ultimate parent checker discards results, because it queries the type factories
+     * of its subcheckers while it type-checks a class, after they have type-checked it.
+     *
+     * @param classTree the class that has been type-checked
+     */
+    @Override
+    public void postProcessClassTree(ClassTree classTree) {
+        super.postProcessClassTree(classTree);
+        if (shouldReleaseFlowResults && checker.getParentChecker() == null) {
+            releaseFlowResults(classTree);
+            for (SourceChecker subchecker : checker.getSubcheckers()) {
+                if (subchecker instanceof BaseTypeChecker) {
+                    ((BaseTypeChecker) subchecker).getTypeFactory().releaseFlowResults(classTree);
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the dataflow results for the code in {@code classTree}, if it is a top-level class
+     * that has been analyzed. The class remains marked as analyzed, so it is not analyzed again;
+     * querying the refined type of an expression in it afterward yields its unrefined type. The
+     * values of effectively final local variables are kept.
+     *
+     * @param classTree a class that has been type-checked by all checkers
+     */
+    protected void releaseFlowResults(ClassTree classTree) {
+        @Nullable AnalyzedClass analyzed =
+                analyzedClasses == null ? null : analyzedClasses.remove(classTree);
+        if (analyzed == null || flowResult == null) {
+            return;
+        }
+        Map<Tree, ControlFlowGraph> sharedCFGs =
+                checker.getUltimateParentChecker().getTypeFactory().subcheckerSharedCFG;
+        for (ControlFlowGraph cfg : analyzed.cfgs) {
+            flowResult.removeResultsFor(cfg);
+            UnderlyingAST ast = cfg.getUnderlyingAST();
+            Tree code =
+                    ast.getKind() == UnderlyingAST.Kind.METHOD
+                            ? ((CFGMethod) ast).getMethod()
+                            : ast.getCode();
+            regularExitStores.remove(code);
+            exceptionalExitStores.remove(code);
+            returnStatementStores.remove(code);
+            if (sharedCFGs != null) {
+                sharedCFGs.remove(ast.getCode());
+            }
+        }
+        for (ClassTree ct : analyzed.classes) {
+            regularExitStores.remove(ct);
+        }
+        if (flowResultAnalysisCaches != null) {
+            flowResultAnalysisCaches.clear();
+        }
+    }
+
     /**
      * Creates a type factory. Its compilation unit is not yet set. This constructor might get
      * reflectively called by BaseTypeVisitor.createTypeFactory and uses flowByDefault to determine
@@ -482,6 +571,9 @@ public abstract class GenericAnnotatedTypeFactory<
         this.returnStatementStores.clear();
         this.initializationStore = null;
         this.initializationStaticStore = null;
+        if (this.analyzedClasses != null) {
+            this.analyzedClasses.clear();
+        }
 
         if (shouldCache) {
             this.flowResultAnalysisCaches.clear();
@@ -1139,6 +1231,33 @@ public abstract class GenericAnnotatedTypeFactory<
      */
     protected @MonotonicNonNull AnalysisResult<Value, Store> flowResult;
 
+    /**
+     * True if the dataflow results for a top-level class are discarded once the class has been
+     * type-checked. Set by the {@code -AreleaseFlowResults} command-line option.
+     */
+    private final boolean shouldReleaseFlowResults;
+
+    /**
+     * If {@link #shouldReleaseFlowResults} is true, maps each top-level class whose dataflow
+     * results are in {@link #flowResult} to what was analyzed for it. Otherwise null.
+     */
+    private final @Nullable IdentityHashMap<ClassTree, AnalyzedClass> analyzedClasses;
+
+    /** The entry of {@link #analyzedClasses} for the class being analyzed, or null. */
+    private @Nullable AnalyzedClass currentAnalyzedClass;
+
+    /**
+     * The classes and control flow graphs analyzed for one top-level class by {@link
+     * #performFlowAnalysis}, so that their results can be removed from {@link #flowResult}.
+     */
+    private static final class AnalyzedClass {
+        /** The top-level class and the classes nested in it, in the order they were analyzed. */
+        final List<ClassTree> classes = new ArrayList<>();
+
+        /** The control flow graphs of the code in {@link #classes}. */
+        final List<ControlFlowGraph> cfgs = new ArrayList<>();
+    }
+
     /**
      * A mapping from methods (or other code blocks) to their regular exit store (used to check
      * postconditions).
@@ -1393,6 +1512,11 @@ public abstract class GenericAnnotatedTypeFactory<
             return;
         }
 
+        if (analyzedClasses != null) {
+            currentAnalyzedClass = new AnalyzedClass();
+            analyzedClasses.put(classTree, currentAnalyzedClass);
+        }
+
         // class trees and their initial stores
         Queue<IPair<ClassTree, Store>> classQueue = new ArrayDeque<>();
         List<FieldInitialValue<Value>> fieldValues = new ArrayList<>();
@@ -1405,6 +1529,9 @@ public abstract class GenericAnnotatedTypeFactory<
             ClassTree ct = qel.first;
             Store capturedStore = qel.second;
             scannedClasses.put(ct, ScanState.IN_PROGRESS);
+            if (currentAnalyzedClass != null) {
+                currentAnalyzedClass.classes.add(ct);
+            }
 
             TreePath preTreePath = getVisitorTreePath();
 
@@ -1560,6 +1687,7 @@ public abstract class GenericAnnotatedTypeFactory<
 
             scannedClasses.put(ct, ScanState.FINISHED);
         }
+        currentAnalyzedClass = null;
     }
 
     /** Sorts a list of trees with the variables first. */
@@ -1602,8 +1730,15 @@ public abstract class GenericAnnotatedTypeFactory<
             boolean updateInitializationStore,
             boolean isStatic,
             @Nullable Store capturedStore) {
+        CheckerProfiler profiler = checker.getProfiler();
+        Element profiledElement = profiler.isEnabled() ? elementForProfiling(ast) : null;
+        long startNanos = profiler.start();
         ControlFlowGraph cfg =
                 CFCFGBuilder.build(this.getRoot(), ast, checker, this, processingEnv);
+        profiler.stop(CheckerProfiler.Phase.CFG_BUILDING, profiledElement, startNanos);
+        if (currentAnalyzedClass != null) {
+            currentAnalyzedClass.cfgs.add(cfg);
+        }
         /*
              cfg.getAllNodes(this::isIgnoredExceptionType)
                      .forEach(
@@ -1626,7 +1761,9 @@ public abstract class GenericAnnotatedTypeFactory<
         } else {
             transfer.setFixedInitialStore(capturedStore);
         }
+        startNanos = profiler.start();
         analysis.performAnalysis(cfg, fieldValues);
+        profiler.stop(CheckerProfiler.Phase.DATAFLOW, profiledElement, startNanos);
         AnalysisResult<Value, Store> result = analysis.getResult();
 
         // store result
@@ -1691,6 +1828,29 @@ public abstract class GenericAnnotatedTypeFactory<
         postAnalyze(cfg);
     }
 
+    /**
+     * Returns the element to which {@link CheckerProfiler} attributes the analysis of {@code ast}:
+     * the method, the method that encloses the lambda expression, or the class.
+     *
+     * @param ast the AST that is analyzed
+     * @return the element to which the analysis of {@code ast} is attributed, or null
+     */
+    private @Nullable Element elementForProfiling(UnderlyingAST ast) {
+        switch (ast.getKind()) {
+            case METHOD:
+                return TreeUtils.elementFromDeclaration(((CFGMethod) ast).getMethod());
+            case LAMBDA:
+                MethodTree enclosingMethod = ((CFGLambda) ast).getEnclosingMethod();
+                return enclosingMethod == null
+                        ? TreeUtils.elementFromDeclaration(((CFGLambda) ast).getClassTree())
+                        : TreeUtils.elementFromDeclaration(enclosingMethod);
+            case ARBITRARY_CODE:
+                return TreeUtils.elementFromDeclaration(((CFGStatement) ast).getClassTree());
+            default:
+                return null;
+        }
+    }
+
     /**
      * Returns true if {@code typeMirror} is an exception type that should be ignored.
      *
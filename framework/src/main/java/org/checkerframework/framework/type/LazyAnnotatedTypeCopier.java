@@ -0,0 +1,123 @@
+package org.checkerframework.framework.type;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.javacutil.BugInCF;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An {@link AnnotatedTypeCopier} that defers copying the type arguments of declared types. The copy
+ * of a declared type gets a list of type arguments that copies each type argument the first time
+ * the list element is read. A client that only inspects the primary annotations of a large generic
+ * type, or only some of its type arguments, therefore never pays for copying the rest.
+ *
+ * <p>The copy reads the original type whenever a type argument is first read, so the original type
+ * must never be modified afterward. {@link AnnotatedTypeFactory} uses this class to copy the types
+ * stored in its caches, which are private copies that are never modified. All deferred copies of
+ * one original share the map of encountered references, so the structure of recursive types is
+ * preserved exactly as by {@link AnnotatedTypeCopier}.
+ */
+final class LazyAnnotatedTypeCopier extends AnnotatedTypeCopier {
+
+    /** Creates a copier that copies both the structure and the annotations of a type. */
+    LazyAnnotatedTypeCopier() {
+        super(true);
+    }
+
+    @Override
+    public AnnotatedTypeMirror visitDeclared(
+            AnnotatedDeclaredType original,
+            IdentityHashMap<AnnotatedTypeMirror, AnnotatedTypeMirror> originalToCopy) {
+        if (originalToCopy.containsKey(original)) {
+            return originalToCopy.get(original);
+        }
+
+        AnnotatedDeclaredType copy = makeOrReturnCopy(original, originalToCopy);
+
+        if (original.isUnderlyingTypeRaw()) {
+            copy.setIsUnderlyingTypeRaw();
+        }
+
+        if (original.enclosingType != null) {
+            copy.enclosingType =
+                    (AnnotatedDeclaredType) visit(original.enclosingType, originalToCopy);
+        }
+
+        if (original.typeArgs != null) {
+            // The type arguments of the original have already been converted to uses by
+            // setTypeArguments, and copies of uses are uses, so the list can be assigned directly.
+            copy.typeArgs =
+                    original.typeArgs.isEmpty()
+                            ? Collections.emptyList()
+                            : new LazyCopyList(original.typeArgs, originalToCopy);
+        }
+
+        return copy;
+    }
+
+    /**
+     * An unmodifiable list of copies of types, each of which is made the first time it is read.
+     * Once every element has been copied, the list drops its references to the originals.
+     */
+    private final class LazyCopyList extends AbstractList<AnnotatedTypeMirror>
+            implements RandomAccess {
+
+        /** The types to copy, or null once every element has been copied. */
+        private @Nullable List<AnnotatedTypeMirror> originals;
+
+        /**
+         * The map of encountered references shared by all copies of one original type, or null
+         * once every element has been copied.
+         */
+        private @Nullable IdentityHashMap<AnnotatedTypeMirror, AnnotatedTypeMirror> originalToCopy;
+
+        /** The copies made so far; an element is null until it is first read. */
+        private final @Nullable AnnotatedTypeMirror[] copies;
+
+        /** The number of elements that have not been copied yet. */
+        private int remaining;
+
+        /**
+         * Creates a list of copies of {@code originals}.
+         *
+         * @param originals the types to copy, which must never be modified
+         * @param originalToCopy the map of encountered references of the copy that the list
+         *     belongs to
+         */
+        LazyCopyList(
+                List<AnnotatedTypeMirror> originals,
+                IdentityHashMap<AnnotatedTypeMirror, AnnotatedTypeMirror> originalToCopy) {
+            this.originals = originals;
+            this.originalToCopy = originalToCopy;
+            this.copies = new AnnotatedTypeMirror[originals.size()];
+            this.remaining = copies.length;
+        }
+
+        @Override
+        public AnnotatedTypeMirror get(int index) {
+            AnnotatedTypeMirror copy = copies[index];
+            if (copy == null) {
+                if (originals == null || originalToCopy == null) {
+                    throw new BugInCF("LazyCopyList: no original for element %d", index);
+                }
+                copy = visit(originals.get(index), originalToCopy);
+                copies[index] = copy;
+                if (--remaining == 0) {
+                    originals = null;
+                    originalToCopy = null;
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public int size() {
+            return copies.length;
+        }
+    }
+}
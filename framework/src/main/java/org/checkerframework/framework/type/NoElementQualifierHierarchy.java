@@ -17,9 +17,9 @@ import org.checkerframework.javacutil.TypeSystemError;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.util.Elements;
@@ -97,7 +97,8 @@ public class NoElementQualifierHierarchy extends QualifierHierarchy {
     @RequiresNonNull("this.qualifierKindHierarchy")
     protected Map<QualifierKind, AnnotationMirror> createAnnotationMirrors(
             @UnderInitialization NoElementQualifierHierarchy this, Elements elements) {
-        Map<QualifierKind, AnnotationMirror> quals = new TreeMap<>();
+        // QualifierKinds are interned, and this map is used on every lub and glb.
+        Map<QualifierKind, AnnotationMirror> quals = new IdentityHashMap<>();
         for (QualifierKind kind : qualifierKindHierarchy.allQualifierKinds()) {
             if (kind.hasElements()) {
                 throw new TypeSystemError(
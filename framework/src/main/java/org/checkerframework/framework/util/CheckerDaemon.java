@@ -0,0 +1,684 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.util.JavacTask;
+import com.sun.tools.javac.api.JavacTool;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.SystemUtil;
+import org.checkerframework.javacutil.UserError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * A long-running process that type-checks on behalf of {@link CheckerMain}, so that the classes of
+ * the Checker Framework stay loaded and compiled by the JIT, and static caches such as the one of
+ * {@code -AjdkStubCache} stay warm, from one compilation to the next.
+ *
+ * <p>{@code java -jar checker.jar -startDaemon FILE} runs a daemon in the foreground. It listens
+ * on a loopback port and writes the port and a random secret to {@code FILE}, which only the
+ * current user may read. {@code java -jar checker.jar -daemon FILE ...} sends its javac arguments
+ * to that daemon, which runs javac in its own JVM and sends back the exit status and everything
+ * that javac and the checkers printed. {@code java -jar checker.jar -stopDaemon FILE} stops the
+ * daemon.
+ *
+ * <p>The daemon runs one compilation at a time. It loads the processors named by {@code
+ * -processor} through its own class loader, extended by the entries of the processor path that are
+ * not on its class path, so a compilation sees exactly the classes it would otherwise see, but the
+ * Checker Framework's classes are shared with earlier compilations. The daemon declines requests
+ * that it cannot run exactly as a fresh javac would; {@link CheckerMain} then runs javac as
+ * usual. It declines requests from a different working directory (Java cannot change the working
+ * directory of a running JVM), requests whose JVM options ({@code -J}) or runtime classpath differ
+ * from the daemon's, requests that use {@code @argfiles} or options that javac's API does not
+ * support, requests without a {@code -processor} option, and requests whose processor path does
+ * not contain the daemon's own {@code checker.jar}.
+ *
+ * <p>Any local user can connect to the loopback port, so a client must send the secret before
+ * anything else, and the daemon reads nothing else from a client that does not. The daemon drops a
+ * client that does not send its request within {@link #REQUEST_TIMEOUT_MILLIS}, and it bounds the
+ * size of a request.
+ */
+public final class CheckerDaemon {
+
+    /** The response status that tells the client to run javac itself. */
+    private static final int STATUS_DECLINED = -1;
+
+    /** The request kind for a compilation. */
+    private static final int REQUEST_COMPILE = 0;
+
+    /** The request kind that stops the daemon. */
+    private static final int REQUEST_STOP = 1;
+
+    /** The key of the port in the daemon file. */
+    private static final String PORT_KEY = "port";
+
+    /** The key of the secret in the daemon file. */
+    private static final String SECRET_KEY = "secret";
+
+    /** The exit status of javac when it terminates abnormally. */
+    private static final int EXIT_ABNORMAL = 4;
+
+    /** The number of bytes of the secret. */
+    private static final int SECRET_LENGTH = 32;
+
+    /** How long the daemon waits for a client to send its request, in milliseconds. */
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    /** The maximum number of bytes of a string in a request. */
+    private static final int MAX_STRING_LENGTH = 1 << 20;
+
+    /** The maximum number of strings in a list in a request. */
+    private static final int MAX_LIST_LENGTH = 1 << 16;
+
+    /** The maximum number of bytes of a request, after the secret. */
+    private static final int MAX_REQUEST_LENGTH = 1 << 26;
+
+    /** The secret that a client must send with every request. */
+    private final byte[] secret;
+
+    /**
+     * The command that started the JVM of this daemon, up to but not including the main class, as
+     * computed by {@link CheckerMain}.
+     */
+    private final List<String> jvmArguments;
+
+    /** The canonical paths of the entries of this JVM's class path. */
+    private final Set<String> classpath;
+
+    /** The canonical path of the jar file that contains this class. */
+    private final String checkerJar;
+
+    /**
+     * Creates a daemon.
+     *
+     * @param secret the secret that a client must send with every request
+     * @param jvmArguments the command that started the JVM of this daemon, up to but not including
+     *     the main class
+     */
+    private CheckerDaemon(byte[] secret, List<String> jvmArguments) {
+        this.secret = secret;
+        this.jvmArguments = jvmArguments;
+        this.classpath = new HashSet<>();
+        for (String entry :
+                SystemUtil.PATH_SEPARATOR_SPLITTER.split(System.getProperty("java.class.path"))) {
+            if (!entry.isEmpty()) {
+                classpath.add(canonicalPath(entry));
+            }
+        }
+        this.checkerJar = canonicalPath(CheckerMain.findPathTo(CheckerDaemon.class, false));
+    }
+
+    /**
+     * Runs a daemon until it receives a stop request. {@link CheckerMain} starts this method in a
+     * JVM whose class path contains javac and the Checker Framework.
+     *
+     * @param args the file to which the port and secret of the daemon are written, followed by the
+     *     command that started this JVM, up to but not including the main class
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            throw new UserError("Usage: CheckerDaemon FILE [JVM-COMMAND...]");
+        }
+        Path daemonFile = new File(args[0]).toPath();
+        List<String> jvmArguments = Arrays.asList(args).subList(1, args.length);
+        byte[] secret = new byte[SECRET_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            writeDaemonFile(daemonFile, server.getLocalPort(), secret);
+            try {
+                new CheckerDaemon(secret, jvmArguments).serve(server);
+            } finally {
+                Files.deleteIfExists(daemonFile);
+            }
+        } catch (IOException e) {
+            throw new UserError("Problem running the Checker Framework daemon: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the port and the secret of a daemon to {@code daemonFile}, readable only by the
+     * current user.
+     *
+     * @param daemonFile the file to write
+     * @param port the port on which the daemon listens
+     * @param secret the secret of the daemon
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeDaemonFile(Path daemonFile, int port, byte[] secret)
+            throws IOException {
+        Files.deleteIfExists(daemonFile);
+        try {
+            Files.createFile(
+                    daemonFile,
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system.
+            Files.createFile(daemonFile);
+        }
+        Properties properties = new Properties();
+        properties.setProperty(PORT_KEY, Integer.toString(port));
+        properties.setProperty(SECRET_KEY, toHex(secret));
+        try (OutputStream out = Files.newOutputStream(daemonFile)) {
+            properties.store(out, "Checker Framework daemon");
+        }
+    }
+
+    /**
+     * Serves requests until a stop request arrives.
+     *
+     * @param server the socket on which to accept requests
+     * @throws IOException if the server socket fails
+     */
+    private void serve(ServerSocket server) throws IOException {
+        while (true) {
+            try (Socket socket = server.accept()) {
+                socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+                InputStream socketIn = socket.getInputStream();
+                byte[] clientSecret = new byte[SECRET_LENGTH];
+                new DataInputStream(socketIn).readFully(clientSecret);
+                if (!MessageDigest.isEqual(secret, clientSecret)) {
+                    continue;
+                }
+                DataInputStream in =
+                        new DataInputStream(new LimitedInputStream(socketIn, MAX_REQUEST_LENGTH));
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                if (in.readInt() == REQUEST_STOP) {
+                    out.writeInt(0);
+                    out.flush();
+                    return;
+                }
+                List<String> clientJvmArguments = readStrings(in);
+                String workingDirectory = readString(in, MAX_STRING_LENGTH);
+                List<String> args = readStrings(in);
+
+                ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+                ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+                int status =
+                        workingDirectory.equals(System.getProperty("user.dir"))
+                                        && clientJvmArguments.equals(jvmArguments)
+                                ? compile(args, stdout, stderr)
+                                : STATUS_DECLINED;
+                out.writeInt(status);
+                writeBytes(out, stdout.toByteArray());
+                writeBytes(out, stderr.toByteArray());
+                out.flush();
+            } catch (IOException e) {
+                // The client went away; serve the next one.
+            }
+        }
+    }
+
+    /**
+     * Runs javac with the given arguments in this JVM.
+     *
+     * @param args the arguments to javac
+     * @param stdout receives what is printed to standard output
+     * @param stderr receives what is printed to standard error, including javac's diagnostics
+     * @return the exit status of javac, or {@link #STATUS_DECLINED} if the client should run javac
+     *     itself
+     */
+    private int compile(List<String> args, OutputStream stdout, OutputStream stderr) {
+        JavacTool javac = JavacTool.create();
+        List<String> options = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        List<String> classNames = new ArrayList<>();
+        List<String> processorNames = new ArrayList<>();
+        List<URL> processorPath = new ArrayList<>();
+        boolean hasCheckerJar = false;
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (arg.startsWith("@")) {
+                return STATUS_DECLINED;
+            } else if (arg.equals("-processor") && i + 1 < args.size()) {
+                for (String name : args.get(++i).split(",")) {
+                    if (!name.isEmpty()) {
+                        processorNames.add(name);
+                    }
+                }
+            } else if ((arg.equals("-processorpath") || arg.equals("--processor-path"))
+                    && i + 1 < args.size()) {
+                for (String entry : SystemUtil.PATH_SEPARATOR_SPLITTER.split(args.get(++i))) {
+                    if (entry.isEmpty()) {
+                        continue;
+                    }
+                    String path = canonicalPath(entry);
+                    hasCheckerJar |= path.equals(checkerJar);
+                    if (!classpath.contains(path)) {
+                        try {
+                            processorPath.add(new File(path).toURI().toURL());
+                        } catch (MalformedURLException e) {
+                            return STATUS_DECLINED;
+                        }
+                    }
+                }
+            } else if (arg.startsWith("-")) {
+                int numValues = javac.isSupportedOption(arg);
+                if (numValues < 0 || i + numValues >= args.size()) {
+                    return STATUS_DECLINED;
+                }
+                options.add(arg);
+                for (int j = 0; j < numValues; j++) {
+                    options.add(args.get(++i));
+                }
+            } else if (arg.endsWith(".java")) {
+                files.add(arg);
+            } else {
+                classNames.add(arg);
+            }
+        }
+        if (processorNames.isEmpty()
+                || !hasCheckerJar
+                || (files.isEmpty() && classNames.isEmpty())) {
+            return STATUS_DECLINED;
+        }
+
+        PrintStream oldOut = System.out;
+        PrintStream oldErr = System.err;
+        PrintStream out = new PrintStream(stdout, true);
+        PrintStream err = new PrintStream(stderr, true);
+        PrintWriter diagnostics = new PrintWriter(new OutputStreamWriter(err), true);
+        // The processors are loaded from the daemon's own class loader first, so that the
+        // Checker Framework's classes are reused; other classes come from the processor path.
+        try (URLClassLoader processorLoader =
+                        new URLClassLoader(
+                                processorPath.toArray(new URL[0]),
+                                CheckerDaemon.class.getClassLoader());
+                StandardJavaFileManager fileManager =
+                        javac.getStandardFileManager(null, null, null)) {
+            List<Processor> processors = new ArrayList<>(processorNames.size());
+            for (String name : processorNames) {
+                try {
+                    processors.add(
+                            Class.forName(name, true, processorLoader)
+                                    .asSubclass(Processor.class)
+                                    .getDeclaredConstructor()
+                                    .newInstance());
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    return STATUS_DECLINED;
+                }
+            }
+            Iterable<? extends JavaFileObject> units =
+                    fileManager.getJavaFileObjectsFromStrings(files);
+            JavacTask task;
+            try {
+                task =
+                        javac.getTask(
+                                diagnostics,
+                                fileManager,
+                                null,
+                                options,
+                                classNames.isEmpty() ? null : classNames,
+                                units);
+            } catch (IllegalArgumentException e) {
+                // An invalid option; let javac report it.
+                return STATUS_DECLINED;
+            }
+            task.setProcessors(processors);
+
+            System.setOut(out);
+            System.setErr(err);
+            try {
+                return task.call() ? 0 : 1;
+            } catch (RuntimeException | Error e) {
+                e.printStackTrace(err);
+                return EXIT_ABNORMAL;
+            } finally {
+                diagnostics.flush();
+                System.setOut(oldOut);
+                System.setErr(oldErr);
+            }
+        } catch (IOException e) {
+            e.printStackTrace(err);
+            return EXIT_ABNORMAL;
+        }
+    }
+
+    /**
+     * Asks the daemon described by {@code daemonFile} to run javac. Copies what javac printed to
+     * {@code stdout} and {@code stderr}.
+     *
+     * @param daemonFile the file written by the daemon
+     * @param jvmArguments the command that would start the JVM of a daemon for this compilation,
+     *     up to but not including the main class; the daemon declines the request if it was
+     *     started with a different command
+     * @param args the arguments to javac
+     * @param stdout receives what javac printed to standard output
+     * @param stderr receives what javac printed to standard error
+     * @return the exit status of javac, or null if there is no daemon or it declined the request,
+     *     in which case the caller should run javac itself
+     */
+    public static @Nullable Integer compile(
+            File daemonFile,
+            List<String> jvmArguments,
+            List<String> args,
+            OutputStream stdout,
+            OutputStream stderr) {
+        Properties properties = readDaemonFile(daemonFile);
+        if (properties == null) {
+            return null;
+        }
+        int status;
+        byte[] out;
+        byte[] err;
+        try (Socket socket = connect(properties)) {
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            request.write(readSecret(properties));
+            request.writeInt(REQUEST_COMPILE);
+            writeStrings(request, jvmArguments);
+            writeString(request, System.getProperty("user.dir"));
+            writeStrings(request, args);
+            request.flush();
+
+            DataInputStream response = new DataInputStream(socket.getInputStream());
+            status = response.readInt();
+            out = readBytes(response, Integer.MAX_VALUE);
+            err = readBytes(response, Integer.MAX_VALUE);
+        } catch (IOException | NumberFormatException e) {
+            // The daemon is gone or the file is stale.
+            return null;
+        }
+        if (status == STATUS_DECLINED) {
+            return null;
+        }
+        try {
+            stdout.write(out);
+            stdout.flush();
+            stderr.write(err);
+            stderr.flush();
+        } catch (IOException e) {
+            throw new UserError("Problem writing javac output: " + e.getMessage());
+        }
+        return status;
+    }
+
+    /**
+     * Stops the daemon described by {@code daemonFile}.
+     *
+     * @param daemonFile the file written by the daemon
+     * @return true if a daemon was stopped
+     */
+    public static boolean stop(File daemonFile) {
+        Properties properties = readDaemonFile(daemonFile);
+        if (properties == null) {
+            return false;
+        }
+        try (Socket socket = connect(properties)) {
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            request.write(readSecret(properties));
+            request.writeInt(REQUEST_STOP);
+            request.flush();
+            new DataInputStream(socket.getInputStream()).readInt();
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the file written by a daemon.
+     *
+     * @param daemonFile the file written by a daemon
+     * @return the contents of the file, or null if it does not exist
+     */
+    private static @Nullable Properties readDaemonFile(File daemonFile) {
+        if (!daemonFile.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(daemonFile.toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the secret in the file written by a daemon.
+     *
+     * @param properties the contents of the file written by the daemon
+     * @return the secret of the daemon
+     * @throws NumberFormatException if the file does not contain a valid secret
+     */
+    private static byte[] readSecret(Properties properties) {
+        byte[] secret = fromHex(properties.getProperty(SECRET_KEY, ""));
+        if (secret.length != SECRET_LENGTH) {
+            throw new NumberFormatException("Secret of length " + secret.length);
+        }
+        return secret;
+    }
+
+    /**
+     * Connects to a daemon.
+     *
+     * @param properties the contents of the file written by the daemon
+     * @return a socket connected to the daemon
+     * @throws IOException if the daemon cannot be reached
+     */
+    private static Socket connect(Properties properties) throws IOException {
+        int port = Integer.parseInt(properties.getProperty(PORT_KEY, ""));
+        return new Socket(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Returns the canonical path of a file, or its absolute path if the canonical path cannot be
+     * determined.
+     *
+     * @param path the path of a file
+     * @return the canonical path of the file
+     */
+    private static String canonicalPath(String path) {
+        File file = new File(path);
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Writes a string, which may be longer than {@link DataOutputStream#writeUTF} permits.
+     *
+     * @param out the stream to write to
+     * @param s the string to write
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the stream to read from
+     * @param maxLength the maximum number of bytes of the string
+     * @return the string that was read
+     * @throws IOException if reading fails or the string is longer than {@code maxLength} bytes
+     */
+    private static String readString(DataInputStream in, int maxLength) throws IOException {
+        return new String(readBytes(in, maxLength), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a list of strings.
+     *
+     * @param out the stream to write to
+     * @param strings the strings to write
+     * @throws IOException if writing fails
+     */
+    private static void writeStrings(DataOutputStream out, List<String> strings)
+            throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    /**
+     * Reads a list of strings written by {@link #writeStrings}, of at most {@link
+     * #MAX_LIST_LENGTH} strings of at most {@link #MAX_STRING_LENGTH} bytes each.
+     *
+     * @param in the stream to read from
+     * @return the strings that were read
+     * @throws IOException if reading fails or the list is too long
+     */
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > MAX_LIST_LENGTH) {
+            throw new IOException("Invalid number of strings " + size);
+        }
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in, MAX_STRING_LENGTH));
+        }
+        return strings;
+    }
+
+    /**
+     * Writes a length-prefixed array of bytes.
+     *
+     * @param out the stream to write to
+     * @param bytes the bytes to write
+     * @throws IOException if writing fails
+     */
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads an array of bytes written by {@link #writeBytes}.
+     *
+     * @param in the stream to read from
+     * @param maxLength the maximum number of bytes
+     * @return the bytes that were read
+     * @throws IOException if reading fails or there are more than {@code maxLength} bytes
+     */
+    private static byte[] readBytes(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the hexadecimal representation of {@code bytes}.
+     *
+     * @param bytes an array of bytes
+     * @return the hexadecimal representation of {@code bytes}
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the bytes represented by a hexadecimal string.
+     *
+     * @param hex a string of hexadecimal digits of even length
+     * @return the bytes represented by {@code hex}
+     * @throws NumberFormatException if {@code hex} is not a string of hexadecimal digits of even
+     *     length
+     */
+    private static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new NumberFormatException("Odd number of hexadecimal digits: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /** An input stream that fails once more than a given number of bytes have been read. */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        /** The number of bytes that may still be read. */
+        private long remaining;
+
+        /**
+         * Creates a stream that reads at most {@code limit} bytes from {@code in}.
+         *
+         * @param in the stream to read from
+         * @param limit the maximum number of bytes to read
+         */
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Request too long");
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                throw new IOException("Request too long");
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+    }
+}
@@ -107,6 +107,15 @@ public class CheckerMain {
     /** Command-line argument files (specified with @ on the command line). */
     private final List<File> argListFiles;
 
+    /** The file of the {@link CheckerDaemon} to start, or null. */
+    private final @Nullable File startDaemonFile;
+
+    /** The file of the {@link CheckerDaemon} that should run javac, or null. */
+    private final @Nullable File daemonFile;
+
+    /** The file of the {@link CheckerDaemon} to stop, or null. */
+    private final @Nullable File stopDaemonFile;
+
     /**
      * Option name for specifying an alternative checker-qual.jar location. The accompanying value
      * MUST be the path to the jar file (NOT the path to its encompassing directory)
@@ -131,6 +140,25 @@ public class CheckerMain {
      */
     public static final String JDK_PATH_OPT = "-jdkJar";
 
+    /**
+     * Option name for running a {@link CheckerDaemon} in the foreground. The accompanying value is
+     * the file to which the daemon writes the information that clients need to connect to it.
+     */
+    public static final String START_DAEMON_OPT = "-startDaemon";
+
+    /**
+     * Option name for running javac in the {@link CheckerDaemon} started with the same file, if
+     * there is one. The accompanying value is the file that was passed to {@link
+     * #START_DAEMON_OPT}.
+     */
+    public static final String DAEMON_OPT = "-daemon";
+
+    /**
+     * Option name for stopping a {@link CheckerDaemon}. The accompanying value is the file that was
+     * passed to {@link #START_DAEMON_OPT}.
+     */
+    public static final String STOP_DAEMON_OPT = "-stopDaemon";
+
     /**
      * Construct all the relevant file locations and Java version given the path to this jar and a
      * set of directories in which to search for jars.
@@ -154,6 +182,10 @@ public class CheckerMain {
 
         this.javacJar = extractFileArg(JAVAC_PATH_OPT, new File(searchPath, "javac.jar"), args);
 
+        this.startDaemonFile = extractFileArg(START_DAEMON_OPT, null, args);
+        this.daemonFile = extractFileArg(DAEMON_OPT, null, args);
+        this.stopDaemonFile = extractFileArg(STOP_DAEMON_OPT, null, args);
+
         this.compilationBootclasspath = createCompilationBootclasspath(args);
         this.runtimeClasspath = createRuntimeClasspath(args);
         this.jvmOpts = extractJvmOpts(args);
@@ -281,7 +313,8 @@ public class CheckerMain {
      * @return the string that follows argumentName wrapped as a File if argumentName is in args or
      *     alternative if argumentName is not present in args
      */
-    protected static File extractFileArg(String argumentName, File alternative, List<String> args) {
+    protected static @PolyNull File extractFileArg(
+            String argumentName, @PolyNull File alternative, List<String> args) {
         String filePath = extractArg(argumentName, null, args);
         if (filePath == null) {
             return alternative;
@@ -436,6 +469,19 @@ public class CheckerMain {
 
     /** Invoke the compiler with all relevant jars on its classpath and/or bootclasspath. */
     public List<String> getExecArguments() {
+        List<String> args = getJvmArguments(runtimeClasspath);
+        addMainToArgs(args);
+        args.addAll(getCompilerArguments(true));
+        return args;
+    }
+
+    /**
+     * Returns the command that runs a JVM, up to but not including the main class.
+     *
+     * @param classpath the runtime classpath of the JVM
+     * @return the command that runs a JVM, without its main class and arguments
+     */
+    private List<String> getJvmArguments(List<String> classpath) {
         List<String> args = new ArrayList<>(jvmOpts.size() + cpOpts.size() + toolOpts.size() + 7);
 
         // TODO: do we need java.exe on Windows?
@@ -478,22 +524,33 @@ public class CheckerMain {
         }
 
         args.add("-classpath");
-        args.add(String.join(File.pathSeparator, runtimeClasspath));
+        args.add(String.join(File.pathSeparator, classpath));
         args.add("-ea");
         // com.sun.tools needs to be enabled separately
         args.add("-ea:com.sun.tools...");
 
         args.addAll(jvmOpts);
+        return args;
+    }
 
-        addMainToArgs(args);
-
+    /**
+     * Returns the arguments to javac.
+     *
+     * @param quotePaths if true, quote the classpath and processorpath if they contain spaces, as
+     *     is needed when the arguments are passed to a new process
+     * @return the arguments to javac
+     */
+    private List<String> getCompilerArguments(boolean quotePaths) {
+        List<String> args = new ArrayList<>(toolOpts.size() + 5);
         if (!argsListHasClassPath(argListFiles)) {
+            String classpath = concatenatePaths(cpOpts);
             args.add("-classpath");
-            args.add(quote(concatenatePaths(cpOpts)));
+            args.add(quotePaths ? quote(classpath) : classpath);
         }
         if (!argsListHasProcessorPath(argListFiles)) {
+            String processorpath = concatenatePaths(ppOpts);
             args.add("-processorpath");
-            args.add(quote(concatenatePaths(ppOpts)));
+            args.add(quotePaths ? quote(processorpath) : processorpath);
         }
 
         if (SystemUtil.jreVersion == 8) {
@@ -566,9 +623,54 @@ public class CheckerMain {
         return Arrays.asList(jarFiles);
     }
 
+    /**
+     * Returns the command that runs a {@link CheckerDaemon} in the foreground.
+     *
+     * @param daemonFile the file to which the daemon writes its port and secret
+     * @return the command that runs a {@link CheckerDaemon}
+     */
+    private List<String> getDaemonExecArguments(File daemonFile) {
+        List<String> jvmArgs = getDaemonJvmArguments();
+        List<String> args = new ArrayList<>(jvmArgs);
+        args.add(CheckerDaemon.class.getName());
+        args.add(daemonFile.getAbsolutePath());
+        // The daemon declines requests whose JVM would differ from its own.
+        args.addAll(jvmArgs);
+        return args;
+    }
+
+    /**
+     * Returns the command that runs the JVM of a {@link CheckerDaemon}, up to but not including
+     * the main class. It depends on the JVM options ({@code -J}) and on the runtime classpath,
+     * which {@code -javacJar} and {@code -jdkJar} change.
+     *
+     * @return the command that runs the JVM of a {@link CheckerDaemon}
+     */
+    private List<String> getDaemonJvmArguments() {
+        List<String> classpath = new ArrayList<>(runtimeClasspath);
+        classpath.add(checkerUtilJar.getAbsolutePath());
+        classpath.add(checkerJar.getAbsolutePath());
+        return getJvmArguments(classpath);
+    }
+
     /** Invoke the compiler with all relevant jars on its classpath and/or bootclasspath. */
     public int invokeCompiler() {
+        if (stopDaemonFile != null) {
+            if (!CheckerDaemon.stop(stopDaemonFile)) {
+                System.err.println("No Checker Framework daemon is running for " + stopDaemonFile);
+                return 1;
+            }
+            return 0;
+        }
+        if (startDaemonFile != null) {
+            return ExecUtil.execute(
+                    getDaemonExecArguments(startDaemonFile).toArray(new String[0]),
+                    System.out,
+                    System.err);
+        }
+
         List<String> args = getExecArguments();
+        boolean outputArgsToFile = false;
 
         for (int i = 0; i < args.size(); i++) {
             String arg = args.get(i);
@@ -577,10 +679,26 @@ public class CheckerMain {
                 String fileName = arg.substring(19);
                 args.remove(i);
                 outputArgumentsToFile(fileName, args);
+                outputArgsToFile = true;
                 break;
             }
         }
 
+        if (daemonFile != null && !outputArgsToFile) {
+            // Returns null if there is no daemon or it cannot run this compilation exactly as a
+            // new javac process would.
+            Integer exitStatus =
+                    CheckerDaemon.compile(
+                            daemonFile,
+                            getDaemonJvmArguments(),
+                            getCompilerArguments(false),
+                            System.out,
+                            System.err);
+            if (exitStatus != null) {
+                return exitStatus;
+            }
+        }
+
         // Actually invoke the compiler
         return ExecUtil.execute(args.toArray(new String[0]), System.out, System.err);
     }
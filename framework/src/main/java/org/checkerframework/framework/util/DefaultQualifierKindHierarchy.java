@@ -83,6 +83,26 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
      */
     private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> glbs;
 
+    /**
+     * The qualifier kinds of this hierarchy, indexed by {@link DefaultQualifierKind#index}. It has
+     * the same elements as {@link #qualifierKinds}, in the same order.
+     */
+    private final DefaultQualifierKind[] kindsByIndex;
+
+    /**
+     * The lub of qualifier kinds, indexed by {@link DefaultQualifierKind#index}. {@code
+     * lubTable[i][j]} is the lub of {@code kindsByIndex[i]} and {@code kindsByIndex[j]}, or null if
+     * they are not in the same hierarchy. Contains the same information as {@link #lubs}.
+     */
+    private final @Nullable QualifierKind[][] lubTable;
+
+    /**
+     * The glb of qualifier kinds, indexed by {@link DefaultQualifierKind#index}. {@code
+     * glbTable[i][j]} is the glb of {@code kindsByIndex[i]} and {@code kindsByIndex[j]}, or null if
+     * they are not in the same hierarchy. Contains the same information as {@link #glbs}.
+     */
+    private final @Nullable QualifierKind[][] glbTable;
+
     @Override
     public Set<? extends QualifierKind> getTops() {
         return tops;
@@ -95,6 +115,11 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
     @Override
     public @Nullable QualifierKind leastUpperBound(QualifierKind q1, QualifierKind q2) {
+        int index1 = indexOf(q1);
+        int index2 = indexOf(q2);
+        if (index1 != -1 && index2 != -1) {
+            return lubTable[index1][index2];
+        }
         @SuppressWarnings(
                 "nullness:dereference.of.nullable") // All QualifierKinds are keys in lubs.
         QualifierKind result = lubs.get(q1).get(q2);
@@ -103,12 +128,35 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
     @Override
     public @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2) {
+        int index1 = indexOf(q1);
+        int index2 = indexOf(q2);
+        if (index1 != -1 && index2 != -1) {
+            return glbTable[index1][index2];
+        }
         @SuppressWarnings(
                 "nullness:dereference.of.nullable") // All QualifierKinds are keys in glbs.
         QualifierKind result = glbs.get(q1).get(q2);
         return result;
     }
 
+    /**
+     * Returns the index of {@code kind} in {@link #kindsByIndex}, or -1 if {@code kind} is not a
+     * qualifier kind of this hierarchy.
+     *
+     * @param kind a qualifier kind
+     * @return the index of {@code kind} in {@link #kindsByIndex}, or -1
+     */
+    @SuppressWarnings("interning:not.interned") // identity test of the hierarchy's array
+    private int indexOf(QualifierKind kind) {
+        if (kind instanceof DefaultQualifierKind) {
+            DefaultQualifierKind defaultKind = (DefaultQualifierKind) kind;
+            if (defaultKind.kindsByIndex == kindsByIndex) {
+                return defaultKind.index;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public List<? extends QualifierKind> allQualifierKinds() {
         return qualifierKinds;
@@ -186,6 +234,65 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
         this.glbs = createGlbsMap();
 
         verifyHierarchy(directSuperMap);
+
+        this.kindsByIndex = qualifierKinds.toArray(new DefaultQualifierKind[0]);
+        initializeIndexes(kindsByIndex);
+        this.lubTable = createTable(kindsByIndex, lubs);
+        this.glbTable = createTable(kindsByIndex, glbs);
+    }
+
+    /**
+     * Sets {@link DefaultQualifierKind#index}, {@link DefaultQualifierKind#kindsByIndex}, and
+     * {@link DefaultQualifierKind#superTypeBits} for every qualifier kind. After this, {@link
+     * DefaultQualifierKind#isSubtypeOf} tests a bit instead of searching a set.
+     *
+     * @param kindsByIndex all the qualifier kinds of a hierarchy; each is given its index in this
+     *     array
+     */
+    private static void initializeIndexes(DefaultQualifierKind[] kindsByIndex) {
+        for (int i = 0; i < kindsByIndex.length; i++) {
+            kindsByIndex[i].index = i;
+        }
+        int words = (kindsByIndex.length + 63) >>> 6;
+        for (DefaultQualifierKind kind : kindsByIndex) {
+            long[] bits = new long[words];
+            bits[kind.index >>> 6] |= 1L << kind.index;
+            for (QualifierKind superKind : kind.getStrictSuperTypes()) {
+                int superIndex = ((DefaultQualifierKind) superKind).index;
+                bits[superIndex >>> 6] |= 1L << superIndex;
+            }
+            kind.superTypeBits = bits;
+        }
+        // Set kindsByIndex last: it enables the use of the bits in isSubtypeOf.
+        for (DefaultQualifierKind kind : kindsByIndex) {
+            kind.kindsByIndex = kindsByIndex;
+        }
+    }
+
+    /**
+     * Converts a map of lubs or glbs, as returned by {@link #createLubsMap()} or {@link
+     * #createGlbsMap()}, to a table indexed by {@link DefaultQualifierKind#index}.
+     *
+     * @param kindsByIndex all the qualifier kinds of a hierarchy, indexed by their index
+     * @param map {@code map.get(kind1).get(kind2)} is the lub (or glb) of kind1 and kind2
+     * @return a table whose element {@code [i][j]} is the lub (or glb) of {@code kindsByIndex[i]}
+     *     and {@code kindsByIndex[j]}, or null if there is none
+     */
+    private static @Nullable QualifierKind[][] createTable(
+            DefaultQualifierKind[] kindsByIndex,
+            Map<QualifierKind, Map<QualifierKind, QualifierKind>> map) {
+        @Nullable QualifierKind[][] table = new QualifierKind[kindsByIndex.length][];
+        for (int i = 0; i < kindsByIndex.length; i++) {
+            table[i] = new QualifierKind[kindsByIndex.length];
+            Map<QualifierKind, QualifierKind> row = map.get(kindsByIndex[i]);
+            if (row == null) {
+                continue;
+            }
+            for (int j = 0; j < kindsByIndex.length; j++) {
+                table[i][j] = row.get(kindsByIndex[j]);
+            }
+        }
+        return table;
     }
 
     /**
@@ -248,8 +355,9 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     protected Map<@Interned @CanonicalName String, DefaultQualifierKind> createQualifierKinds(
             @UnderInitialization DefaultQualifierKindHierarchy this,
             Collection<Class<? extends Annotation>> qualifierClasses) {
-        TreeMap<@Interned @CanonicalName String, DefaultQualifierKind> nameToQualifierKind =
-                new TreeMap<>();
+        // A HashMap rather than a TreeMap, because getQualifierKind is called very often.
+        Map<@Interned @CanonicalName String, DefaultQualifierKind> nameToQualifierKind =
+                new HashMap<>();
         for (Class<? extends Annotation> clazz : qualifierClasses) {
             @SuppressWarnings("interning") // uniqueness is tested immediately below
             @Interned DefaultQualifierKind qualifierKind = new DefaultQualifierKind(clazz);
@@ -743,6 +851,25 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
         // Set while creating the QualifierKindHierarchy.
         protected @MonotonicNonNull Set<QualifierKind> strictSuperTypes;
 
+        /**
+         * The index of this in {@link #kindsByIndex}. Set after the QualifierKindHierarchy is
+         * created.
+         */
+        private int index = -1;
+
+        /**
+         * All the qualifier kinds of the QualifierKindHierarchy to which this belongs, indexed by
+         * {@link #index}. Null while the QualifierKindHierarchy is being created. Two qualifier
+         * kinds belong to the same QualifierKindHierarchy iff they have the same array.
+         */
+        private DefaultQualifierKind @MonotonicNonNull [] kindsByIndex;
+
+        /**
+         * A bit set that contains the index of this and of every qualifier kind in {@link
+         * #strictSuperTypes}. Bit {@code i} is bit {@code i % 64} of element {@code i / 64}.
+         */
+        private long @MonotonicNonNull [] superTypeBits;
+
         /**
          * Creates a {@link DefaultQualifierKind} for the given annotation class.
          *
@@ -832,7 +959,18 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
         }
 
         @Override
+        @SuppressWarnings("interning:not.interned") // identity test of the hierarchy's array
         public boolean isSubtypeOf(QualifierKind superQualKind) {
+            if (this == superQualKind) {
+                return true;
+            }
+            if (kindsByIndex != null
+                    && superTypeBits != null
+                    && superQualKind instanceof DefaultQualifierKind
+                    && ((DefaultQualifierKind) superQualKind).kindsByIndex == kindsByIndex) {
+                int superIndex = ((DefaultQualifierKind) superQualKind).index;
+                return (superTypeBits[superIndex >>> 6] & (1L << superIndex)) != 0;
+            }
             if (strictSuperTypes == null) {
                 throw new BugInCF(
                         "DefaultQualifierKind#isSubtypeOf: strictSuperTypes was null. Don't call"
@@ -66,6 +66,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -133,6 +134,19 @@ public class JavaExpressionParseUtil {
                     BinaryExpr.Operator.LESS,
                     BinaryExpr.Operator.LESS_EQUALS);
 
+    /** The maximum number of parsed expressions in {@link #parseCache}. */
+    private static final int PARSE_CACHE_SIZE = 1000;
+
+    /**
+     * Maps a language level and an expression string to the JavaParser expression it parses to.
+     * The same few expression strings, such as {@code "#1"} or {@code "this.lock"}, are parsed at
+     * every use of every method whose annotations contain them. Parsing is the expensive step;
+     * converting the result to a {@link JavaExpression} depends on where the string is written and
+     * is not cached. The cached expressions are never modified.
+     */
+    private static final Map<String, Expression> parseCache =
+            Collections.synchronizedMap(CollectionsPlume.createLruCache(PARSE_CACHE_SIZE));
+
     /**
      * Parses a string to a {@link JavaExpression}.
      *
@@ -165,13 +179,9 @@ public class JavaExpressionParseUtil {
         // Use the current source version to parse with because a JavaExpression could refer to a
         // variable named "var", which is a keyword in Java 10 and later.
         LanguageLevel currentSourceVersion = JavaParserUtil.getCurrentSourceVersion(env);
-        String expressionWithParameterNames =
-                StringsPlume.replaceAll(expression, FORMAL_PARAMETER, PARAMETER_REPLACEMENT);
         Expression expr;
         try {
-            expr =
-                    JavaParserUtil.parseExpression(
-                            expressionWithParameterNames, currentSourceVersion);
+            expr = parseWithCache(expression, currentSourceVersion);
         } catch (ParseProblemException e) {
             String extra = ".";
             if (!e.getProblems().isEmpty()) {
@@ -207,6 +217,27 @@ public class JavaExpressionParseUtil {
         return result;
     }
 
+    /**
+     * Parses a string to a JavaParser expression, after replacing formal parameter uses such as
+     * "#2" by identifiers. Returns a cached expression if the same string was parsed before.
+     *
+     * @param expression the string expression to parse
+     * @param languageLevel the language level to use when parsing
+     * @return the parsed expression, which must not be modified
+     * @throws ParseProblemException if the expression has parser errors
+     */
+    private static Expression parseWithCache(String expression, LanguageLevel languageLevel) {
+        String key = languageLevel.name() + ' ' + expression;
+        Expression expr = parseCache.get(key);
+        if (expr == null) {
+            String expressionWithParameterNames =
+                    StringsPlume.replaceAll(expression, FORMAL_PARAMETER, PARAMETER_REPLACEMENT);
+            expr = JavaParserUtil.parseExpression(expressionWithParameterNames, languageLevel);
+            parseCache.put(key, expr);
+        }
+        return expr;
+    }
+
     /**
      * A visitor class that converts a JavaParser {@link Expression} to a {@link JavaExpression}.
      * This class does not viewpoint-adapt the expression.
@@ -0,0 +1,187 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+
+import org.checkerframework.framework.flow.CFCFGBuilder.SharedCFG;
+import org.checkerframework.framework.source.SourceChecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Caches that are shared by all the checkers that run in one processing environment, that is, by
+ * all the checkers passed to one javac invocation via {@code -processor a,b,c}. Subcheckers share
+ * the caches of their ultimate parent checker.
+ *
+ * <p>There are two caches: one {@link TreePathCacher}, and the control flow graphs of the analyzed
+ * code. Without them, every checker computes the same tree paths and builds the same control flow
+ * graph for every method.
+ *
+ * <p>The caches of a compilation unit are kept while some checker is in it, that is, while it is
+ * the compilation unit that some checker last entered. They are evicted when the last such checker
+ * enters another compilation unit or finishes. javac passes each class to all checkers before it
+ * passes the next class, so a compilation unit usually stays cached until every checker is done
+ * with it. Eviction does not depend on that order, though: if a checker enters a compilation unit
+ * whose caches were already evicted, they are just built again.
+ */
+public final class SharedCompilationCaches {
+
+    /** The caches for each processing environment. */
+    private static final Map<ProcessingEnvironment, SharedCompilationCaches> instances =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** The tree path cache shared by all checkers. */
+    private final TreePathCacher treePathCacher = new TreePathCacher();
+
+    /** The registered checkers that are not finished. */
+    private final Set<SourceChecker> activeCheckers =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Maps each checker that is not finished to the compilation unit that it last entered. */
+    private final Map<SourceChecker, CompilationUnitTree> currentUnits = new IdentityHashMap<>();
+
+    /** The cached compilation units, which are the values of {@link #currentUnits}. */
+    private final Map<CompilationUnitTree, UnitCaches> units = new IdentityHashMap<>();
+
+    /** The caches of one compilation unit. */
+    private static final class UnitCaches {
+        /** The number of checkers whose current compilation unit this is. */
+        int checkers = 0;
+
+        /** Maps analyzed code to the control flow graphs built for it. */
+        final Map<Tree, List<SharedCFG>> cfgs = new IdentityHashMap<>();
+    }
+
+    /** Creates the caches of a processing environment. */
+    private SharedCompilationCaches() {}
+
+    /**
+     * Returns the caches that are shared by all checkers in {@code env}.
+     *
+     * @param env a processing environment
+     * @return the caches that are shared by all checkers in {@code env}
+     */
+    public static SharedCompilationCaches instance(ProcessingEnvironment env) {
+        return instances.computeIfAbsent(env, e -> new SharedCompilationCaches());
+    }
+
+    /**
+     * Registers an ultimate parent checker. Must be called before the checker enters its first
+     * compilation unit.
+     *
+     * @param checker a checker that is not a subchecker
+     */
+    public synchronized void register(SourceChecker checker) {
+        activeCheckers.add(checker);
+    }
+
+    /**
+     * Returns true if more than one checker is registered and not finished. Control flow graphs
+     * are only cached if so, because a checker and its subcheckers already share them.
+     *
+     * @return true if more than one checker is registered and not finished
+     */
+    public synchronized boolean isShared() {
+        return activeCheckers.size() > 1;
+    }
+
+    /**
+     * Returns the tree path cache shared by all checkers.
+     *
+     * @return the tree path cache shared by all checkers
+     */
+    public TreePathCacher getTreePathCacher() {
+        return treePathCacher;
+    }
+
+    /**
+     * Records that {@code checker} has started checking {@code root}, and so has left the
+     * compilation unit that it checked before, if any.
+     *
+     * @param checker a registered checker
+     * @param root the compilation unit that {@code checker} starts checking
+     */
+    public synchronized void enterCompilationUnit(
+            SourceChecker checker, CompilationUnitTree root) {
+        if (!activeCheckers.contains(checker)) {
+            return;
+        }
+        CompilationUnitTree previous = currentUnits.put(checker, root);
+        if (previous == root) {
+            return;
+        }
+        units.computeIfAbsent(root, r -> new UnitCaches()).checkers++;
+        if (previous != null) {
+            leaveCompilationUnit(previous);
+        }
+    }
+
+    /**
+     * Records that {@code checker} will not check any more compilation units. Releases all caches
+     * once every registered checker is finished.
+     *
+     * @param checker a registered checker
+     */
+    public synchronized void finish(SourceChecker checker) {
+        if (!activeCheckers.remove(checker)) {
+            return;
+        }
+        CompilationUnitTree previous = currentUnits.remove(checker);
+        if (previous != null) {
+            leaveCompilationUnit(previous);
+        }
+    }
+
+    /**
+     * Records that a checker has left {@code root}, and evicts the caches of {@code root} if no
+     * other checker is in it.
+     *
+     * @param root a compilation unit that a checker was in
+     */
+    private void leaveCompilationUnit(CompilationUnitTree root) {
+        UnitCaches unit = units.get(root);
+        if (unit != null && --unit.checkers == 0) {
+            units.remove(root);
+            treePathCacher.retainCompilationUnits(units.keySet());
+        }
+    }
+
+    /**
+     * Returns the control flow graphs that some checker built for {@code code}.
+     *
+     * @param root the compilation unit that contains {@code code}
+     * @param code the analyzed code
+     * @return the control flow graphs built for {@code code}, which may be empty
+     */
+    public synchronized List<SharedCFG> getCFGs(CompilationUnitTree root, Tree code) {
+        UnitCaches unit = units.get(root);
+        if (unit == null) {
+            return Collections.emptyList();
+        }
+        List<SharedCFG> cfgs = unit.cfgs.get(code);
+        return cfgs == null ? Collections.emptyList() : new ArrayList<>(cfgs);
+    }
+
+    /**
+     * Caches a control flow graph that a checker built for {@code code}. Does nothing if {@code
+     * root} is not the compilation unit of a checker that is not finished.
+     *
+     * @param root the compilation unit that contains {@code code}
+     * @param code the analyzed code
+     * @param cfg the control flow graph built for {@code code}
+     */
+    public synchronized void addCFG(CompilationUnitTree root, Tree code, SharedCFG cfg) {
+        UnitCaches unit = units.get(root);
+        if (unit != null) {
+            unit.cfgs.computeIfAbsent(code, c -> new ArrayList<>(1)).add(cfg);
+        }
+    }
+}
@@ -8,25 +8,31 @@ import com.sun.source.util.TreeScanner;
 import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
- * TreePathCacher is a TreeScanner that creates and caches a TreePath for a target Tree.
+ * TreePathCacher creates and caches a TreePath for a target Tree.
  *
- * <p>This class replicates some logic from TreePath.getPath but also adds caching to all
- * intermediate TreePaths that are generated. The intermediate TreePaths are reused when other
- * targets have overlapping paths.
+ * <p>The first time a path is requested in a compilation unit, TreePathCacher traverses the
+ * compilation unit once and records the parent of every tree in it. A path is then built by
+ * walking up the parent chain from the target, rather than by scanning the compilation unit from
+ * its root. All intermediate TreePaths that are generated are cached too, and they are reused when
+ * other targets have overlapping paths.
  */
-public class TreePathCacher extends TreeScanner<TreePath, Tree> {
+public class TreePathCacher {
 
     private final Map<Tree, @Nullable TreePath> foundPaths = new HashMap<>(32);
 
     /**
-     * The TreePath of the previous tree scanned. It is always set back to null after a scan has
-     * completed.
+     * Maps a compilation unit to the parent of every tree in it, other than the compilation unit
+     * itself. An entry is created the first time a path is looked up in the compilation unit.
      */
-    private @Nullable TreePath path;
+    private final Map<CompilationUnitTree, Map<Tree, Tree>> parentIndexes =
+            new IdentityHashMap<>();
 
     /**
      * Returns true if the tree is cached.
@@ -56,73 +62,112 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
      * @return the TreePath corresponding to target, or null if target is not found in the
      *     compilation root
      */
+    @SuppressWarnings("interning:not.interned") // trees are compared by reference
     public @Nullable TreePath getPath(CompilationUnitTree root, @FindDistinct Tree target) {
-        // This method uses try/catch and the private {@code Result} exception for control flow to
-        // stop the superclass from scanning other subtrees when target is found.
-
         if (foundPaths.containsKey(target)) {
             return foundPaths.get(target);
         }
 
-        TreePath path = new TreePath(root);
-        if (path.getLeaf() == target) {
-            return path;
+        if (root == target) {
+            return new TreePath(root);
         }
 
-        try {
-            this.scan(path, target);
-        } catch (Result result) {
-            return result.path;
+        Map<Tree, Tree> parents = parentIndexes.get(root);
+        if (parents == null) {
+            parents = ParentIndexer.index(root);
+            parentIndexes.put(root, parents);
+        }
+        if (!parents.containsKey(target)) {
+            // Cache null so the compilation unit isn't searched again.
+            foundPaths.put(target, null);
+            return null;
+        }
+
+        // Walk up to the nearest ancestor whose path is known, then create the paths below it.
+        ArrayDeque<Tree> ancestors = new ArrayDeque<>();
+        TreePath path = null;
+        Tree tree = target;
+        while (path == null) {
+            path = foundPaths.get(tree);
+            if (path == null) {
+                if (tree == root) {
+                    path = new TreePath(root);
+                    foundPaths.put(root, path);
+                } else {
+                    ancestors.push(tree);
+                    tree = parents.get(tree);
+                }
+            }
         }
-        // If a path wasn't found, cache null so the whole compilation unit isn't searched again.
-        foundPaths.put(target, null);
-        return null;
+        while (!ancestors.isEmpty()) {
+            Tree leaf = ancestors.pop();
+            path = new TreePath(path, leaf);
+            foundPaths.put(leaf, path);
+        }
+        return path;
     }
 
-    /** The result of {@link #getPath}. This exception is used for control flow. */
-    private static class Result extends Error {
-        /** Unique identifier for serialization. */
-        private static final long serialVersionUID = 4948452207518392627L;
+    /** Records the parent of every tree in a compilation unit. */
+    private static final class ParentIndexer extends TreeScanner<Void, Tree> {
 
-        /** The result of {@link #getPath}. */
-        @SuppressWarnings("serial") // I do not intend to serialize Result objects
-        private final TreePath path;
+        /** Maps each tree that has been scanned to its parent. */
+        private final Map<Tree, Tree> parents = new IdentityHashMap<>();
 
         /**
-         * Create a {@link #getPath} result.
+         * Returns the parent of every tree in {@code root}, other than {@code root} itself.
          *
-         * @param path the result of {@link #getPath}
+         * @param root a compilation unit
+         * @return a map from each tree in {@code root} to its parent
          */
-        Result(TreePath path) {
-            this.path = path;
+        static Map<Tree, Tree> index(CompilationUnitTree root) {
+            ParentIndexer indexer = new ParentIndexer();
+            root.accept(indexer, root);
+            return indexer.parents;
+        }
+
+        @Override
+        public Void scan(Tree tree, Tree parent) {
+            // Record the parent, then scan the children with this tree as their parent. If a tree
+            // occurs more than once, its first occurrence determines its path.
+            if (tree != null && parents.putIfAbsent(tree, parent) == null) {
+                tree.accept(this, tree);
+            }
+            return null;
         }
     }
 
     public void clear() {
         foundPaths.clear();
+        parentIndexes.clear();
     }
 
-    /** Scan a single node. The current path is updated for the duration of the scan. */
-    @SuppressWarnings("interning:not.interned") // assertion
-    @Override
-    public TreePath scan(Tree tree, Tree target) {
-        TreePath prev = path;
-        if (tree != null) {
-            TreePath foundPath = foundPaths.get(tree);
-            if (foundPath == null) {
-                foundPath = new TreePath(path, tree);
-                foundPaths.put(tree, foundPath);
-            }
-            this.path = foundPath;
-        }
+    /**
+     * Removes every cached path that is not in one of the given compilation units. Also removes
+     * the cached absence of paths, which does not record which compilation unit was searched.
+     *
+     * @param roots the compilation units whose paths to keep
+     */
+    public void retainCompilationUnits(Collection<CompilationUnitTree> roots) {
+        foundPaths
+                .values()
+                .removeIf(path -> path == null || !containsSame(roots, path.getCompilationUnit()));
+        parentIndexes.keySet().removeIf(root -> !containsSame(roots, root));
+    }
 
-        if (tree == target) {
-            throw new Result(path);
-        }
-        try {
-            return super.scan(tree, target);
-        } finally {
-            this.path = prev;
+    /**
+     * Returns true if {@code roots} contains {@code root}, compared by reference.
+     *
+     * @param roots some compilation units
+     * @param root a compilation unit
+     * @return true if {@code roots} contains {@code root}
+     */
+    private static boolean containsSame(
+            Collection<CompilationUnitTree> roots, @FindDistinct CompilationUnitTree root) {
+        for (CompilationUnitTree r : roots) {
+            if (r == root) {
+                return true;
+            }
         }
+        return false;
     }
 }
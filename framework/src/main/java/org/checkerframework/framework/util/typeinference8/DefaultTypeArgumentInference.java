@@ -4,17 +4,20 @@ import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.LambdaExpressionTree;
 import com.sun.source.tree.MemberReferenceTree;
 import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.NewClassTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.source.CheckerProfiler;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.util.typeinference8.types.ContainsInferenceVariable;
 import org.checkerframework.framework.util.typeinference8.types.Variable;
 import org.checkerframework.framework.util.typeinference8.util.Theta;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.TreePathUtil;
 import org.checkerframework.javacutil.TreeUtils;
 
 import java.util.ArrayDeque;
@@ -106,6 +109,8 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
         if (java8Inference != null) {
             java8InferenceStack.push(java8Inference);
         }
+        CheckerProfiler profiler = typeFactory.getChecker().getProfiler();
+        long startNanos = profiler.start();
         try {
             java8Inference = new InvocationTypeInference(typeFactory, pathToExpression);
             if (outerTree instanceof MemberReferenceTree) {
@@ -135,6 +140,15 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
             }
             throw BugInCF.addLocation(outerTree, ex);
         } finally {
+            if (profiler.isEnabled()) {
+                MethodTree enclosingMethod = TreePathUtil.enclosingMethod(pathToExpression);
+                profiler.stop(
+                        CheckerProfiler.Phase.TYPE_INFERENCE,
+                        enclosingMethod == null
+                                ? null
+                                : TreeUtils.elementFromDeclaration(enclosingMethod),
+                        startNanos);
+            }
             if (!java8InferenceStack.isEmpty()) {
                 java8Inference = java8InferenceStack.pop();
             } else {
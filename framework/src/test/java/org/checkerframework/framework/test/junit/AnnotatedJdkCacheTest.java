@@ -0,0 +1,92 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CompilationResult;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Tests that {@code -AjdkStubCache} reuses the parsed annotated JDK in a second compilation that
+ * loads the Checker Framework with the same class loader, and that doing so does not change the
+ * diagnostics.
+ */
+public class AnnotatedJdkCacheTest {
+
+    /** The directory, relative to the tests directory, of the file to type-check. */
+    private static final String TEST_DIR = "value";
+
+    /** Matches the number of hits of the JDK cache in a report written by {@code -Aprofile}. */
+    private static final Pattern JDK_STUB_CACHE =
+            Pattern.compile("\"jdkStubCache\": \\{\"hits\": (\\d+)");
+
+    @Test
+    public void hitInSecondCompilation() throws IOException {
+        Path dir = Files.createTempDirectory("jdkStubCache");
+        Path firstProfile = dir.resolve("first.json");
+        Path secondProfile = dir.resolve("second.json");
+        try {
+            List<String> first = new ArrayList<>();
+            compile(firstProfile, first);
+            List<String> second = new ArrayList<>();
+            long hits = compile(secondProfile, second);
+
+            Assert.assertEquals(first, second);
+            Assert.assertTrue("no file of the annotated JDK was reused", hits > 0);
+        } finally {
+            Files.deleteIfExists(firstProfile);
+            Files.deleteIfExists(secondProfile);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * Type-checks {@code StringLen.java} with the Value Checker and {@code -AjdkStubCache}.
+     *
+     * @param profile the file to which the profile of the compilation is written
+     * @param diagnostics receives the diagnostics of the compilation, sorted
+     * @return the number of files of the annotated JDK that were found in the cache
+     * @throws IOException if the profile cannot be read
+     */
+    private static long compile(Path profile, List<String> diagnostics) throws IOException {
+        File testDir = new File("tests", TEST_DIR);
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        testDir.getPath(),
+                        Collections.singletonList(new File(testDir, "StringLen.java")),
+                        Collections.singletonList(ValueChecker.class.getName()),
+                        Arrays.asList(
+                                "-AignoreTargetLocations",
+                                "-AjdkStubCache",
+                                "-Aprofile=" + profile),
+                        TestUtilities.getShouldEmitDebugInfo());
+        CompilationResult result = new TypecheckExecutor().compile(config);
+        for (Diagnostic<? extends JavaFileObject> d : result.getDiagnostics()) {
+            diagnostics.add(d.toString());
+        }
+        Collections.sort(diagnostics);
+
+        String report = new String(Files.readAllBytes(profile), StandardCharsets.UTF_8);
+        Matcher m = JDK_STUB_CACHE.matcher(report);
+        Assert.assertTrue(report, m.find());
+        return Long.parseLong(m.group(1));
+    }
+}
@@ -10,6 +10,7 @@ import com.sun.tools.javac.util.Options;
 import org.checkerframework.framework.testchecker.util.AnnoWithStringArg;
 import org.checkerframework.framework.testchecker.util.Encrypted;
 import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -60,6 +61,47 @@ public class AnnotationBuilderTest {
         Assert.assertEquals(1, anno.getElementValues().size());
     }
 
+    @Test
+    public void buildInterns() {
+        AnnotationBuilder builder1 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder1.setValue("value", "m");
+        AnnotationBuilder builder2 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder2.setValue("value", "m");
+        AnnotationBuilder builder3 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder3.setValue("value", "n");
+        AnnotationMirror anno1 = builder1.build();
+        Assert.assertSame(anno1, builder2.build());
+        Assert.assertNotSame(anno1, builder3.build());
+        Assert.assertSame(
+                AnnotationBuilder.fromClass(env.getElementUtils(), Encrypted.class),
+                new AnnotationBuilder(env, Encrypted.class).build());
+    }
+
+    @Test
+    public void buildInternsAfterOverflow() {
+        // More annotations than the interner holds.
+        int count = 10_001;
+        AnnotationMirror[] annos = new AnnotationMirror[count];
+        for (int i = 0; i < count; i++) {
+            AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+            builder.setValue("value", "s" + i);
+            annos[i] = builder.build();
+        }
+        for (int i = 0; i < count; i++) {
+            AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+            builder.setValue("value", "s" + i);
+            AnnotationMirror anno = builder.build();
+            Assert.assertTrue(AnnotationUtils.areSame(annos[i], anno));
+            Assert.assertEquals(0, AnnotationUtils.compareAnnotationMirrors(annos[i], anno));
+        }
+        AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder.setValue("value", "s0");
+        Assert.assertSame(annos[0], builder.build());
+        builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder.setValue("value", "s1");
+        Assert.assertFalse(AnnotationUtils.areSame(annos[0], builder.build()));
+    }
+
     @Test(expected = BugInCF.class)
     public void buildingTwice() {
         AnnotationBuilder builder = new AnnotationBuilder(env, Encrypted.class);
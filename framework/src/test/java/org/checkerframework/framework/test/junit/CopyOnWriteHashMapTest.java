@@ -0,0 +1,124 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.framework.flow.CopyOnWriteHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/** This class tests the CopyOnWriteHashMap class, independent of any store. */
+public class CopyOnWriteHashMapTest {
+
+    /**
+     * Returns a map from the strings "0" to "n-1" to their integer values.
+     *
+     * @param n the number of entries
+     * @return a map with {@code n} entries
+     */
+    private static CopyOnWriteHashMap<String, Integer> makeMap(int n) {
+        CopyOnWriteHashMap<String, Integer> result = new CopyOnWriteHashMap<>();
+        for (int i = 0; i < n; i++) {
+            result.put(String.valueOf(i), i);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCopySharesStorageUntilModified() {
+        CopyOnWriteHashMap<String, Integer> original = makeMap(10);
+        CopyOnWriteHashMap<String, Integer> copy = new CopyOnWriteHashMap<>(original);
+        Assert.assertTrue(CopyOnWriteHashMap.sharesStorage(original, copy));
+        Assert.assertEquals(original, copy);
+
+        // Putting an identical mapping does not copy the storage.
+        copy.put("3", original.get("3"));
+        Assert.assertTrue(CopyOnWriteHashMap.sharesStorage(original, copy));
+        // Removing an absent key does not copy the storage.
+        copy.remove("absent");
+        Assert.assertTrue(CopyOnWriteHashMap.sharesStorage(original, copy));
+
+        copy.put("3", 33);
+        Assert.assertFalse(CopyOnWriteHashMap.sharesStorage(original, copy));
+        Assert.assertEquals(Integer.valueOf(3), original.get("3"));
+        Assert.assertEquals(Integer.valueOf(33), copy.get("3"));
+
+        original.remove("4");
+        Assert.assertFalse(original.containsKey("4"));
+        Assert.assertTrue(copy.containsKey("4"));
+    }
+
+    @Test
+    public void testClearDoesNotAffectCopy() {
+        CopyOnWriteHashMap<String, Integer> original = makeMap(5);
+        CopyOnWriteHashMap<String, Integer> copy = new CopyOnWriteHashMap<>(original);
+        original.clear();
+        Assert.assertTrue(original.isEmpty());
+        Assert.assertEquals(5, copy.size());
+    }
+
+    @Test
+    public void testIteratorRemoveOnSharedStorage() {
+        CopyOnWriteHashMap<String, Integer> original = makeMap(10);
+        CopyOnWriteHashMap<String, Integer> copy = new CopyOnWriteHashMap<>(original);
+        copy.entrySet().removeIf(e -> e.getValue() % 2 == 0);
+        Assert.assertEquals(5, copy.size());
+        Assert.assertEquals(10, original.size());
+        for (Integer value : copy.values()) {
+            Assert.assertTrue(value % 2 == 1);
+        }
+
+        original.keySet().removeIf(k -> k.equals("1"));
+        Assert.assertEquals(9, original.size());
+        Assert.assertTrue(copy.containsKey("1"));
+    }
+
+    @Test
+    public void testIteratorRemoveOnUnsharedStorage() {
+        CopyOnWriteHashMap<String, Integer> map = makeMap(10);
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() < 5) {
+                iterator.remove();
+            }
+        }
+        Assert.assertEquals(5, map.size());
+        try {
+            iterator.remove();
+            Assert.fail("remove() twice should throw");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSetValueWritesThrough() {
+        CopyOnWriteHashMap<String, Integer> original = makeMap(10);
+        CopyOnWriteHashMap<String, Integer> copy = new CopyOnWriteHashMap<>(original);
+        for (Map.Entry<String, Integer> e : copy.entrySet()) {
+            e.setValue(e.getValue() + 100);
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(Integer.valueOf(i), original.get(String.valueOf(i)));
+            Assert.assertEquals(Integer.valueOf(i + 100), copy.get(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void testCopyFromAndEquality() {
+        CopyOnWriteHashMap<String, Integer> original = makeMap(10);
+        CopyOnWriteHashMap<String, Integer> other = makeMap(3);
+        other.copyFrom(original);
+        Assert.assertTrue(CopyOnWriteHashMap.sharesStorage(original, other));
+
+        Map<String, Integer> plain = new HashMap<>(original);
+        Assert.assertEquals(plain, original);
+        Assert.assertEquals(original, plain);
+        Assert.assertEquals(plain.hashCode(), original.hashCode());
+
+        CopyOnWriteHashMap<String, Integer> fromPlain = new CopyOnWriteHashMap<>(plain);
+        Assert.assertFalse(CopyOnWriteHashMap.sharesStorage(fromPlain, original));
+        Assert.assertEquals(original, fromPlain);
+    }
+}
@@ -0,0 +1,33 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Runs the tests of {@link FlowTest} with {@code -AflowCheckpointInterval}. The stores computed
+ * from a checkpoint must be the same as those computed from the beginning of a block, so the
+ * expected diagnostics are the same as without checkpoints.
+ */
+public class FlowCheckpointIntervalTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public FlowCheckpointIntervalTest(List<File> testFiles) {
+        super(
+                testFiles,
+                FlowTestChecker.class,
+                "flow",
+                "-AcheckPurityAnnotations",
+                "-AflowCheckpointInterval=2");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"flow", "all-systems"};
+    }
+}
@@ -0,0 +1,59 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.SortedLongSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/** This class tests the SortedLongSet class, independent of the Value Checker. */
+public class SortedLongSetTest {
+
+    @Test
+    public void testOfSortsAndRemovesDuplicates() {
+        SortedLongSet set = SortedLongSet.of(3, -1, 3, Long.MAX_VALUE, -1, Long.MIN_VALUE);
+        Assert.assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, 3L, Long.MAX_VALUE), set.toList());
+        Assert.assertEquals(
+                set, SortedLongSet.of(Arrays.asList(Long.MAX_VALUE, 3L, -1L, 3L, Long.MIN_VALUE)));
+        Assert.assertSame(SortedLongSet.EMPTY, SortedLongSet.of());
+    }
+
+    @Test
+    public void testUnion() {
+        SortedLongSet a = SortedLongSet.of(1, 3, 5);
+        SortedLongSet b = SortedLongSet.of(2, 3, 6);
+        Assert.assertEquals(SortedLongSet.of(1, 2, 3, 5, 6), a.union(b));
+        Assert.assertEquals(a.union(b), b.union(a));
+        Assert.assertSame(a, a.union(SortedLongSet.of(5, 1)));
+        Assert.assertSame(a, SortedLongSet.EMPTY.union(a));
+    }
+
+    @Test
+    public void testSubset() {
+        SortedLongSet a = SortedLongSet.of(1, 3, 5);
+        Assert.assertTrue(SortedLongSet.of(3, 5).isSubsetOf(a));
+        Assert.assertTrue(SortedLongSet.EMPTY.isSubsetOf(a));
+        Assert.assertTrue(a.isSubsetOf(a));
+        Assert.assertFalse(SortedLongSet.of(2).isSubsetOf(a));
+        Assert.assertFalse(SortedLongSet.of(1, 3, 5, 7).isSubsetOf(a));
+    }
+
+    @Test
+    public void testRanges() {
+        SortedLongSet set = SortedLongSet.of(1, 2, 3, 5);
+        Assert.assertEquals(Range.create(1, 5), set.toRange());
+        Assert.assertEquals(Range.NOTHING, SortedLongSet.EMPTY.toRange());
+        Assert.assertTrue(set.containsAll(Range.create(1, 3)));
+        Assert.assertTrue(set.containsAll(Range.NOTHING));
+        Assert.assertFalse(set.containsAll(Range.create(2, 5)));
+        Assert.assertFalse(set.containsAll(Range.LONG_EVERYTHING));
+
+        Assert.assertEquals(
+                SortedLongSet.of(4, 5, 6), SortedLongSet.fromRange(Range.create(4, 6), 3));
+        Assert.assertNull(SortedLongSet.fromRange(Range.create(4, 7), 3));
+        Assert.assertEquals(
+                SortedLongSet.of(Long.MAX_VALUE - 1, Long.MAX_VALUE),
+                SortedLongSet.fromRange(Range.create(Long.MAX_VALUE - 1, Long.MAX_VALUE), 10));
+    }
+}
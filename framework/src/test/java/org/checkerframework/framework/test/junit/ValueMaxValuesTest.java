@@ -0,0 +1,31 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.File;
+import java.util.List;
+
+/** Tests the constant value propagation type system with a limit of 20 values. */
+public class ValueMaxValuesTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public ValueMaxValuesTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.common.value.ValueChecker.class,
+                "value",
+                // Ignore the test suite's usage of qualifiers in illegal locations.
+                "-AignoreTargetLocations",
+                "-A" + ValueChecker.REPORT_EVAL_WARNS,
+                "-A" + ValueChecker.MAX_VALUES + "=20");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"value-maxvalues"};
+    }
+}
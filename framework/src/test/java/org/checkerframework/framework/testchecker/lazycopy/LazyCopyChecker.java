@@ -0,0 +1,9 @@
+package org.checkerframework.framework.testchecker.lazycopy;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/**
+ * A checker that tests the copies of cached types that {@link
+ * org.checkerframework.framework.type.AnnotatedTypeFactory} returns. See {@link LazyCopyVisitor}.
+ */
+public class LazyCopyChecker extends BaseTypeChecker {}
@@ -0,0 +1,116 @@
+package org.checkerframework.framework.testchecker.lazycopy;
+
+import com.sun.source.tree.MethodTree;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.basetype.BaseTypeVisitor;
+import org.checkerframework.framework.testchecker.util.FlowTestAnnotatedTypeFactory;
+import org.checkerframework.framework.testchecker.util.Odd;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * Checks the types of generic methods that {@code AnnotatedTypeFactory.getAnnotatedType(Element)}
+ * returns from its cache, whose type arguments are copied lazily. For each generic method, it
+ * reports {@code lazycopy.checked} if:
+ *
+ * <ul>
+ *   <li>two lookups return distinct but equal types,
+ *   <li>in the type of each parameter of the form {@code C<T>}, where {@code T} is a type variable
+ *       whose upper bound is {@code D<T>}, the type argument of the bound is again {@code T}, and
+ *   <li>modifying the type arguments of one copy changes neither the other copy nor a later
+ *       lookup.
+ * </ul>
+ *
+ * Otherwise, it reports {@code lazycopy.failed}.
+ */
+public class LazyCopyVisitor extends BaseTypeVisitor<FlowTestAnnotatedTypeFactory> {
+
+    /** The {@code @Odd} annotation, which is added to copies to modify them. */
+    private final AnnotationMirror ODD;
+
+    /**
+     * Creates a LazyCopyVisitor.
+     *
+     * @param checker the checker
+     */
+    public LazyCopyVisitor(BaseTypeChecker checker) {
+        super(checker);
+        ODD = AnnotationBuilder.fromClass(elements, Odd.class);
+    }
+
+    @Override
+    protected FlowTestAnnotatedTypeFactory createTypeFactory() {
+        return new FlowTestAnnotatedTypeFactory(checker);
+    }
+
+    @Override
+    public Void visitMethod(MethodTree tree, Void p) {
+        if (!tree.getTypeParameters().isEmpty()) {
+            String failure = checkCopies(TreeUtils.elementFromDeclaration(tree));
+            if (failure == null) {
+                checker.reportWarning(tree, "lazycopy.checked");
+            } else {
+                checker.reportError(tree, "lazycopy.failed", failure);
+            }
+        }
+        return super.visitMethod(tree, p);
+    }
+
+    /**
+     * Checks the copies of the type of {@code method}.
+     *
+     * @param method a generic method
+     * @return a description of the first check that failed, or null if all checks succeeded
+     */
+    private @Nullable String checkCopies(ExecutableElement method) {
+        AnnotatedExecutableType first = atypeFactory.getAnnotatedType(method);
+        AnnotatedExecutableType second = atypeFactory.getAnnotatedType(method);
+        if (first == second || !first.equals(second)) {
+            return "lookups are not distinct and equal: " + first + " and " + second;
+        }
+
+        for (AnnotatedTypeMirror param : first.getParameterTypes()) {
+            if (!(param instanceof AnnotatedDeclaredType)) {
+                continue;
+            }
+            for (AnnotatedTypeMirror typeArg : ((AnnotatedDeclaredType) param).getTypeArguments()) {
+                if (!(typeArg instanceof AnnotatedTypeVariable)) {
+                    continue;
+                }
+                AnnotatedTypeVariable typeVar = (AnnotatedTypeVariable) typeArg;
+                AnnotatedTypeMirror bound = typeVar.getUpperBound();
+                if (!(bound instanceof AnnotatedDeclaredType)
+                        || ((AnnotatedDeclaredType) bound).getTypeArguments().isEmpty()) {
+                    continue;
+                }
+                AnnotatedTypeMirror boundArg =
+                        ((AnnotatedDeclaredType) bound).getTypeArguments().get(0);
+                if (!(boundArg instanceof AnnotatedTypeVariable)
+                        || !types.isSameType(
+                                boundArg.getUnderlyingType(), typeVar.getUnderlyingType())) {
+                    return "lost the recursive bound of " + typeVar + ": " + bound;
+                }
+                boundArg.replaceAnnotation(ODD);
+            }
+            param.replaceAnnotation(ODD);
+        }
+        if (first.equals(second)) {
+            return "modifying " + first + " did not change it";
+        }
+
+        AnnotatedExecutableType third = atypeFactory.getAnnotatedType(method);
+        if (!second.equals(third)) {
+            return "modifying " + first + " changed the cached type to " + third;
+        }
+        return null;
+    }
+}
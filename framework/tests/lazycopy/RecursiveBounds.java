@@ -0,0 +1,16 @@
+import java.util.List;
+import java.util.Map;
+
+public class RecursiveBounds {
+
+    // :: warning: (lazycopy.checked)
+    <T extends Comparable<T>> void sort(List<T> list) {}
+
+    // :: warning: (lazycopy.checked)
+    <K extends Comparable<K>, V> void sortKeys(Map<K, List<V>> map, List<K> keys) {}
+
+    // :: warning: (lazycopy.checked)
+    <E extends Enum<E>> E first(Class<E> enumClass, List<E> values) {
+        return values.get(0);
+    }
+}
@@ -0,0 +1,43 @@
+import org.checkerframework.common.value.qual.*;
+
+/** Test the Constant Value Checker with -AmaxValues=20. */
+public class MaxValues {
+
+    void elevenValues() {
+        // With the default limit of 10, this annotation is replaced by @IntRange(from=1, to=100)
+        // and the assignment succeeds.
+        // :: error: (assignment.type.incompatible)
+        @IntVal({1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 100}) int a = 20;
+    }
+
+    void twentyValues() {
+        @IntVal({1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 100})
+        // :: error: (assignment.type.incompatible)
+        int a = 20;
+
+        @StringVal({
+            "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r",
+            "s", "t"
+        })
+        String s = "a";
+    }
+
+    void twentyOneValues() {
+        // This annotation is replaced by @IntRange(from=1, to=100), so the assignment succeeds.
+        // :: warning: (too.many.values.given.int)
+        @IntVal({1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 100})
+        int a = 50;
+
+        // :: warning: (too.many.values.given)
+        @StringVal({
+            "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r",
+            "s", "t", "u"
+        })
+        String s = "z";
+    }
+
+    void computedValues(@IntVal({0, 100}) int a, @IntVal({0, 1, 2, 3, 4, 5}) int b) {
+        // Twelve values: with the default limit of 10, the sum is @IntRange(from=0, to=105).
+        @IntVal({0, 1, 2, 3, 4, 5, 100, 101, 102, 103, 104, 105}) int c = a + b;
+    }
+}
@@ -0,0 +1,18 @@
+import org.checkerframework.common.value.qual.*;
+
+/** Test the default limit of 10 values; see also tests/value-maxvalues. */
+public class MaxValuesDefault {
+
+    void elevenValues() {
+        // This annotation is replaced by @IntRange(from=1, to=100), so the assignment succeeds.
+        // :: warning: (too.many.values.given.int)
+        @IntVal({1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 100}) int a = 20;
+    }
+
+    void computedValues(@IntVal({0, 100}) int a, @IntVal({0, 1, 2, 3, 4, 5}) int b) {
+        // The sum has twelve values, so it is @IntRange(from=0, to=105).
+        @IntRange(from = 0, to = 105) int c = a + b;
+        // :: error: (assignment.type.incompatible)
+        @IntVal({0, 1, 2, 3, 4, 5, 100, 101, 102, 103}) int d = a + b;
+    }
+}
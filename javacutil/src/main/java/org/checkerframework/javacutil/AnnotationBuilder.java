@@ -55,6 +55,10 @@ import javax.lang.model.util.Types;
  * <p>All setter methods throw {@link IllegalArgumentException} if the specified element is not
  * found, or if the given value is not a subtype of the expected type.
  *
+ * <p>The annotations returned by {@link #build()} and {@link #fromName} are interned: building an
+ * annotation that is the same as a previously-built one usually returns the earlier instance.
+ * Clients must not rely on this for correctness; use {@link AnnotationUtils#areSame}.
+ *
  * <p>TODO: Doesn't type-check arrays yet
  */
 public class AnnotationBuilder {
@@ -262,8 +266,8 @@ public class AnnotationBuilder {
             elementValues.put(annoElement, elementValue);
         }
 
-        AnnotationMirror result = new CheckerFrameworkAnnotationMirror(annoType, elementValues);
-        return result;
+        return AnnotationMirrorInterner.intern(
+                elements, new CheckerFrameworkAnnotationMirror(annoType, elementValues));
     }
 
     /** Whether or not {@link #build()} has been called. */
@@ -278,7 +282,8 @@ public class AnnotationBuilder {
     public AnnotationMirror build() {
         assertNotBuilt();
         wasBuilt = true;
-        return new CheckerFrameworkAnnotationMirror(annotationType, elementValues);
+        return AnnotationMirrorInterner.intern(
+                elements, new CheckerFrameworkAnnotationMirror(annotationType, elementValues));
     }
 
     /**
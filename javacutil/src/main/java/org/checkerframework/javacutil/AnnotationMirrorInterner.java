@@ -0,0 +1,155 @@
+package org.checkerframework.javacutil;
+
+import org.checkerframework.checker.interning.qual.Interned;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationBuilder.CheckerFrameworkAnnotationMirror;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * Canonical instances of the annotations created by {@link AnnotationBuilder}, one set per {@link
+ * Elements} object, that is, per processing environment.
+ *
+ * <p>A checker builds the same annotations, such as its top and bottom qualifiers, over and over.
+ * Interning them means that most comparisons of two annotations that are the same succeed on the
+ * {@code ==} test in {@link AnnotationUtils#areSame}, {@link AnnotationUtils#getSame}, and {@link
+ * AnnotationUtils#compareAnnotationMirrors}, without comparing element values.
+ *
+ * <p>Interning never changes the result of a comparison: two annotations are only identified if
+ * they have the same name and equal element values, which implies that {@link
+ * AnnotationUtils#areSame} holds for them. Annotations that are the same but were not interned,
+ * such as annotations that javac read from a class file, are still compared by value.
+ *
+ * <p>An interner is only used on the thread that runs its compilation, so it is not synchronized.
+ * The map from {@link Elements} objects to interners is static because {@link
+ * AnnotationBuilder#fromName} receives nothing else that is specific to the compilation. It is
+ * synchronized because a build tool may run several compilations, each on its own thread, in the
+ * same JVM.
+ */
+final class AnnotationMirrorInterner {
+
+    /**
+     * The maximum number of annotations interned per processing environment. Annotations built
+     * after this limit is reached are returned unchanged. The limit bounds the memory used when a
+     * checker, such as the Value Checker, builds many distinct annotations.
+     */
+    private static final int MAX_SIZE = 10_000;
+
+    /** The interner for each processing environment. */
+    private static final Map<Elements, AnnotationMirrorInterner> interners =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Maps the name and element values of an annotation to the canonical annotation. */
+    private final Map<Key, CheckerFrameworkAnnotationMirror> canonical = new HashMap<>();
+
+    /** Creates an empty interner. */
+    private AnnotationMirrorInterner() {}
+
+    /**
+     * Returns the canonical annotation that is the same as {@code anno}. If there is none yet,
+     * {@code anno} becomes canonical.
+     *
+     * @param elements the element utilities of the processing environment in which {@code anno}
+     *     was created
+     * @param anno an annotation
+     * @return the canonical annotation that is the same as {@code anno}, or {@code anno} itself
+     */
+    static CheckerFrameworkAnnotationMirror intern(
+            Elements elements, CheckerFrameworkAnnotationMirror anno) {
+        return interners
+                .computeIfAbsent(elements, e -> new AnnotationMirrorInterner())
+                .internImpl(anno);
+    }
+
+    /**
+     * Returns the canonical annotation that is the same as {@code anno}, adding {@code anno} if
+     * there is none yet.
+     *
+     * @param anno an annotation
+     * @return the canonical annotation that is the same as {@code anno}, or {@code anno} itself
+     */
+    private CheckerFrameworkAnnotationMirror internImpl(CheckerFrameworkAnnotationMirror anno) {
+        Key key = new Key(anno);
+        CheckerFrameworkAnnotationMirror result = canonical.get(key);
+        if (result != null) {
+            return result;
+        }
+        if (canonical.size() < MAX_SIZE) {
+            canonical.put(key, anno);
+        }
+        return anno;
+    }
+
+    /**
+     * The name and element values of an annotation. Element values are compared in order, so that
+     * the canonical annotation prints like {@code anno}. They are compared with {@link
+     * AnnotationValue#equals}, which compares the values of annotation values that {@link
+     * AnnotationBuilder} created and the identity of other annotation values.
+     */
+    private static final class Key {
+
+        /** The name of the annotation. */
+        private final @Interned String annotationName;
+
+        /** The element values of the annotation, which must not be modified. */
+        private final Map<? extends ExecutableElement, ? extends AnnotationValue> elementValues;
+
+        /** The hash code of this key. */
+        private final int hashCode;
+
+        /**
+         * Creates the key of an annotation.
+         *
+         * @param anno an annotation
+         */
+        Key(CheckerFrameworkAnnotationMirror anno) {
+            this.annotationName = anno.annotationName;
+            this.elementValues = anno.getElementValues();
+            int hashCode = annotationName.hashCode();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    elementValues.entrySet()) {
+                hashCode = hashCode * 31 + entry.hashCode();
+            }
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            // Annotation names are interned.
+            if (annotationName != other.annotationName
+                    || hashCode != other.hashCode
+                    || elementValues.size() != other.elementValues.size()) {
+                return false;
+            }
+            Iterator<? extends Map.Entry<? extends ExecutableElement, ? extends AnnotationValue>>
+                    otherEntries = other.elementValues.entrySet().iterator();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    elementValues.entrySet()) {
+                Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> otherEntry =
+                        otherEntries.next();
+                if (entry.getKey() != otherEntry.getKey()
+                        || !entry.getValue().equals(otherEntry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -135,8 +135,8 @@ public class AnnotationMirrorMap<V> implements Map<@KeyFor("this") AnnotationMir
     }) // delegation
     @Override
     public @Nullable V put(AnnotationMirror key, V value) {
-        V pre = get(key);
-        remove(key);
+        AnnotationMirror keyAnno = AnnotationUtils.getSame(shadowMap.keySet(), key);
+        V pre = keyAnno == null ? null : shadowMap.remove(keyAnno);
         shadowMap.put(key, value);
         return pre;
     }
@@ -230,6 +230,11 @@ public class AnnotationUtils {
      */
     public static boolean areSame(
             Collection<? extends AnnotationMirror> c1, Collection<? extends AnnotationMirror> c2) {
+        @SuppressWarnings("interning:not.interned") // optimization via identity test
+        boolean identical = c1 == c2;
+        if (identical) {
+            return true;
+        }
         if (c1.size() != c2.size()) {
             return false;
         }
@@ -278,6 +283,14 @@ public class AnnotationUtils {
      */
     public static @Nullable AnnotationMirror getSame(
             Collection<? extends AnnotationMirror> c, AnnotationMirror anno) {
+        // Most annotations are interned (see AnnotationBuilder), so first look for anno itself.
+        for (AnnotationMirror an : c) {
+            @SuppressWarnings("interning:not.interned") // optimization via identity test
+            boolean identical = an == anno;
+            if (identical) {
+                return an;
+            }
+        }
         for (AnnotationMirror an : c) {
             if (AnnotationUtils.areSame(an, anno)) {
                 return an;
@@ -396,6 +409,11 @@ public class AnnotationUtils {
      * @return an ordering over AnnotationMirrors based on their name and values
      */
     public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+        @SuppressWarnings("interning:not.interned") // optimization via identity test
+        boolean identical = a1 == a2;
+        if (identical) {
+            return 0;
+        }
         int nameComparison = compareByName(a1, a2);
         if (nameComparison != 0) {
             return nameComparison;
@@ -404,6 +422,10 @@ public class AnnotationUtils {
         // The annotations have the same name, but possibly different values, so compare values.
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = a1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = a2.getElementValues();
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Both annotations use the default value for every element.
+            return 0;
+        }
         Set<ExecutableElement> sortedElements =
                 new TreeSet<>(Comparator.comparing(ElementUtils::getSimpleSignature));
         sortedElements.addAll(
@@ -1243,6 +1265,10 @@ public class AnnotationUtils {
 
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = am1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = am2.getElementValues();
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Both annotations use the default value for every element.
+            return true;
+        }
         for (ExecutableElement meth :
                 ElementFilter.methodsIn(
                         am1.getAnnotationType().asElement().getEnclosedElements())) {